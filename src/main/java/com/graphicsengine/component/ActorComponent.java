@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.Random;
 
 import com.google.gson.annotations.SerializedName;
+import com.graphicsengine.io.gson.FieldBinder;
 import com.nucleus.BackendException;
 import com.nucleus.component.Component;
 import com.nucleus.component.ComponentBuffer;
@@ -76,7 +77,16 @@ public abstract class ActorComponent<T extends Mesh> extends Component implement
         RESISTANCE(4),
         ROTATESPEED(5),
         BOUNDINGBOX(6),
-        SIZE(BOUNDINGBOX.offset + 4);
+        /**
+         * Index of the {@link SpriteAnimation} plus one, 0 if not animated - so that entities in a cleared buffer
+         * are not animated.
+         */
+        ANIMATION(BOUNDINGBOX.offset + 4),
+        /**
+         * Current time of the animation
+         */
+        ANIMATIONTIME(ANIMATION.offset + 1),
+        SIZE(ANIMATIONTIME.offset + 1);
 
         public final int offset;
 
@@ -105,6 +115,29 @@ public abstract class ActorComponent<T extends Mesh> extends Component implement
 
     transient protected TextureType textureType;
     transient protected UVAtlas uvAtlas;
+    /**
+     * Number of attribute values for each entity, actor variables are stored after the attribute values.
+     */
+    transient protected int attributeSize;
+    transient protected int translateOffset;
+
+    /**
+     * Binds the serialized fields declared by this class, see
+     * {@link com.graphicsengine.io.gson.BinderTypeAdapterFactory}
+     */
+    public static final FieldBinder<ActorComponent<?>> FIELD_BINDER = new FieldBinder<ActorComponent<?>>(
+            new String[] { COUNT, Shape.SHAPE },
+            new Class<?>[] { int.class, Shape.class }) {
+        @Override
+        public void setInt(ActorComponent<?> target, int field, int value) {
+            target.count = value;
+        }
+
+        @Override
+        public void setObject(ActorComponent<?> target, int field, Object value) {
+            target.shape = (Shape) value;
+        }
+    };
 
     /**
      * Creates the instance of a mesh to be used in {@link #createMeshBuilder(NucleusRenderer, Node, int, ShapeBuilder)}
@@ -138,6 +171,19 @@ public abstract class ActorComponent<T extends Mesh> extends Component implement
      */
     protected abstract void createBuffers(VariableIndexer mapper);
 
+    /**
+     * Updates the visible (attribute) data for a range of entities from the values in the entity buffer.
+     * Call this after entities have been written directly into the entity buffer, for instance by
+     * {@link EntitySpawner}
+     * The default implementation does nothing, override in components that keep visible data apart from the
+     * entity buffer.
+     * 
+     * @param first Index of first entity to update
+     * @param count Number of entities to update
+     */
+    public void updateEntities(int first, int count) {
+    }
+
     /**
      * Sets data from source into this
      * 
@@ -146,11 +192,8 @@ public abstract class ActorComponent<T extends Mesh> extends Component implement
     protected void set(ActorComponent<T> source) {
         super.set(source);
         this.count = source.count;
-        if (source.shape != null) {
-            this.shape = Shape.createInstance(source.shape);
-        } else {
-            shape = null;
-        }
+        // Shape is not changed after the component is created, shared with source
+        this.shape = source.shape;
     }
 
     protected void setMesh(T mesh) {
@@ -185,7 +228,10 @@ public abstract class ActorComponent<T extends Mesh> extends Component implement
                 break;
         }
         parent.addMesh(mesh, MeshIndex.MAIN);
-        createBuffers(parent.getProgram().getFunction().getIndexer());
+        VariableIndexer indexer = parent.getProgram().getFunction().getIndexer();
+        attributeSize = indexer.getSizePerVertex(BufferIndex.ATTRIBUTES.index);
+        translateOffset = indexer.getOffset(Property.TRANSLATE.getLocation());
+        createBuffers(indexer);
         mesh.setAttributeUpdater(this);
         bindAttributeBuffer(mesh.getAttributeBuffer(BufferIndex.ATTRIBUTES.index));
     }
@@ -245,7 +291,36 @@ public abstract class ActorComponent<T extends Mesh> extends Component implement
     }
 
     /**
-     * Returns the shape for actors
+     * Returns the number of values for each entity in the entity buffer, this is the attribute values followed by
+     * the {@link ActorVariables}
+     * 
+     * @return Number of values for each entity
+     */
+    public int getEntitySize() {
+        return attributeSize + ActorVariables.SIZE.offset;
+    }
+
+    /**
+     * Returns the offset, in the entity buffer, where {@link ActorVariables} start.
+     * Add the offset of the actor variable to get the offset of a specific variable
+     * 
+     * @return Offset to actor variables for each entity
+     */
+    public int getActorVariablesOffset() {
+        return attributeSize;
+    }
+
+    /**
+     * Returns the offset, in the entity buffer, to translate x, y and z for each entity
+     * 
+     * @return Offset to translate
+     */
+    public int getTranslateOffset() {
+        return translateOffset;
+    }
+
+    /**
+     * Returns the shape for actors, the shape may be shared with other components - do NOT modify
      * 
      * @return
      */
@@ -279,6 +354,12 @@ public abstract class ActorComponent<T extends Mesh> extends Component implement
      * TODO Where do these belong?
      */
 
+    /**
+     * Sets random actor variables for one entity
+     * 
+     * @deprecated Use {@link EntitySpawner} to initialize a range of entities.
+     */
+    @Deprecated
     public static void getRandomEntityData(float[] entityData, float[] rectBounds, float rotateSpeed, Random random,
             VariableIndexer mapper, int entityOffset) {
         entityData[entityOffset + ActorVariables.MOVEVECTOR.offset] = 0;
@@ -297,6 +378,10 @@ public abstract class ActorComponent<T extends Mesh> extends Component implement
         }
     }
 
+    /**
+     * @deprecated Use {@link EntitySpawner} to initialize a range of entities.
+     */
+    @Deprecated
     public static void getRandomPos(float[] spriteData, float xMax, float yMax, float zMax, int offset,
             Random random) {
         spriteData[offset] = ((random.nextFloat() * xMax) - xMax / 2);
@@ -313,6 +398,10 @@ public abstract class ActorComponent<T extends Mesh> extends Component implement
         }
     }
 
+    /**
+     * @deprecated Use {@link EntitySpawner} to initialize a range of entities.
+     */
+    @Deprecated
     public static void setScale2D(float[] spriteData, float scaleRandom, float minScale, Random random, int offset) {
         if (offset > -1) {
             float scale = scaleRandom * random.nextFloat() + minScale;
@@ -323,6 +412,10 @@ public abstract class ActorComponent<T extends Mesh> extends Component implement
 
     }
 
+    /**
+     * @deprecated Use {@link EntitySpawner} to initialize a range of entities.
+     */
+    @Deprecated
     public static void getRandomSprite(float[] spriteData, float rotate, int frame, float scaleRandom, float minScale,
             float sceneWidth, float sceneHeight, Random random, VariableIndexer mapper) {
         ActorComponent.getRandomPos(spriteData, sceneWidth, sceneHeight, 0,
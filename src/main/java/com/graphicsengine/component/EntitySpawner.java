@@ -0,0 +1,208 @@
+package com.graphicsengine.component;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import com.graphicsengine.component.ActorComponent.ActorVariables;
+import com.nucleus.component.CPUComponentBuffer;
+import com.nucleus.shader.VariableIndexer;
+import com.nucleus.shader.VariableIndexer.Property;
+
+/**
+ * Initializes a range of entities in an {@link ActorComponent}, writing the values directly into the entity buffer.
+ * Use this when a large number of entities shall be spawned, for instance particles.
+ * Random values are created using {@link SplittableRandom}, the range is split into chunks where each chunk has
+ * its own generator split from the seed. This means that the result is deterministic for a given seed, regardless of
+ * the number of threads used, and that there is no contention between threads.
+ * Chunks are processed in parallel when the range is large.
+ *
+ * Entities get a random position within the area, rotation, random scale, frame and actor variables.
+ * Boundingbox is set from the 2D bounds of the component shape multiplied by the scale.
+ *
+ */
+public class EntitySpawner {
+
+    /**
+     * Number of entities processed by each chunk, each chunk has its own random generator.
+     */
+    public static final int CHUNK_SIZE = 4096;
+
+    private float[] area = new float[] { 1, 1, 0 };
+    private float rotate;
+    private float rotateSpeed;
+    private float minScale = 1;
+    private float scaleRandom;
+    private int minFrame;
+    private int frameRange = 1;
+    private int animation = -1;
+    private float animationStart;
+
+    /**
+     * Sets the width, height and depth of the area where entities are positioned, x and y position is centered
+     * around 0, z is from 0 to depth.
+     *
+     * @param width
+     * @param height
+     * @param depth
+     * @return This spawner
+     */
+    public EntitySpawner setArea(float width, float height, float depth) {
+        area[0] = width;
+        area[1] = height;
+        area[2] = depth;
+        return this;
+    }
+
+    /**
+     * Sets the z axis rotation of entities and the max random rotate speed
+     *
+     * @param rotate
+     * @param rotateSpeed
+     * @return This spawner
+     */
+    public EntitySpawner setRotate(float rotate, float rotateSpeed) {
+        this.rotate = rotate;
+        this.rotateSpeed = rotateSpeed;
+        return this;
+    }
+
+    /**
+     * Sets the scale of entities, scale will be minScale + random * scaleRandom
+     *
+     * @param minScale
+     * @param scaleRandom
+     * @return This spawner
+     */
+    public EntitySpawner setScale(float minScale, float scaleRandom) {
+        this.minScale = minScale;
+        this.scaleRandom = scaleRandom;
+        return this;
+    }
+
+    /**
+     * Sets the frames of entities, each entity gets a random frame from minFrame to maxFrame (inclusive)
+     *
+     * @param minFrame
+     * @param maxFrame
+     * @return This spawner
+     */
+    public EntitySpawner setFrames(int minFrame, int maxFrame) {
+        this.minFrame = minFrame;
+        this.frameRange = Math.max(1, maxFrame - minFrame + 1);
+        return this;
+    }
+
+    /**
+     * Sets the animation of entities, each entity gets a random start time from 0 to maxStartTime so that
+     * animations are not in sync.
+     * 
+     * @param animation Index of the {@link SpriteAnimation}, or -1 for no animation
+     * @param maxStartTime
+     * @return This spawner
+     */
+    public EntitySpawner setAnimation(int animation, float maxStartTime) {
+        this.animation = animation;
+        this.animationStart = maxStartTime;
+        return this;
+    }
+
+    /**
+     * Spawns count number of entities in the component, beginning at first.
+     * The entity buffer is written directly, after the values are set the component is notified by calling
+     * {@link ActorComponent#updateEntities(int, int)}
+     *
+     * @param component
+     * @param first Index of first entity to spawn
+     * @param count Number of entities to spawn
+     * @param seed Random seed, the same seed will produce the same result.
+     * @throws ArrayIndexOutOfBoundsException If first + count is larger than the number of entities in the
+     * component
+     */
+    public void spawn(ActorComponent<?> component, int first, int count, long seed) {
+        if (first < 0 || first + count > component.getCount()) {
+            throw new ArrayIndexOutOfBoundsException("Invalid range " + first + ", " + count);
+        }
+        VariableIndexer mapper = component.getParent().getProgram().getFunction().getIndexer();
+        float[] bounds = new float[4];
+        component.get2DBounds(bounds);
+        spawn(((CPUComponentBuffer) component.getEntityBuffer()).getData(), first, count, component.getEntitySize(),
+                component.getActorVariablesOffset(), mapper.getOffset(Property.TRANSLATE.getLocation()),
+                mapper.getOffset(Property.ROTATE.getLocation()), mapper.getOffset(Property.SCALE.getLocation()),
+                mapper.getOffset(Property.FRAME.getLocation()), bounds, seed);
+        component.updateEntities(first, count);
+    }
+
+    /**
+     * Spawns count number of entities in the entity data, beginning at first.
+     *
+     * @param data Entity data
+     * @param first Index of first entity to spawn
+     * @param count Number of entities to spawn
+     * @param entitySize Number of values for each entity
+     * @param actorOffset Offset to {@link ActorVariables} for each entity
+     * @param translate Offset to translate for each entity
+     * @param rotateOffset Offset to rotate for each entity, or -1 if not used
+     * @param scaleOffset Offset to scale for each entity, or -1 if not used
+     * @param frame Offset to frame for each entity
+     * @param bounds 2D bounds of the entity shape, x, y, width and height - multiplied by scale for the
+     * bounding box
+     * @param seed Random seed, the same seed will produce the same result.
+     * @throws ArrayIndexOutOfBoundsException If first + count is larger than the number of entities in data
+     */
+    public void spawn(float[] data, int first, int count, int entitySize, int actorOffset, int translate,
+            int rotateOffset, int scaleOffset, int frame, float[] bounds, long seed) {
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < chunks; i++) {
+            randoms[i] = random.split();
+        }
+        IntStream range = IntStream.range(0, chunks);
+        if (chunks > 1) {
+            range = range.parallel();
+        }
+        range.forEach(chunk -> {
+            int start = first + chunk * CHUNK_SIZE;
+            spawnChunk(data, start, Math.min(CHUNK_SIZE, first + count - start), entitySize, actorOffset,
+                    translate, rotateOffset, scaleOffset, frame, bounds, randoms[chunk]);
+        });
+    }
+
+    private void spawnChunk(float[] data, int first, int count, int entitySize, int actorOffset, int translate,
+            int rotateOffset, int scaleOffset, int frame, float[] bounds, SplittableRandom random) {
+        int index = first * entitySize;
+        int actor = index + actorOffset;
+        for (int i = 0; i < count; i++) {
+            data[index + translate] = (float) (random.nextDouble() * area[0] - area[0] / 2);
+            data[index + translate + 1] = (float) (random.nextDouble() * area[1] - area[1] / 2);
+            data[index + translate + 2] = (float) (random.nextDouble() * area[2]);
+            if (rotateOffset > -1) {
+                data[index + rotateOffset] = 0;
+                data[index + rotateOffset + 1] = 0;
+                data[index + rotateOffset + 2] = rotate;
+            }
+            float scale = (float) (scaleRandom * random.nextDouble()) + minScale;
+            if (scaleOffset > -1) {
+                data[index + scaleOffset] = scale;
+                data[index + scaleOffset + 1] = scale;
+                data[index + scaleOffset + 2] = 1;
+            }
+            data[index + frame] = minFrame + random.nextInt(frameRange);
+            data[actor + ActorVariables.MOVEVECTOR.offset] = 0;
+            data[actor + ActorVariables.MOVEVECTOR.offset + 1] = 0;
+            data[actor + ActorVariables.ELASTICITY.offset] = 0.5f + (float) random.nextDouble() * 0.5f;
+            data[actor + ActorVariables.RESISTANCE.offset] = (float) random.nextDouble() * 0.03f;
+            data[actor + ActorVariables.ROTATESPEED.offset] = rotateSpeed * (float) random.nextDouble();
+            data[actor + ActorVariables.BOUNDINGBOX.offset] = bounds[0] * scale;
+            data[actor + ActorVariables.BOUNDINGBOX.offset + 1] = bounds[1] * scale;
+            data[actor + ActorVariables.BOUNDINGBOX.offset + 2] = bounds[2] * scale;
+            data[actor + ActorVariables.BOUNDINGBOX.offset + 3] = bounds[3] * scale;
+            // Stored as index plus one, 0 is not animated
+            data[actor + ActorVariables.ANIMATION.offset] = animation + 1;
+            data[actor + ActorVariables.ANIMATIONTIME.offset] = (float) random.nextDouble() * animationStart;
+            index += entitySize;
+            actor += entitySize;
+        }
+    }
+
+}
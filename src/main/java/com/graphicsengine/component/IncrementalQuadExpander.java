@@ -0,0 +1,267 @@
+package com.graphicsengine.component;
+
+import java.util.stream.IntStream;
+
+import com.nucleus.Backend;
+import com.nucleus.component.CPUComponentBuffer;
+import com.nucleus.component.CPUQuadExpander;
+import com.nucleus.geometry.AttributeBuffer;
+import com.nucleus.renderer.NucleusRenderer;
+import com.nucleus.shader.FloatBlockBuffer;
+import com.nucleus.shader.VariableIndexer;
+import com.nucleus.shader.VariableIndexer.Property;
+import com.nucleus.texturing.Texture2D;
+import com.nucleus.texturing.TextureType;
+import com.nucleus.texturing.UVTexture2D;
+import com.nucleus.vecmath.Transform;
+
+/**
+ * Quad expander that only expands quads that have changed since last update.
+ * Quads are marked as changed when transform, frame, color or data is set using this class, or when
+ * {@link #markDirty(int)} is called. Use {@link #markDirty(int)} after writing directly into the source buffer.
+ * When {@link #updateAttributeData(NucleusRenderer)} is called the changed quads are copied from the source to the
+ * four vertices of the quad in the destination, the range of changed quads is then copied to the attribute buffer.
+ * If no quad has changed nothing is done, large number of changed quads are expanded in parallel chunks.
+ * Tiled textures, and uv textures on GLES 3, use the frame and vertex index in the shader so the quad data is copied
+ * to each vertex. For uv textures on GLES 2 the uvsprite20 shader reads texture u and v from the frame data, the
+ * corner of the atlas frame - x, y, width and height - is written to each vertex.
+ * When all quads are changed the expansion is done by {@link CPUQuadExpander}.
+ * Marking quads as changed is threadsafe, so that for instance UI elements can update on the input thread.
+ *
+ */
+public class IncrementalQuadExpander extends CPUQuadExpander {
+
+    /**
+     * If more quads than this are changed the expand is done in parallel
+     */
+    public static final int PARALLEL_THRESHOLD = 4096;
+    /**
+     * Number of quads expanded by each parallel chunk
+     */
+    public static final int CHUNK_SIZE = 1024;
+
+    protected final float[] source;
+    protected final float[] destination;
+    protected final int sourceStride;
+    protected final int attributeSize;
+    protected final int quadCount;
+    protected AttributeBuffer attributes;
+    /**
+     * Atlas frames, x, y, width and height for each frame, if texture u and v shall be written to each vertex.
+     * Null if the quad data is the same for the 4 vertices.
+     */
+    protected final float[] uvFrames;
+    /**
+     * Offset to frame data for each vertex, texture u and v is written here when {@link #uvFrames} is set.
+     */
+    protected final int frameOffset;
+
+    private boolean[] dirty;
+    /**
+     * List of changed quads, the lists are swapped when changes are expanded
+     */
+    private int[] dirtyList;
+    private int[] expandList;
+    private int dirtyCount;
+    private boolean allDirty;
+
+    /**
+     * Creates a new incremental expander
+     *
+     * @param texture
+     * @param mapper
+     * @param source Source data, one entry for each quad, each entry must start with the attribute data.
+     * @param destination Destination for expanded data, 4 * attribute size for each quad
+     * @param sourceStride Number of values for each quad in source
+     * @param attributeSize Number of attribute values for each vertex
+     */
+    public IncrementalQuadExpander(Texture2D texture, VariableIndexer mapper, CPUComponentBuffer source,
+            CPUComponentBuffer destination, int sourceStride, int attributeSize) {
+        super(texture, mapper, source, destination);
+        this.source = source.getData();
+        this.destination = destination.getData();
+        this.sourceStride = sourceStride;
+        this.attributeSize = attributeSize;
+        this.quadCount = this.source.length / sourceStride;
+        dirty = new boolean[quadCount];
+        dirtyList = new int[quadCount];
+        expandList = new int[quadCount];
+        allDirty = true;
+        frameOffset = mapper.getOffset(Property.FRAME.getLocation());
+        uvFrames = getUVFrames(texture);
+    }
+
+    /**
+     * Returns the atlas frames if texture u and v shall be written to each vertex, this is the case for uv textures
+     * when the GLES 2 uvsprite shader is used.
+     *
+     * @param texture
+     * @return Array with x, y, width and height for each frame, or null if the quad data is copied to each vertex.
+     */
+    protected float[] getUVFrames(Texture2D texture) {
+        if (texture.getTextureType() != TextureType.UVTexture2D || Backend.getInstance().getVersion().major > 2) {
+            return null;
+        }
+        FloatBlockBuffer buffer = ((UVTexture2D) texture).getUVAtlasBuffer();
+        float[] frames = new float[buffer.capacity()];
+        buffer.position(0);
+        buffer.get(frames, 0, frames.length);
+        return frames;
+    }
+
+    /**
+     * Marks the quad as changed, it will be expanded next time attribute data is updated.
+     *
+     * @param quad
+     */
+    public synchronized void markDirty(int quad) {
+        if (!dirty[quad]) {
+            dirty[quad] = true;
+            dirtyList[dirtyCount++] = quad;
+        }
+    }
+
+    /**
+     * Marks a range of quads as changed
+     *
+     * @param first
+     * @param count
+     */
+    public synchronized void markDirty(int first, int count) {
+        for (int quad = first; quad < first + count; quad++) {
+            if (!dirty[quad]) {
+                dirty[quad] = true;
+                dirtyList[dirtyCount++] = quad;
+            }
+        }
+    }
+
+    /**
+     * Marks all quads as changed, use this when most of the source has been updated.
+     */
+    public synchronized void markAllDirty() {
+        allDirty = true;
+    }
+
+    @Override
+    public void setData(int quad, Transform transform) {
+        super.setData(quad, transform);
+        markDirty(quad);
+    }
+
+    @Override
+    public void setFrame(int quad, int frame) {
+        super.setFrame(quad, frame);
+        markDirty(quad);
+    }
+
+    @Override
+    public void setColor(int quad, float[] color) {
+        super.setColor(quad, color);
+        markDirty(quad);
+    }
+
+    @Override
+    public void setData(int quad, int offset, float[] data, int sourceOffset, int length) {
+        super.setData(quad, offset, data, sourceOffset, length);
+        markDirty(quad);
+    }
+
+    @Override
+    public void bindAttributeBuffer(AttributeBuffer buffer) {
+        super.bindAttributeBuffer(buffer);
+        this.attributes = buffer;
+    }
+
+    @Override
+    public void updateAttributeData(NucleusRenderer renderer) {
+        int count;
+        boolean all;
+        synchronized (this) {
+            count = dirtyCount;
+            all = allDirty;
+            if (count == 0 && !all) {
+                return;
+            }
+            int[] swap = dirtyList;
+            dirtyList = expandList;
+            expandList = swap;
+            for (int i = 0; i < count; i++) {
+                dirty[expandList[i]] = false;
+            }
+            dirtyCount = 0;
+            allDirty = false;
+        }
+        if (all) {
+            // Full expansion is done by the superclass
+            super.updateAttributeData(renderer);
+            return;
+        }
+        int destStride = attributeSize * 4;
+        int min = quadCount;
+        int max = -1;
+        if (count > PARALLEL_THRESHOLD) {
+            int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            final int total = count;
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int start = chunk * CHUNK_SIZE;
+                expandList(start, Math.min(CHUNK_SIZE, total - start));
+            });
+            for (int i = 0; i < count; i++) {
+                min = Math.min(min, expandList[i]);
+                max = Math.max(max, expandList[i]);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                int quad = expandList[i];
+                expand(quad);
+                min = Math.min(min, quad);
+                max = Math.max(max, quad);
+            }
+        }
+        attributes.setArray(destination, min * destStride, min * destStride, (max - min + 1) * destStride);
+        attributes.setDirty(true);
+    }
+
+    private void expandList(int start, int count) {
+        for (int i = start; i < start + count; i++) {
+            expand(expandList[i]);
+        }
+    }
+
+    /**
+     * Copies the attribute data for the quad from source to the 4 vertices in destination, if {@link #uvFrames} is
+     * set the texture u and v of each corner is written to the frame data of the vertex.
+     *
+     * @param quad
+     */
+    private void expand(int quad) {
+        int sourceIndex = quad * sourceStride;
+        int destIndex = quad * attributeSize * 4;
+        System.arraycopy(source, sourceIndex, destination, destIndex, attributeSize);
+        System.arraycopy(source, sourceIndex, destination, destIndex + attributeSize, attributeSize);
+        System.arraycopy(source, sourceIndex, destination, destIndex + attributeSize * 2, attributeSize);
+        System.arraycopy(source, sourceIndex, destination, destIndex + attributeSize * 3, attributeSize);
+        if (uvFrames != null) {
+            int frame = (int) source[sourceIndex + frameOffset] * 4;
+            float u = uvFrames[frame];
+            float v = uvFrames[frame + 1];
+            float u2 = u + uvFrames[frame + 2];
+            float v2 = v + uvFrames[frame + 3];
+            // Vertex index 0 to 3 is top left, top right, bottom right, bottom left - same as the GLES 3 shader
+            int uv = destIndex + frameOffset;
+            destination[uv] = u;
+            destination[uv + 1] = v;
+            uv += attributeSize;
+            destination[uv] = u2;
+            destination[uv + 1] = v;
+            uv += attributeSize;
+            destination[uv] = u2;
+            destination[uv + 1] = v2;
+            uv += attributeSize;
+            destination[uv] = u;
+            destination[uv + 1] = v2;
+        }
+    }
+
+}
@@ -0,0 +1,430 @@
+package com.graphicsengine.component;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.google.gson.annotations.SerializedName;
+import com.graphicsengine.io.gson.FieldBinder;
+import com.nucleus.component.Component;
+import com.nucleus.geometry.AttributeUpdater.BufferIndex;
+import com.nucleus.profiling.FrameSampler;
+import com.nucleus.renderer.NucleusRenderer;
+import com.nucleus.shader.VariableIndexer;
+import com.nucleus.shader.VariableIndexer.Property;
+
+/**
+ * Particle component, sprites that are emitted by one or more {@link ParticleEmitter} and that live for a limited
+ * time.
+ * Each emitter has a fixed number of particles in a ring, when a particle is emitted the oldest particle in the ring
+ * is reused. Particle state is kept in arrays allocated when the component is created, update does not allocate.
+ * Particles are updated when attribute data is updated, using the frame delta from {@link FrameSampler}. The update
+ * is done in parallel chunks, using tasks created with the buffers, when the number of particles is large. Live
+ * particles are copied to the upload buffer so that only live particles are uploaded and drawn.
+ * Random values are created from the seed of the component, the same seed gives the same particles.
+ * Culling, depth sort and animations of {@link SpriteComponent} are not supported by this component, defining them
+ * is an error.
+ *
+ * The class can be serialized using gson
+ *
+ */
+public class ParticleComponent extends SpriteComponent {
+
+    public static final String EMITTERS = "emitters";
+    public static final String SEED = "seed";
+
+    /**
+     * Number of particles updated by each chunk
+     */
+    public static final int CHUNK_SIZE = 4096;
+    /**
+     * Max delta time used in one update, to avoid large jumps for instance after a hiccup
+     */
+    public static final float MAX_DELTA = 0.1f;
+
+    @SerializedName(EMITTERS)
+    protected ParticleEmitter[] emitters;
+    /**
+     * Seed for the random generators of the emitters
+     */
+    @SerializedName(SEED)
+    protected long seed;
+
+    /**
+     * Age and lifetime of each particle, a particle is dead when lifetime is 0
+     */
+    transient private float[] age;
+    transient private float[] lifetime;
+    /**
+     * Velocity x, y and z for each particle
+     */
+    transient private float[] velocity;
+    /**
+     * The emitter for each particle
+     */
+    transient private int[] particleEmitter;
+    transient private int[] emitterStart;
+    transient private int[] emitterCapacity;
+    transient private int[] emitterHead;
+    transient private float[] emitterAccumulator;
+    transient private SplittableRandom[] randoms;
+    transient private int[] chunkLive;
+    transient private ChunkUpdate[] chunkUpdates;
+    transient private RecursiveAction updateAction;
+    transient private float updateDelta;
+    transient private boolean started;
+    transient private int liveCount;
+    transient private int spriteSize;
+    transient private int rotateOffset;
+    transient private int scaleOffset;
+    transient private int albedoOffset;
+    transient private int frameOffset;
+
+    /**
+     * Binds the serialized fields declared by this class, see
+     * {@link com.graphicsengine.io.gson.BinderTypeAdapterFactory}
+     */
+    public static final FieldBinder<ParticleComponent> FIELD_BINDER = new FieldBinder<ParticleComponent>(
+            new String[] { EMITTERS, SEED },
+            new Class<?>[] { ParticleEmitter[].class, long.class }) {
+        @Override
+        public void setLong(ParticleComponent target, int field, long value) {
+            target.seed = value;
+        }
+
+        @Override
+        public void setObject(ParticleComponent target, int field, Object value) {
+            target.emitters = (ParticleEmitter[]) value;
+        }
+    };
+
+    /**
+     * Updates one chunk of particles, created with the buffers and reused each update.
+     */
+    private class ChunkUpdate extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final int chunk;
+
+        private ChunkUpdate(int chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            int start = chunk * CHUNK_SIZE;
+            chunkLive[chunk] = update(start, Math.min(CHUNK_SIZE, count - start), updateDelta);
+        }
+    }
+
+    @Override
+    public Component createInstance() {
+        return new ParticleComponent();
+    }
+
+    @Override
+    public void set(Component source) {
+        set((ParticleComponent) source);
+    }
+
+    private void set(ParticleComponent source) {
+        super.set((Component) source);
+        seed = source.seed;
+        if (source.emitters != null) {
+            emitters = new ParticleEmitter[source.emitters.length];
+            for (int i = 0; i < emitters.length; i++) {
+                emitters[i] = new ParticleEmitter(source.emitters[i]);
+            }
+        } else {
+            emitters = null;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException If cull, depth sort or animations are defined, or if emitters are not valid
+     */
+    @Override
+    protected void createBuffers(VariableIndexer mapper) {
+        if (cull || depthSort != null || animations != null) {
+            throw new IllegalArgumentException("Particle component does not support '" + CULL + "', '"
+                    + SpriteSorter.DEPTH_SORT + "' or '" + ANIMATIONS + "'");
+        }
+        super.createBuffers(mapper);
+        spriteSize = mapper.getSizePerVertex(BufferIndex.ATTRIBUTES.index);
+        rotateOffset = mapper.getOffset(Property.ROTATE.getLocation());
+        scaleOffset = mapper.getOffset(Property.SCALE.getLocation());
+        albedoOffset = mapper.getOffset(Property.ALBEDO.getLocation());
+        frameOffset = mapper.getOffset(Property.FRAME.getLocation());
+        if (uploadData == null) {
+            uploadData = new float[count * spriteSize];
+        }
+        age = new float[count];
+        lifetime = new float[count];
+        velocity = new float[count * 3];
+        particleEmitter = new int[count];
+        chunkLive = new int[(count + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        chunkUpdates = new ChunkUpdate[chunkLive.length];
+        for (int chunk = 0; chunk < chunkUpdates.length; chunk++) {
+            chunkUpdates[chunk] = new ChunkUpdate(chunk);
+        }
+        updateAction = new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(chunkUpdates);
+            }
+        };
+        createEmitters();
+    }
+
+    /**
+     * Assigns a range of particles to each emitter, emitters without capacity share the remaining particles.
+     *
+     * @throws IllegalArgumentException If no emitters are defined or the capacity of emitters is larger than count
+     */
+    private void createEmitters() {
+        if (emitters == null || emitters.length == 0) {
+            throw new IllegalArgumentException("Particle component must define '" + EMITTERS + "'");
+        }
+        int fixed = 0;
+        int shared = 0;
+        for (ParticleEmitter emitter : emitters) {
+            fixed += emitter.getCapacity();
+            if (emitter.getCapacity() == 0) {
+                shared++;
+            }
+        }
+        if (fixed > count || (shared > 0 && fixed + shared > count)) {
+            throw new IllegalArgumentException("Emitter capacity " + fixed + " larger than count " + count);
+        }
+        emitterStart = new int[emitters.length];
+        emitterCapacity = new int[emitters.length];
+        emitterHead = new int[emitters.length];
+        emitterAccumulator = new float[emitters.length];
+        randoms = new SplittableRandom[emitters.length];
+        SplittableRandom random = new SplittableRandom(seed);
+        int start = 0;
+        for (int i = 0; i < emitters.length; i++) {
+            int capacity = emitters[i].getCapacity();
+            if (capacity == 0) {
+                capacity = (count - fixed) / shared;
+            }
+            emitterStart[i] = start;
+            emitterCapacity[i] = capacity;
+            randoms[i] = random.split();
+            for (int p = start; p < start + capacity; p++) {
+                particleEmitter[p] = i;
+            }
+            start += capacity;
+        }
+    }
+
+    @Override
+    public void updateAttributeData(NucleusRenderer renderer) {
+        float delta = Math.min(timeKeeper.getDelta(), MAX_DELTA);
+        emit(delta);
+        liveCount = update(delta);
+        attributes.setArray(uploadData, 0, 0, liveCount * spriteSize);
+        attributes.setDirty(true);
+        mesh.setDrawCount(liveCount, 0);
+    }
+
+    /**
+     * Emits new particles from the emitters according to rate and burst
+     *
+     * @param delta
+     */
+    protected void emit(float delta) {
+        for (int i = 0; i < emitters.length; i++) {
+            ParticleEmitter emitter = emitters[i];
+            float amount = emitterAccumulator[i] + emitter.getRate() * delta;
+            int emit = (int) amount;
+            emitterAccumulator[i] = amount - emit;
+            if (!started) {
+                emit += emitter.getBurst();
+            }
+            emit(i, Math.min(emit, emitterCapacity[i]));
+        }
+        started = true;
+    }
+
+    /**
+     * Emits count number of particles from the emitter, the oldest particles in the ring are reused.
+     *
+     * @param emitterIndex
+     * @param count
+     */
+    private void emit(int emitterIndex, int count) {
+        ParticleEmitter emitter = emitters[emitterIndex];
+        SplittableRandom random = randoms[emitterIndex];
+        float[] sprites = spriteData.getData();
+        float[] position = emitter.getPosition();
+        float[] life = emitter.getLifetime();
+        float[] v = emitter.getVelocity();
+        int[] frames = emitter.getFrames();
+        int frameRange = Math.max(1, frames[1] - frames[0] + 1);
+        float scale = emitter.getScaleCurve()[0];
+        int start = emitterStart[emitterIndex];
+        int capacity = emitterCapacity[emitterIndex];
+        int head = emitterHead[emitterIndex];
+        for (int i = 0; i < count; i++) {
+            int particle = start + head;
+            head = head + 1 < capacity ? head + 1 : 0;
+            age[particle] = 0;
+            lifetime[particle] = life[0] + (float) random.nextDouble() * (life[1] - life[0]);
+            int vIndex = particle * 3;
+            velocity[vIndex] = v[0] + (float) random.nextDouble() * (v[3] - v[0]);
+            velocity[vIndex + 1] = v[1] + (float) random.nextDouble() * (v[4] - v[1]);
+            velocity[vIndex + 2] = v[2] + (float) random.nextDouble() * (v[5] - v[2]);
+            int index = particle * spriteSize;
+            sprites[index + translateOffset] = position[0];
+            sprites[index + translateOffset + 1] = position[1];
+            sprites[index + translateOffset + 2] = position[2];
+            if (rotateOffset > -1) {
+                sprites[index + rotateOffset] = 0;
+                sprites[index + rotateOffset + 1] = 0;
+                sprites[index + rotateOffset + 2] = 0;
+            }
+            if (scaleOffset > -1) {
+                sprites[index + scaleOffset] = scale;
+                sprites[index + scaleOffset + 1] = scale;
+                sprites[index + scaleOffset + 2] = 1;
+            }
+            if (albedoOffset > -1) {
+                System.arraycopy(emitter.getColorCurve(), 0, sprites, index + albedoOffset, 4);
+            }
+            sprites[index + frameOffset] = frames[0] + random.nextInt(frameRange);
+        }
+        emitterHead[emitterIndex] = head;
+    }
+
+    /**
+     * Updates all particles and copies live particles to the upload buffer
+     *
+     * @param delta
+     * @return Number of live particles
+     */
+    protected int update(float delta) {
+        int chunks = chunkLive.length;
+        if (chunks == 0) {
+            return 0;
+        }
+        if (chunks > 1) {
+            updateDelta = delta;
+            for (ChunkUpdate chunkUpdate : chunkUpdates) {
+                chunkUpdate.reinitialize();
+            }
+            updateAction.reinitialize();
+            ForkJoinPool.commonPool().invoke(updateAction);
+        } else {
+            chunkLive[0] = update(0, count, delta);
+        }
+        // Compact the chunks, each chunk has written live particles at the start of the chunk
+        int live = chunkLive[0];
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            int chunkCount = chunkLive[chunk];
+            if (chunkCount > 0) {
+                System.arraycopy(uploadData, chunk * CHUNK_SIZE * spriteSize, uploadData, live * spriteSize,
+                        chunkCount * spriteSize);
+                live += chunkCount;
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Updates count number of particles starting at first, live particles are copied to upload buffer beginning
+     * at first.
+     *
+     * @param first
+     * @param count
+     * @param delta
+     * @return Number of live particles in the range
+     */
+    private int update(int first, int count, float delta) {
+        float[] sprites = spriteData.getData();
+        int uploadIndex = first * spriteSize;
+        int live = 0;
+        for (int particle = first; particle < first + count; particle++) {
+            float life = lifetime[particle];
+            if (life <= 0) {
+                continue;
+            }
+            float particleAge = age[particle] + delta;
+            if (particleAge >= life) {
+                lifetime[particle] = 0;
+                continue;
+            }
+            age[particle] = particleAge;
+            float t = particleAge / life;
+            ParticleEmitter emitter = emitters[particleEmitter[particle]];
+            float[] acceleration = emitter.getAcceleration();
+            float speed = ParticleEmitter.evaluate(emitter.getSpeedCurve(), t) * delta;
+            int vIndex = particle * 3;
+            float vx = velocity[vIndex] + acceleration[0] * delta;
+            float vy = velocity[vIndex + 1] + acceleration[1] * delta;
+            float vz = velocity[vIndex + 2] + acceleration[2] * delta;
+            velocity[vIndex] = vx;
+            velocity[vIndex + 1] = vy;
+            velocity[vIndex + 2] = vz;
+            int index = particle * spriteSize;
+            int translate = index + translateOffset;
+            sprites[translate] += vx * speed;
+            sprites[translate + 1] += vy * speed;
+            sprites[translate + 2] += vz * speed;
+            if (scaleOffset > -1) {
+                float scale = ParticleEmitter.evaluate(emitter.getScaleCurve(), t);
+                sprites[index + scaleOffset] = scale;
+                sprites[index + scaleOffset + 1] = scale;
+            }
+            if (albedoOffset > -1) {
+                ParticleEmitter.evaluate(emitter.getColorCurve(), 4, t, sprites, index + albedoOffset);
+            }
+            System.arraycopy(sprites, index, uploadData, uploadIndex, spriteSize);
+            uploadIndex += spriteSize;
+            live++;
+        }
+        return live;
+    }
+
+    /**
+     * Returns the number of live particles, as of the last update
+     *
+     * @return
+     */
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Returns the emitter
+     *
+     * @param index
+     * @return
+     * @throws ArrayIndexOutOfBoundsException If index is invalid
+     */
+    public ParticleEmitter getEmitter(int index) {
+        return emitters[index];
+    }
+
+    /**
+     * Returns the seed used for the random generators of the emitters
+     *
+     * @return
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of emitters
+     *
+     * @return
+     */
+    public int getEmitterCount() {
+        return emitters != null ? emitters.length : 0;
+    }
+
+}
@@ -0,0 +1,275 @@
+package com.graphicsengine.component;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Definition of a particle emitter used by {@link ParticleComponent}
+ * Particles are emitted at a constant rate, with an optional initial burst, and live for a random time between min
+ * and max lifetime.
+ * Scale, color and speed over the particle lifetime are defined by curves, a curve is a number of keys evenly spaced
+ * over the lifetime that are linearly interpolated.
+ *
+ * The class can be serialized using gson
+ *
+ */
+public class ParticleEmitter {
+
+    public static final String POSITION = "position";
+    public static final String CAPACITY = "capacity";
+    public static final String RATE = "rate";
+    public static final String BURST = "burst";
+    public static final String LIFETIME = "lifetime";
+    public static final String VELOCITY = "velocity";
+    public static final String ACCELERATION = "acceleration";
+    public static final String SPEED_CURVE = "speedCurve";
+    public static final String SCALE_CURVE = "scaleCurve";
+    public static final String COLOR_CURVE = "colorCurve";
+    public static final String FRAMES = "frames";
+
+    /**
+     * Position of the emitter, x, y and z
+     */
+    @SerializedName(POSITION)
+    private float[] position = new float[] { 0, 0, 0 };
+    /**
+     * Max number of live particles for this emitter, if 0 the capacity of the component not used by other emitters
+     * is shared among emitters without capacity.
+     */
+    @SerializedName(CAPACITY)
+    private int capacity;
+    /**
+     * Number of particles emitted each second
+     */
+    @SerializedName(RATE)
+    private float rate;
+    /**
+     * Number of particles emitted at once when the emitter starts
+     */
+    @SerializedName(BURST)
+    private int burst;
+    /**
+     * Min and max lifetime in seconds
+     */
+    @SerializedName(LIFETIME)
+    private float[] lifetime = new float[] { 1, 1 };
+    /**
+     * Min x, y, z followed by max x, y, z of the initial velocity.
+     */
+    @SerializedName(VELOCITY)
+    private float[] velocity = new float[] { 0, 0, 0, 0, 0, 0 };
+    /**
+     * Constant acceleration, x, y and z - for instance gravity
+     */
+    @SerializedName(ACCELERATION)
+    private float[] acceleration = new float[] { 0, 0, 0 };
+    /**
+     * Multiplier of velocity over lifetime, one value for each key
+     */
+    @SerializedName(SPEED_CURVE)
+    private float[] speedCurve = new float[] { 1 };
+    /**
+     * Scale over lifetime, one value for each key
+     */
+    @SerializedName(SCALE_CURVE)
+    private float[] scaleCurve = new float[] { 1 };
+    /**
+     * Color over lifetime, RGBA for each key
+     */
+    @SerializedName(COLOR_CURVE)
+    private float[] colorCurve = new float[] { 1, 1, 1, 1 };
+    /**
+     * Min and max frame, each particle gets a random frame in the range (inclusive)
+     */
+    @SerializedName(FRAMES)
+    private int[] frames = new int[] { 0, 0 };
+
+    public ParticleEmitter() {
+    }
+
+    /**
+     * Creates a new emitter with values copied from source
+     *
+     * @param source
+     */
+    public ParticleEmitter(ParticleEmitter source) {
+        set(source);
+    }
+
+    /**
+     * Copies the values from source into this emitter
+     *
+     * @param source
+     */
+    public void set(ParticleEmitter source) {
+        position = source.position.clone();
+        capacity = source.capacity;
+        rate = source.rate;
+        burst = source.burst;
+        lifetime = source.lifetime.clone();
+        velocity = source.velocity.clone();
+        acceleration = source.acceleration.clone();
+        speedCurve = source.speedCurve.clone();
+        scaleCurve = source.scaleCurve.clone();
+        colorCurve = source.colorCurve.clone();
+        frames = source.frames.clone();
+    }
+
+    /**
+     * Returns the position of the emitter, this is a reference to the array - changes will be reflected in the
+     * emitter.
+     *
+     * @return x, y and z position
+     */
+    public float[] getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the capacity, 0 means the capacity is shared from the component.
+     *
+     * @return
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of particles emitted each second
+     *
+     * @return
+     */
+    public float getRate() {
+        return rate;
+    }
+
+    /**
+     * Sets the number of particles emitted each second, 0 to stop emitting.
+     *
+     * @param rate
+     */
+    public void setRate(float rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Returns the number of particles emitted at start
+     *
+     * @return
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Returns the min and max lifetime
+     *
+     * @return
+     */
+    public float[] getLifetime() {
+        return lifetime;
+    }
+
+    /**
+     * Returns the min x, y, z and max x, y, z velocity
+     *
+     * @return
+     */
+    public float[] getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * Returns the x, y and z acceleration
+     *
+     * @return
+     */
+    public float[] getAcceleration() {
+        return acceleration;
+    }
+
+    /**
+     * Returns the speed multiplier curve
+     *
+     * @return
+     */
+    public float[] getSpeedCurve() {
+        return speedCurve;
+    }
+
+    /**
+     * Returns the scale curve
+     *
+     * @return
+     */
+    public float[] getScaleCurve() {
+        return scaleCurve;
+    }
+
+    /**
+     * Returns the color curve, RGBA for each key
+     *
+     * @return
+     */
+    public float[] getColorCurve() {
+        return colorCurve;
+    }
+
+    /**
+     * Returns min and max frame
+     *
+     * @return
+     */
+    public int[] getFrames() {
+        return frames;
+    }
+
+    /**
+     * Evaluates a curve with size values per key at the normalized time t, result is written to destination.
+     *
+     * @param curve The curve keys
+     * @param size Number of values for each key
+     * @param t Normalized time, 0 to 1
+     * @param destination
+     * @param offset Offset into destination where result is written
+     */
+    public static void evaluate(float[] curve, int size, float t, float[] destination, int offset) {
+        int keys = curve.length / size;
+        if (keys == 1 || t <= 0) {
+            System.arraycopy(curve, 0, destination, offset, size);
+            return;
+        }
+        float pos = t * (keys - 1);
+        int key = (int) pos;
+        if (key >= keys - 1) {
+            System.arraycopy(curve, (keys - 1) * size, destination, offset, size);
+            return;
+        }
+        float fraction = pos - key;
+        int index = key * size;
+        for (int i = 0; i < size; i++) {
+            float start = curve[index + i];
+            destination[offset + i] = start + (curve[index + size + i] - start) * fraction;
+        }
+    }
+
+    /**
+     * Evaluates a curve with one value per key at the normalized time t
+     *
+     * @param curve
+     * @param t Normalized time, 0 to 1
+     * @return
+     */
+    public static float evaluate(float[] curve, float t) {
+        int keys = curve.length;
+        if (keys == 1 || t <= 0) {
+            return curve[0];
+        }
+        float pos = t * (keys - 1);
+        int key = (int) pos;
+        if (key >= keys - 1) {
+            return curve[keys - 1];
+        }
+        return curve[key] + (curve[key + 1] - curve[key]) * (pos - key);
+    }
+
+}
@@ -0,0 +1,390 @@
+package com.graphicsengine.component;
+
+import java.util.Arrays;
+
+import com.graphicsengine.component.ActorComponent.ActorVariables;
+import com.nucleus.component.CPUComponentBuffer;
+
+/**
+ * Uniform grid spatial hash used as broad-phase for overlap tests between entities.
+ * Entities are inserted into the cell of their bounding box center, cells are hashed into a table so that
+ * the world does not need to be bounded.
+ * The hash is rebuilt, in linear time, by calling {@link #rebuild(ActorComponent)} - this should be done
+ * once per frame after entities have been moved.
+ * If only a few entities change, for instance ui elements, call
+ * {@link #update(float[], int, int, int, int, int[], int)} with the changed entities, only the cells of those
+ * entities are updated.
+ * Storage is primitive arrays, first entity of each cell plus a doubly linked list of entities in the same cell,
+ * queries do not allocate.
+ * Bounding box is x,y offset from translate plus width and height, y is top of box and height extends downwards.
+ * This is the same layout as {@link ActorVariables#BOUNDINGBOX}
+ *
+ * This class is not threadsafe.
+ *
+ */
+public class SpatialHash {
+
+    /**
+     * Listener for overlapping pairs, called by {@link SpatialHash#findPairs(PairListener)}
+     *
+     */
+    public interface PairListener {
+        /**
+         * Called when the bounding box of two entities overlap, entity1 is always less than entity2
+         *
+         * @param entity1
+         * @param entity2
+         */
+        public void onPair(int entity1, int entity2);
+    }
+
+    private final static int MIN_TABLE_SIZE = 64;
+
+    /**
+     * Fixed cell size, or 0 to calculate cellsize from entity bounds when rebuilt.
+     */
+    private float fixedCellSize;
+    private float cellSize;
+    private float invCellSize;
+    private int count;
+    private int tableMask;
+    /**
+     * First entity in each cell, or -1 if cell is empty
+     */
+    private int[] cellHead;
+    private int[] cellStamp;
+    private int stamp;
+    /**
+     * Next and previous entity in the same cell, or -1
+     */
+    private int[] next;
+    private int[] previous;
+    /**
+     * Hash table index for each entity, or -1 if entity is not in the hash
+     */
+    private int[] entityCell;
+    /**
+     * Min x, min y, max x and max y for each entity
+     */
+    private float[] boxes;
+    private float maxHalfWidth;
+    private float maxHalfHeight;
+
+    /**
+     * Creates a spatial hash with cellsize calculated from the largest entity each time the hash is rebuilt.
+     */
+    public SpatialHash() {
+        this(0);
+    }
+
+    /**
+     * Creates a spatial hash with fixed cellsize
+     *
+     * @param cellSize Size of each cell, or 0 to calculate from the largest entity each time the hash is rebuilt.
+     */
+    public SpatialHash(float cellSize) {
+        this.fixedCellSize = cellSize;
+    }
+
+    /**
+     * Rebuilds the hash using the entities in the actor component.
+     *
+     * @param component
+     */
+    public void rebuild(ActorComponent<?> component) {
+        rebuild(((CPUComponentBuffer) component.getEntityBuffer()).getData(), component.getCount(),
+                component.getEntitySize(), component.getTranslateOffset(),
+                component.getActorVariablesOffset() + ActorVariables.BOUNDINGBOX.offset);
+    }
+
+    /**
+     * Rebuilds the hash from the entity data, storage is only allocated if count is larger than previous count.
+     *
+     * @param data Entity data
+     * @param count Number of entities
+     * @param stride Number of values for each entity
+     * @param translateOffset Offset to translate x and y for each entity
+     * @param boundsOffset Offset to bounding box x, y, width and height for each entity
+     */
+    public void rebuild(float[] data, int count, int stride, int translateOffset, int boundsOffset) {
+        ensureCapacity(count);
+        this.count = count;
+        maxHalfWidth = 0;
+        maxHalfHeight = 0;
+        int index = 0;
+        for (int i = 0; i < count; i++) {
+            setBox(i, data, index + translateOffset, index + boundsOffset);
+            index += stride;
+        }
+        cellSize = fixedCellSize > 0 ? fixedCellSize : Math.max(maxHalfWidth, maxHalfHeight) * 2;
+        if (cellSize <= 0) {
+            cellSize = 1;
+        }
+        invCellSize = 1 / cellSize;
+        Arrays.fill(cellHead, 0, tableMask + 1, -1);
+        for (int i = 0; i < count; i++) {
+            link(i, cell(i));
+        }
+    }
+
+    /**
+     * Updates the hash after some entities have changed, only the cells of the changed entities are updated.
+     * Entities from count up to the previous count are removed, entities added since the previous call must be
+     * included in the changed entities.
+     * Cellsize is kept from the last rebuild, the hash is rebuilt if it has not been built, if count has grown
+     * so that the table must be resized or if cellsize is calculated and an entity is larger than twice the cellsize.
+     *
+     * @param data Entity data
+     * @param count Number of entities
+     * @param stride Number of values for each entity
+     * @param translateOffset Offset to translate x and y for each entity
+     * @param boundsOffset Offset to bounding box x, y, width and height for each entity
+     * @param changed Index of entities that have been added or changed since the previous call, indexes at or above
+     * count are ignored.
+     * @param changedCount Number of changed entities
+     */
+    public void update(float[] data, int count, int stride, int translateOffset, int boundsOffset, int[] changed,
+            int changedCount) {
+        if (cellHead == null || tableSize(count) > cellHead.length) {
+            rebuild(data, count, stride, translateOffset, boundsOffset);
+            return;
+        }
+        for (int i = count; i < this.count; i++) {
+            unlink(i);
+        }
+        if (count > this.count) {
+            ensureCapacity(count);
+            Arrays.fill(entityCell, this.count, count, -1);
+        }
+        this.count = count;
+        for (int i = 0; i < changedCount; i++) {
+            int entity = changed[i];
+            if (entity >= count) {
+                continue;
+            }
+            int index = entity * stride;
+            setBox(entity, data, index + translateOffset, index + boundsOffset);
+            int cell = cell(entity);
+            if (entityCell[entity] != cell) {
+                unlink(entity);
+                link(entity, cell);
+            }
+        }
+        if (fixedCellSize <= 0 && Math.max(maxHalfWidth, maxHalfHeight) > cellSize) {
+            // Entities have grown so that queries would visit too many cells
+            rebuild(data, count, stride, translateOffset, boundsOffset);
+        }
+    }
+
+    /**
+     * Stores the entities that overlap the specified entity, the entity itself is not included.
+     *
+     * @param entity
+     * @param result Destination for overlapping entities, at most result.length entities are stored.
+     * @return Number of overlapping entities stored in result
+     */
+    public int getNeighbours(int entity, int[] result) {
+        int box = entity * 4;
+        return query(boxes[box], boxes[box + 1], boxes[box + 2], boxes[box + 3], entity, result);
+    }
+
+    /**
+     * Stores the entities that overlap the specified area.
+     *
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @param result Destination for overlapping entities, at most result.length entities are stored.
+     * @return Number of overlapping entities stored in result
+     */
+    public int query(float minX, float minY, float maxX, float maxY, int[] result) {
+        return query(minX, minY, maxX, maxY, -1, result);
+    }
+
+    private int query(float minX, float minY, float maxX, float maxY, int exclude, int[] result) {
+        int found = 0;
+        int x1 = cell(minX - maxHalfWidth);
+        int x2 = cell(maxX + maxHalfWidth);
+        int y1 = cell(minY - maxHalfHeight);
+        int y2 = cell(maxY + maxHalfHeight);
+        nextStamp();
+        for (int y = y1; y <= y2; y++) {
+            for (int x = x1; x <= x2; x++) {
+                int cell = hash(x, y);
+                if (cellStamp[cell] == stamp) {
+                    // Already visited, more than one cell hashed to same index
+                    continue;
+                }
+                cellStamp[cell] = stamp;
+                for (int other = cellHead[cell]; other >= 0; other = next[other]) {
+                    if (other != exclude && overlaps(other, minX, minY, maxX, maxY)) {
+                        if (found >= result.length) {
+                            return found;
+                        }
+                        result[found++] = other;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Calls the listener for each pair of entities with overlapping bounding box, each pair is reported once.
+     *
+     * @param listener
+     * @return Number of overlapping pairs
+     */
+    public int findPairs(PairListener listener) {
+        int pairs = 0;
+        for (int entity = 0; entity < count; entity++) {
+            int box = entity * 4;
+            float minX = boxes[box];
+            float minY = boxes[box + 1];
+            float maxX = boxes[box + 2];
+            float maxY = boxes[box + 3];
+            int x1 = cell(minX - maxHalfWidth);
+            int x2 = cell(maxX + maxHalfWidth);
+            int y1 = cell(minY - maxHalfHeight);
+            int y2 = cell(maxY + maxHalfHeight);
+            nextStamp();
+            for (int y = y1; y <= y2; y++) {
+                for (int x = x1; x <= x2; x++) {
+                    int cell = hash(x, y);
+                    if (cellStamp[cell] == stamp) {
+                        continue;
+                    }
+                    cellStamp[cell] = stamp;
+                    for (int other = cellHead[cell]; other >= 0; other = next[other]) {
+                        if (other > entity && overlaps(other, minX, minY, maxX, maxY)) {
+                            listener.onPair(entity, other);
+                            pairs++;
+                        }
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Returns the cellsize used when the hash was last rebuilt
+     *
+     * @return
+     */
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Returns the number of entities in the hash
+     *
+     * @return
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Stores the box of the entity and updates max half size
+     */
+    private void setBox(int entity, float[] data, int translateIndex, int boundsIndex) {
+        float x = data[translateIndex] + data[boundsIndex];
+        float y = data[translateIndex + 1] + data[boundsIndex + 1];
+        float width = data[boundsIndex + 2];
+        float height = data[boundsIndex + 3];
+        int box = entity * 4;
+        boxes[box] = x;
+        boxes[box + 1] = y - height;
+        boxes[box + 2] = x + width;
+        boxes[box + 3] = y;
+        maxHalfWidth = Math.max(maxHalfWidth, width * 0.5f);
+        maxHalfHeight = Math.max(maxHalfHeight, height * 0.5f);
+    }
+
+    /**
+     * Returns the hash table index of the cell containing the center of the entity box
+     */
+    private int cell(int entity) {
+        int box = entity * 4;
+        return hash(cell((boxes[box] + boxes[box + 2]) * 0.5f), cell((boxes[box + 1] + boxes[box + 3]) * 0.5f));
+    }
+
+    private void link(int entity, int cell) {
+        int head = cellHead[cell];
+        next[entity] = head;
+        previous[entity] = -1;
+        if (head >= 0) {
+            previous[head] = entity;
+        }
+        cellHead[cell] = entity;
+        entityCell[entity] = cell;
+    }
+
+    private void unlink(int entity) {
+        int cell = entityCell[entity];
+        if (cell < 0) {
+            return;
+        }
+        if (previous[entity] >= 0) {
+            next[previous[entity]] = next[entity];
+        } else {
+            cellHead[cell] = next[entity];
+        }
+        if (next[entity] >= 0) {
+            previous[next[entity]] = previous[entity];
+        }
+        entityCell[entity] = -1;
+    }
+
+    private boolean overlaps(int entity, float minX, float minY, float maxX, float maxY) {
+        int box = entity * 4;
+        return boxes[box] <= maxX && boxes[box + 2] >= minX && boxes[box + 1] <= maxY && boxes[box + 3] >= minY;
+    }
+
+    private int cell(float value) {
+        return (int) Math.floor(value * invCellSize);
+    }
+
+    private int hash(int x, int y) {
+        return ((x * 73856093) ^ (y * 19349663)) & tableMask;
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            Arrays.fill(cellStamp, 0);
+            stamp = 1;
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (next == null || next.length < count) {
+            next = copyOf(next, count);
+            previous = copyOf(previous, count);
+            entityCell = copyOf(entityCell, count);
+            boxes = boxes != null ? Arrays.copyOf(boxes, count * 4) : new float[count * 4];
+        }
+        int tableSize = tableSize(count);
+        if (cellHead == null || cellHead.length < tableSize) {
+            cellHead = new int[tableSize];
+            cellStamp = new int[tableSize];
+            stamp = 0;
+        }
+        tableMask = cellHead.length - 1;
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        return array != null ? Arrays.copyOf(array, length) : new int[length];
+    }
+
+    private static int tableSize(int count) {
+        int tableSize = MIN_TABLE_SIZE;
+        while (tableSize < count * 2) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+
+}
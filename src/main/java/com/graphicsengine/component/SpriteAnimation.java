@@ -0,0 +1,116 @@
+package com.graphicsengine.component;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Definition of a frame sequence animation, a list of frames where each frame is shown for a duration.
+ * Animations are defined once for the texture of a component, entities reference the animation by index.
+ * Use {@link SpriteAnimator} to advance animations for a number of entities.
+ *
+ * The class can be serialized using gson
+ *
+ */
+public class SpriteAnimation {
+
+    public static final String NAME = "name";
+    public static final String FRAMES = "frames";
+    public static final String DURATIONS = "durations";
+    public static final String LOOP_MODE = "loopMode";
+
+    public enum LoopMode {
+        /**
+         * Animation is played once, the last frame is kept
+         */
+        ONCE(),
+        /**
+         * Animation restarts from the first frame
+         */
+        LOOP(),
+        /**
+         * Animation is played forward then backwards
+         */
+        PINGPONG();
+    }
+
+    @SerializedName(NAME)
+    private String name;
+    /**
+     * The frames in the texture
+     */
+    @SerializedName(FRAMES)
+    private int[] frames;
+    /**
+     * Duration, in seconds, of each frame - or one value that is used for all frames
+     */
+    @SerializedName(DURATIONS)
+    private float[] durations;
+    @SerializedName(LOOP_MODE)
+    private LoopMode loopMode = LoopMode.LOOP;
+
+    public SpriteAnimation() {
+    }
+
+    /**
+     * Creates a new animation with values copied from source
+     *
+     * @param source
+     */
+    public SpriteAnimation(SpriteAnimation source) {
+        name = source.name;
+        frames = source.frames != null ? source.frames.clone() : null;
+        durations = source.durations != null ? source.durations.clone() : null;
+        loopMode = source.loopMode;
+    }
+
+    /**
+     * Creates a new animation
+     *
+     * @param name
+     * @param frames
+     * @param durations Duration of each frame, or one value used for all frames
+     * @param loopMode
+     */
+    public SpriteAnimation(String name, int[] frames, float[] durations, LoopMode loopMode) {
+        this.name = name;
+        this.frames = frames;
+        this.durations = durations;
+        this.loopMode = loopMode;
+    }
+
+    /**
+     * Returns the name of the animation
+     *
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the frames
+     *
+     * @return
+     */
+    public int[] getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns the durations, if one value this is used for all frames.
+     *
+     * @return
+     */
+    public float[] getDurations() {
+        return durations;
+    }
+
+    /**
+     * Returns the loop mode
+     *
+     * @return
+     */
+    public LoopMode getLoopMode() {
+        return loopMode;
+    }
+
+}
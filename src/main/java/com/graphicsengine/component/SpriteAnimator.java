@@ -0,0 +1,211 @@
+package com.graphicsengine.component;
+
+import com.graphicsengine.component.SpriteAnimation.LoopMode;
+
+/**
+ * Advances frame sequence animations for a number of entities, writing the frame of each entity.
+ * The {@link SpriteAnimation} definitions are compiled into packed arrays so that all animated entities are
+ * advanced in one loop, each entity holds only animation index and time.
+ * Entities store the animation index plus one, a stored value of 0 means the entity is not animated.
+ *
+ */
+public class SpriteAnimator {
+
+    private final int animationCount;
+    /**
+     * Index of first frame in frames and frameEnd for each animation
+     */
+    private final int[] firstFrame;
+    private final int[] frameCount;
+    private final float[] totalDuration;
+    /**
+     * Duration of frames if all frames have the same duration, otherwise 0
+     */
+    private final float[] uniformDuration;
+    private final LoopMode[] loopMode;
+    /**
+     * Frame numbers of all animations
+     */
+    private final float[] frames;
+    /**
+     * End time of each frame, relative to start of animation
+     */
+    private final float[] frameEnd;
+    private final String[] names;
+
+    /**
+     * Compiles the animations
+     *
+     * @param animations
+     * @throws IllegalArgumentException If an animation does not have frames, or durations does not match frames or
+     * total duration is not positive
+     */
+    public SpriteAnimator(SpriteAnimation[] animations) {
+        animationCount = animations.length;
+        firstFrame = new int[animationCount];
+        frameCount = new int[animationCount];
+        totalDuration = new float[animationCount];
+        uniformDuration = new float[animationCount];
+        loopMode = new LoopMode[animationCount];
+        names = new String[animationCount];
+        int total = 0;
+        for (SpriteAnimation animation : animations) {
+            if (animation.getFrames() == null || animation.getFrames().length == 0) {
+                throw new IllegalArgumentException("No frames in animation " + animation.getName());
+            }
+            total += animation.getFrames().length;
+        }
+        frames = new float[total];
+        frameEnd = new float[total];
+        int index = 0;
+        for (int i = 0; i < animationCount; i++) {
+            SpriteAnimation animation = animations[i];
+            int[] animationFrames = animation.getFrames();
+            float[] durations = animation.getDurations();
+            if (durations == null || (durations.length != 1 && durations.length != animationFrames.length)) {
+                throw new IllegalArgumentException("Invalid durations for animation " + animation.getName());
+            }
+            firstFrame[i] = index;
+            frameCount[i] = animationFrames.length;
+            loopMode[i] = animation.getLoopMode();
+            names[i] = animation.getName();
+            uniformDuration[i] = durations.length == 1 ? durations[0] : 0;
+            float time = 0;
+            for (int f = 0; f < animationFrames.length; f++) {
+                time += durations.length == 1 ? durations[0] : durations[f];
+                frames[index] = animationFrames[f];
+                frameEnd[index++] = time;
+            }
+            if (time <= 0) {
+                throw new IllegalArgumentException("Invalid durations for animation " + animation.getName());
+            }
+            totalDuration[i] = time;
+        }
+    }
+
+    /**
+     * Returns the index of the named animation
+     *
+     * @param name
+     * @return Animation index, or -1 if not found
+     */
+    public int getAnimation(String name) {
+        for (int i = 0; i < animationCount; i++) {
+            if (name.equals(names[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of animations
+     *
+     * @return
+     */
+    public int getAnimationCount() {
+        return animationCount;
+    }
+
+    /**
+     * Advances the animation time of count number of entities and writes the current frame.
+     * Animation index and time are read from, and time written to, the source. Frame is written to the source and
+     * to the destination, so that entity data and sprite data have the same frame.
+     *
+     * @param source Entity data with animation index, time and frame
+     * @param count Number of entities
+     * @param sourceStride Number of values for each entity in source
+     * @param animationOffset Offset to animation index plus one for each entity, 0 if not animated
+     * @param timeOffset Offset to animation time for each entity
+     * @param sourceFrameOffset Offset to frame for each entity in source
+     * @param destination Frame is also written here, or null to only write source
+     * @param destinationStride Number of values for each entity in destination
+     * @param frameOffset Offset to frame for each entity in destination
+     * @param delta Time to advance, in seconds
+     */
+    public void advance(float[] source, int count, int sourceStride, int animationOffset, int timeOffset,
+            int sourceFrameOffset, float[] destination, int destinationStride, int frameOffset, float delta) {
+        int sourceIndex = 0;
+        int destIndex = frameOffset;
+        for (int i = 0; i < count; i++) {
+            int animation = (int) source[sourceIndex + animationOffset] - 1;
+            if (animation >= 0 && animation < animationCount) {
+                float total = totalDuration[animation];
+                float time = source[sourceIndex + timeOffset] + delta;
+                float local;
+                switch (loopMode[animation]) {
+                    case ONCE:
+                        time = time < total ? time : total;
+                        local = time;
+                        break;
+                    case LOOP:
+                        if (time >= total) {
+                            time -= total * (int) (time / total);
+                        }
+                        local = time;
+                        break;
+                    case PINGPONG:
+                        float period = total + total;
+                        if (time >= period) {
+                            time -= period * (int) (time / period);
+                        }
+                        local = time > total ? period - time : time;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Not implemented for loop mode: " + loopMode[animation]);
+                }
+                source[sourceIndex + timeOffset] = time;
+                float frame = getFrame(animation, local);
+                source[sourceIndex + sourceFrameOffset] = frame;
+                if (destination != null) {
+                    destination[destIndex] = frame;
+                }
+            }
+            sourceIndex += sourceStride;
+            destIndex += destinationStride;
+        }
+    }
+
+    /**
+     * Returns the frame at the time in the animation
+     *
+     * @param animation
+     * @param time Time from animation start, 0 to total duration
+     * @return The frame
+     */
+    public float getFrame(int animation, float time) {
+        int first = firstFrame[animation];
+        int last = first + frameCount[animation] - 1;
+        float duration = uniformDuration[animation];
+        if (duration > 0) {
+            int frame = first + (int) (time / duration);
+            return frames[frame < last ? frame : last];
+        }
+        int frame = first;
+        while (frame < last && time >= frameEnd[frame]) {
+            frame++;
+        }
+        return frames[frame];
+    }
+
+    /**
+     * Returns the total duration of the animation
+     *
+     * @param animation
+     * @return
+     */
+    public float getDuration(int animation) {
+        return totalDuration[animation];
+    }
+
+    /**
+     * Returns the loop mode of the animation
+     *
+     * @param animation
+     * @return
+     */
+    public LoopMode getLoopMode(int animation) {
+        return loopMode[animation];
+    }
+
+}
@@ -1,11 +1,12 @@
 package com.graphicsengine.component;
 
+import com.google.gson.annotations.SerializedName;
 import com.graphicsengine.component.ActorComponent.EntityData;
+import com.graphicsengine.io.gson.FieldBinder;
 import com.graphicsengine.spritemesh.SpriteMesh;
 import com.nucleus.Backend;
 import com.nucleus.SimpleLogger;
 import com.nucleus.component.CPUComponentBuffer;
-import com.nucleus.component.CPUQuadExpander;
 import com.nucleus.component.Component;
 import com.nucleus.component.ComponentBuffer;
 import com.nucleus.geometry.AttributeBuffer;
@@ -42,6 +43,15 @@ public class SpriteAttributeComponent extends ActorComponent<SpriteMesh>
     public static final String GRAVITY = "gravity";
 
     public static final float DEFAULT_GRAVITY = 5;
+    public static final String INCREMENTAL = "incremental";
+
+    /**
+     * If true only sprites that have been changed, using {@link #setEntity(int, int, float[], int, int)},
+     * {@link #updateEntities(int, int)} or {@link #markDirty(int, int)}, are expanded to the mesh.
+     * If false all sprites are expanded each frame, use this if the entity buffer is written directly.
+     */
+    @SerializedName(INCREMENTAL)
+    protected boolean incremental;
 
     /**
      * The sprites attribute float data storage, this is the sprite visible (mesh) properties such as position, scale
@@ -50,12 +60,25 @@ public class SpriteAttributeComponent extends ActorComponent<SpriteMesh>
      * In order to render a mesh with sprites this data is copied one -> four in the mesh.
      * TODO Use java.nio.FloatBuffer instead and perhaps move into a special class to handle 1 -> 4 mapping
      */
-    transient protected CPUQuadExpander spriteExpander;
+    transient protected IncrementalQuadExpander spriteExpander;
 
     transient protected int spritedataSize;
     transient protected CPUComponentBuffer spriteBuffer;
     transient protected CPUComponentBuffer entityBuffer;
 
+    /**
+     * Binds the serialized fields declared by this class, see
+     * {@link com.graphicsengine.io.gson.BinderTypeAdapterFactory}
+     */
+    public static final FieldBinder<SpriteAttributeComponent> FIELD_BINDER = new FieldBinder<SpriteAttributeComponent>(
+            new String[] { INCREMENTAL },
+            new Class<?>[] { boolean.class }) {
+        @Override
+        public void setBoolean(SpriteAttributeComponent target, int field, boolean value) {
+            target.incremental = value;
+        }
+    };
+
     @Override
     public Component createInstance() {
         return new SpriteAttributeComponent();
@@ -68,6 +91,7 @@ public class SpriteAttributeComponent extends ActorComponent<SpriteMesh>
 
     private void set(SpriteAttributeComponent source) {
         super.set(source);
+        this.incremental = source.incremental;
     }
 
     /**
@@ -91,7 +115,8 @@ public class SpriteAttributeComponent extends ActorComponent<SpriteMesh>
         spritedataSize = mapper.getSizePerVertex(BufferIndex.ATTRIBUTES.index);
         spriteBuffer = new CPUComponentBuffer(count, spritedataSize * 4);
         entityBuffer = new CPUComponentBuffer(count, spritedataSize + ActorVariables.SIZE.offset);
-        spriteExpander = new CPUQuadExpander(mesh.getTexture(Texture2D.TEXTURE_0), mapper, entityBuffer, spriteBuffer);
+        spriteExpander = new IncrementalQuadExpander(mesh.getTexture(Texture2D.TEXTURE_0), mapper, entityBuffer,
+                spriteBuffer, spritedataSize + ActorVariables.SIZE.offset, spritedataSize);
     }
 
     /**
@@ -120,9 +145,23 @@ public class SpriteAttributeComponent extends ActorComponent<SpriteMesh>
 
     @Override
     public void updateAttributeData(NucleusRenderer renderer) {
+        if (!incremental) {
+            spriteExpander.markAllDirty();
+        }
         spriteExpander.updateAttributeData(renderer);
     }
 
+    /**
+     * Marks a range of sprites as changed, call this after writing directly into the entity buffer when
+     * incremental update is used.
+     * 
+     * @param first Index of first changed sprite
+     * @param count Number of changed sprites
+     */
+    public void markDirty(int first, int count) {
+        spriteExpander.markDirty(first, count);
+    }
+
     @Override
     protected MeshBuilder<Mesh> createBuilderInstance(NucleusRenderer renderer) {
         if (Backend.getInstance().getVersion().major > 2) {
@@ -145,4 +184,10 @@ public class SpriteAttributeComponent extends ActorComponent<SpriteMesh>
         spriteExpander.setData(entity, entityOffset, data, offset, length);
     }
 
+    @Override
+    public void updateEntities(int first, int count) {
+        // Entity buffer is the source of the expander, only mark the range as changed
+        spriteExpander.markDirty(first, count);
+    }
+
 }
@@ -1,6 +1,9 @@
 package com.graphicsengine.component;
 
+import com.google.gson.annotations.SerializedName;
 import com.graphicsengine.component.ActorComponent.EntityData;
+import com.graphicsengine.component.SpriteSorter.SortOrder;
+import com.graphicsengine.io.gson.FieldBinder;
 import com.graphicsengine.spritemesh.SpriteGeometryMesh;
 import com.nucleus.component.CPUComponentBuffer;
 import com.nucleus.component.Component;
@@ -10,10 +13,14 @@ import com.nucleus.geometry.AttributeUpdater.BufferIndex;
 import com.nucleus.geometry.Mesh;
 import com.nucleus.geometry.MeshBuilder;
 import com.nucleus.geometry.shape.ShapeBuilder;
+import com.nucleus.profiling.FrameSampler;
 import com.nucleus.renderer.NucleusRenderer;
+import com.nucleus.scene.RenderableNode;
 import com.nucleus.shader.VariableIndexer;
+import com.nucleus.shader.VariableIndexer.Property;
 import com.nucleus.texturing.Texture2D;
 import com.nucleus.texturing.TextureType;
+import com.nucleus.vecmath.Matrix;
 
 /**
  * Sprite component, this is a collection of a number of (similar) sprite objects that have entity (actor) data and can
@@ -27,10 +34,65 @@ import com.nucleus.texturing.TextureType;
  */
 public class SpriteComponent extends ActorComponent<SpriteGeometryMesh> implements EntityData {
 
+    public static final String CULL = "cull";
+    public static final String ANIMATIONS = "animations";
+
+    protected static FrameSampler timeKeeper = FrameSampler.getInstance();
+
+    /**
+     * If true then sprites are culled against the view before being uploaded, only visible sprites are drawn.
+     */
+    @SerializedName(CULL)
+    protected boolean cull;
+    /**
+     * Optional depth sort of sprites, if set sprites are sorted on translate z and frame before being uploaded.
+     */
+    @SerializedName(SpriteSorter.DEPTH_SORT)
+    protected SortOrder depthSort;
+    /**
+     * Optional frame animations for the texture, entities select animation using {@link ActorVariables#ANIMATION}
+     */
+    @SerializedName(ANIMATIONS)
+    protected SpriteAnimation[] animations;
+
     transient protected AttributeBuffer attributes;
     transient protected CPUComponentBuffer entityData;
     transient protected CPUComponentBuffer spriteData;
     transient protected VariableIndexer mapper;
+    transient protected SpriteCuller culler;
+    transient protected SpriteSorter sorter;
+    transient protected SpriteAnimator animator;
+    /**
+     * Sorted and/or culled sprite data, used when culling or sorting is enabled
+     */
+    transient protected float[] uploadData;
+    transient private float[] cullMatrix = new float[16];
+    transient private float[] cullCorners = new float[4];
+    transient private float[] cullView = new float[4];
+
+    /**
+     * Binds the serialized fields declared by this class, see
+     * {@link com.graphicsengine.io.gson.BinderTypeAdapterFactory}
+     */
+    public static final FieldBinder<SpriteComponent> FIELD_BINDER = new FieldBinder<SpriteComponent>(
+            new String[] { CULL, SpriteSorter.DEPTH_SORT, ANIMATIONS },
+            new Class<?>[] { boolean.class, SortOrder.class, SpriteAnimation[].class }) {
+        @Override
+        public void setBoolean(SpriteComponent target, int field, boolean value) {
+            target.cull = value;
+        }
+
+        @Override
+        public void setObject(SpriteComponent target, int field, Object value) {
+            switch (field) {
+                case 1:
+                    target.depthSort = (SortOrder) value;
+                    break;
+                default:
+                    target.animations = (SpriteAnimation[]) value;
+            }
+        }
+    };
 
     @Override
     public Component createInstance() {
@@ -44,6 +106,10 @@ public class SpriteComponent extends ActorComponent<SpriteGeometryMesh> implemen
 
     private void set(SpriteComponent source) {
         super.set(source);
+        this.cull = source.cull;
+        this.depthSort = source.depthSort;
+        // Animations are not changed after the component is created, shared with source
+        this.animations = source.animations;
     }
 
     @Override
@@ -52,6 +118,19 @@ public class SpriteComponent extends ActorComponent<SpriteGeometryMesh> implemen
         spriteData = new CPUComponentBuffer(count, size);
         entityData = new CPUComponentBuffer(count, size + ActorVariables.SIZE.offset);
         this.mapper = mapper;
+        if (cull || depthSort != null) {
+            // Culler is also used to copy sorted sprites
+            culler = new SpriteCuller(count);
+        }
+        if (depthSort != null) {
+            sorter = new SpriteSorter(count, depthSort);
+        }
+        if (cull || depthSort != null) {
+            uploadData = new float[count * size];
+        }
+        if (animations != null && animations.length > 0) {
+            animator = new SpriteAnimator(animations);
+        }
     }
 
     @Override
@@ -66,8 +145,92 @@ public class SpriteComponent extends ActorComponent<SpriteGeometryMesh> implemen
 
     @Override
     public void updateAttributeData(NucleusRenderer renderer) {
-        attributes.setBufferPosition(0);
-        attributes.put(spriteData.getData());
+        if (animator != null) {
+            int actorOffset = getActorVariablesOffset();
+            // Entity data starts with the sprite data, frame has the same offset in both
+            int frameOffset = mapper.getOffset(Property.FRAME.getLocation());
+            animator.advance(entityData.getData(), count, getEntitySize(),
+                    actorOffset + ActorVariables.ANIMATION.offset, actorOffset + ActorVariables.ANIMATIONTIME.offset,
+                    frameOffset, spriteData.getData(), mapper.getSizePerVertex(BufferIndex.ATTRIBUTES.index),
+                    frameOffset, timeKeeper.getDelta());
+        }
+        if (uploadData != null) {
+            int size = mapper.getSizePerVertex(BufferIndex.ATTRIBUTES.index);
+            int[] order = null;
+            if (sorter != null) {
+                order = sorter.sort(spriteData.getData(), count, size, translateOffset + 2,
+                        mapper.getOffset(Property.FRAME.getLocation()));
+            }
+            int drawCount = count;
+            if (cull && getCullView(cullView)) {
+                drawCount = culler.cull(entityData.getData(), count, getEntitySize(), translateOffset,
+                        getActorVariablesOffset() + ActorVariables.BOUNDINGBOX.offset, cullView, order);
+                culler.compact(spriteData.getData(), uploadData, size);
+            } else if (order != null) {
+                culler.compact(order, count, spriteData.getData(), uploadData, size);
+            } else {
+                System.arraycopy(spriteData.getData(), 0, uploadData, 0, count * size);
+            }
+            attributes.setArray(uploadData, 0, 0, drawCount * size);
+            attributes.setDirty(true);
+            mesh.setDrawCount(drawCount, 0);
+        } else {
+            attributes.setBufferPosition(0);
+            attributes.put(spriteData.getData());
+        }
+    }
+
+    /**
+     * Fetches the view rectangle, as left, top, right, bottom, in the space of the sprites.
+     * The view frustum is taken from the parent node or the parent view, the rectangle is transformed using the
+     * inverse of the parent model matrix - rotation is not taken into account.
+     * 
+     * @param view Destination for left, top, right and bottom of view
+     * @return True if the view was fetched, false if there is no view or model matrix cannot be inverted.
+     */
+    protected boolean getCullView(float[] view) {
+        RenderableNode<?> parent = getParent();
+        RenderableNode<?> viewNode = parent.getViewFrustum() != null ? parent : parent.getParentView();
+        if (viewNode == null || !Matrix.invertM(cullMatrix, 0, parent.getModelMatrix(), 0)) {
+            return false;
+        }
+        float[] frustum = viewNode.getViewFrustum().getValues();
+        // Frustum values are left, right, bottom, top
+        cullCorners[0] = frustum[0];
+        cullCorners[1] = frustum[3];
+        cullCorners[2] = frustum[1];
+        cullCorners[3] = frustum[2];
+        Matrix.transformVec2(cullMatrix, 0, cullCorners, view, 2);
+        if (view[0] > view[2]) {
+            float x = view[0];
+            view[0] = view[2];
+            view[2] = x;
+        }
+        if (view[1] < view[3]) {
+            float y = view[1];
+            view[1] = view[3];
+            view[3] = y;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the culler used when culling is enabled
+     * 
+     * @return The culler, or null if culling is not enabled for this component. Use this to fetch the number of
+     * drawn and culled sprites.
+     */
+    public SpriteCuller getCuller() {
+        return cull ? culler : null;
+    }
+
+    /**
+     * Returns the animator used when animations are defined
+     * 
+     * @return The animator, or null if no animations are defined. Use this to lookup animation index by name.
+     */
+    public SpriteAnimator getAnimator() {
+        return animator;
     }
 
     /**
@@ -110,4 +273,19 @@ public class SpriteComponent extends ActorComponent<SpriteGeometryMesh> implemen
         entityData.put(entity, entityOffset, data, offset, length);
     }
 
+    @Override
+    public void updateEntities(int first, int count) {
+        int size = mapper.getSizePerVertex(BufferIndex.ATTRIBUTES.index);
+        int entitySize = getEntitySize();
+        float[] source = entityData.getData();
+        float[] destination = spriteData.getData();
+        int sourceIndex = first * entitySize;
+        int destIndex = first * size;
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(source, sourceIndex, destination, destIndex, size);
+            sourceIndex += entitySize;
+            destIndex += size;
+        }
+    }
+
 }
@@ -0,0 +1,298 @@
+package com.graphicsengine.component;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.graphicsengine.component.ActorComponent.ActorVariables;
+
+/**
+ * Culls entities of an {@link ActorComponent} against a 2D view rectangle and compacts the visible entities.
+ * Each entity is tested using its translate and the {@link ActorVariables#BOUNDINGBOX} values, the bounding box is
+ * x,y offset from translate plus width and height - y is top of box and height extends downwards.
+ * An entity that has zero size bounding box is treated as a point.
+ * The result of culling is a list of visible entity indexes, these are used to copy the visible sprite data
+ * into the upload buffer so that draw count can be reduced to the number of visible entities.
+ * For large number of entities the culling and copying is done in parallel chunks, using tasks that are created
+ * with the culler and reused each call.
+ *
+ * This class is not threadsafe, one instance shall be used per component.
+ *
+ */
+public class SpriteCuller {
+
+    /**
+     * If number of entities is larger than this the culling is done in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 16384;
+    /**
+     * Number of entities processed by each parallel chunk
+     */
+    public static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Indexes of visible entities, valid from 0 to {@link #drawCount}
+     */
+    private int[] visible;
+    private int[] chunkCount;
+    private int drawCount;
+    private int culledCount;
+    private final CullChunk[] cullChunks;
+    private final CompactChunk[] compactChunks;
+    private final ChunkAction cullAction;
+    private final ChunkAction compactAction;
+    /**
+     * Arguments of the current call, read by the chunk tasks
+     */
+    private float[] entityData;
+    private int count;
+    private int entitySize;
+    private int translateOffset;
+    private int boundsOffset;
+    private float[] view;
+    private int[] order;
+    private int[] indexes;
+    private float[] source;
+    private float[] destination;
+    private int spriteSize;
+
+    /**
+     * Culls one chunk of entities
+     */
+    private class CullChunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final int chunk;
+
+        private CullChunk(int chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            int start = chunk * CHUNK_SIZE;
+            chunkCount[chunk] = cull(entityData, start, Math.min(CHUNK_SIZE, count - start), entitySize,
+                    translateOffset, boundsOffset, view, order);
+        }
+    }
+
+    /**
+     * Copies the sprite data of one chunk of indexes
+     */
+    private class CompactChunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final int chunk;
+
+        private CompactChunk(int chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            int start = chunk * CHUNK_SIZE;
+            compact(indexes, source, destination, spriteSize, start, Math.min(CHUNK_SIZE, count - start));
+        }
+    }
+
+    /**
+     * Runs a number of chunk tasks, the first chunk is run by the calling thread.
+     */
+    private static class ChunkAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final RecursiveAction[] chunks;
+        private int chunkCount;
+
+        private ChunkAction(RecursiveAction[] chunks) {
+            this.chunks = chunks;
+        }
+
+        private void invoke(int count) {
+            chunkCount = count;
+            for (int i = 0; i < count; i++) {
+                chunks[i].reinitialize();
+            }
+            reinitialize();
+            ForkJoinPool.commonPool().invoke(this);
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = 1; i < chunkCount; i++) {
+                chunks[i].fork();
+            }
+            chunks[0].invoke();
+            for (int i = 1; i < chunkCount; i++) {
+                chunks[i].join();
+            }
+        }
+    }
+
+    /**
+     * Creates a new culler for the specified max number of entities
+     *
+     * @param capacity Max number of entities
+     */
+    public SpriteCuller(int capacity) {
+        visible = new int[capacity];
+        int chunks = (capacity + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunkCount = new int[chunks];
+        cullChunks = new CullChunk[chunks];
+        compactChunks = new CompactChunk[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            cullChunks[chunk] = new CullChunk(chunk);
+            compactChunks[chunk] = new CompactChunk(chunk);
+        }
+        cullAction = new ChunkAction(cullChunks);
+        compactAction = new ChunkAction(compactChunks);
+    }
+
+    /**
+     * Tests count number of entities against the view rectangle, storing index of entities that are inside.
+     * After this call {@link #getVisible()} will hold the visible entity indexes.
+     *
+     * @param entityData The entity data
+     * @param count Number of entities to test
+     * @param entitySize Number of values for each entity
+     * @param translateOffset Offset to translate, x and y, for each entity
+     * @param boundsOffset Offset to bounding box, x, y, width and height for each entity
+     * @param view Left, top, right and bottom of the view rectangle in same space as entities
+     * @param order Optional order of entities, for instance from {@link SpriteSorter}, visible entities will keep
+     * this order. If null entities are tested in index order.
+     * @return Number of visible entities
+     * @throws ArrayIndexOutOfBoundsException If count is larger than the capacity of this culler
+     */
+    public int cull(float[] entityData, int count, int entitySize, int translateOffset, int boundsOffset,
+            float[] view, int[] order) {
+        if (count <= PARALLEL_THRESHOLD) {
+            drawCount = cull(entityData, 0, count, entitySize, translateOffset, boundsOffset, view, order);
+        } else {
+            int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            this.entityData = entityData;
+            this.count = count;
+            this.entitySize = entitySize;
+            this.translateOffset = translateOffset;
+            this.boundsOffset = boundsOffset;
+            this.view = view;
+            this.order = order;
+            cullAction.invoke(chunks);
+            this.entityData = null;
+            this.view = null;
+            this.order = null;
+            // Compact the chunks
+            int index = chunkCount[0];
+            for (int chunk = 1; chunk < chunks; chunk++) {
+                System.arraycopy(visible, chunk * CHUNK_SIZE, visible, index, chunkCount[chunk]);
+                index += chunkCount[chunk];
+            }
+            drawCount = index;
+        }
+        culledCount = count - drawCount;
+        return drawCount;
+    }
+
+    /**
+     * Culls a range of entities, storing the visible indexes beginning at start in {@link #visible}
+     *
+     * @return Number of visible entities in the range
+     */
+    private int cull(float[] entityData, int start, int count, int entitySize, int translateOffset,
+            int boundsOffset, float[] view, int[] order) {
+        float left = view[0];
+        float top = view[1];
+        float right = view[2];
+        float bottom = view[3];
+        int destIndex = start;
+        int end = start + count;
+        for (int i = start; i < end; i++) {
+            int entity = order != null ? order[i] : i;
+            int index = entity * entitySize;
+            float x = entityData[index + translateOffset] + entityData[index + boundsOffset];
+            float y = entityData[index + translateOffset + 1] + entityData[index + boundsOffset + 1];
+            float width = entityData[index + boundsOffset + 2];
+            float height = entityData[index + boundsOffset + 3];
+            if (x <= right && x + width >= left && y >= bottom && y - height <= top) {
+                visible[destIndex++] = entity;
+            }
+        }
+        return destIndex - start;
+    }
+
+    /**
+     * Copies the sprite data for visible entities into destination, the data will be compacted so that
+     * visible sprites are stored one after another.
+     * Call this after {@link #cull(float[], int, int, int, int, float[], int[])}
+     *
+     * @param source The sprite data
+     * @param destination Destination for compacted sprite data
+     * @param spriteSize Number of values to copy for each sprite
+     */
+    public void compact(float[] source, float[] destination, int spriteSize) {
+        compact(visible, drawCount, source, destination, spriteSize);
+    }
+
+    /**
+     * Copies the sprite data for count number of sprites, using the sprite indexes, into destination.
+     * The data will be stored one after another, in the order of the indexes.
+     *
+     * @param indexes Index of sprites to copy
+     * @param count Number of sprites to copy
+     * @param source The sprite data
+     * @param destination Destination for sprite data
+     * @param spriteSize Number of values to copy for each sprite
+     * @throws ArrayIndexOutOfBoundsException If count is larger than the capacity of this culler
+     */
+    public void compact(int[] indexes, int count, float[] source, float[] destination, int spriteSize) {
+        if (count <= PARALLEL_THRESHOLD) {
+            compact(indexes, source, destination, spriteSize, 0, count);
+        } else {
+            this.indexes = indexes;
+            this.count = count;
+            this.source = source;
+            this.destination = destination;
+            this.spriteSize = spriteSize;
+            compactAction.invoke((count + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            this.indexes = null;
+            this.source = null;
+            this.destination = null;
+        }
+    }
+
+    private static void compact(int[] indexes, float[] source, float[] destination, int spriteSize, int start,
+            int count) {
+        int destIndex = start * spriteSize;
+        int end = start + count;
+        for (int i = start; i < end; i++) {
+            System.arraycopy(source, indexes[i] * spriteSize, destination, destIndex, spriteSize);
+            destIndex += spriteSize;
+        }
+    }
+
+    /**
+     * Returns the array with visible entity indexes, valid from index 0 to {@link #getDrawCount()}
+     *
+     * @return Indexes of visible entities from last call to cull
+     */
+    public int[] getVisible() {
+        return visible;
+    }
+
+    /**
+     * Returns the number of visible entities from the last call to cull
+     *
+     * @return Number of entities that are drawn
+     */
+    public int getDrawCount() {
+        return drawCount;
+    }
+
+    /**
+     * Returns the number of entities that was outside view in the last call to cull
+     *
+     * @return Number of culled entities
+     */
+    public int getCulledCount() {
+        return culledCount;
+    }
+
+}
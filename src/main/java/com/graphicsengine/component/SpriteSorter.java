@@ -0,0 +1,221 @@
+package com.graphicsengine.component;
+
+import java.util.Arrays;
+
+/**
+ * Sorts sprites on depth (translate z) and frame, the result is an order that can be used when copying sprite data
+ * to the upload buffer.
+ * The sort key is a long with all 32 bits of depth in the high part and frame in the low part, so sprites at same
+ * depth are grouped by frame.
+ * The order is kept between calls, since sprites normally move only a little between frames the previous order is
+ * mostly sorted. This is checked in linear time, if only a few sprites are out of order they are moved using
+ * insertion sort, otherwise a radix sort is used.
+ * No memory is allocated after the sorter has been created.
+ *
+ * This class is not threadsafe, one instance shall be used per component.
+ *
+ */
+public class SpriteSorter {
+
+    public static final String DEPTH_SORT = "depthSort";
+
+    /**
+     * The depth order of sorted sprites
+     *
+     */
+    public enum SortOrder {
+        /**
+         * Sprites with lowest z are first
+         */
+        ASCENDING(),
+        /**
+         * Sprites with highest z are first
+         */
+        DESCENDING();
+    }
+
+    /**
+     * Number of bits used for frame in the low part of the sort key, depth is stored in the bits above.
+     */
+    public static final int FRAME_BITS = 32;
+    private static final long FRAME_MASK = (1L << FRAME_BITS) - 1;
+    private static final int KEY_BITS = 64;
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX_MASK = (1 << RADIX_BITS) - 1;
+    private static final int RADIX_PASSES = KEY_BITS / RADIX_BITS;
+    /**
+     * Max number of element moves, per sprite, done by insertion sort before falling back to radix sort.
+     */
+    private static final int INSERTION_MOVES = 8;
+
+    private SortOrder sortOrder;
+    /**
+     * Sprite index for each sorted position, kept between calls.
+     */
+    private int[] order;
+    private long[] keys;
+    private int[] tempOrder;
+    private long[] tempKeys;
+    /**
+     * Histogram for each radix pass, counted in one pass over the keys
+     */
+    private int[] histogram = new int[RADIX_PASSES << RADIX_BITS];
+    private boolean changed;
+
+    /**
+     * Creates a new sorter for the specified max number of sprites
+     *
+     * @param capacity Max number of sprites
+     * @param sortOrder Depth sort order
+     */
+    public SpriteSorter(int capacity, SortOrder sortOrder) {
+        this.sortOrder = sortOrder;
+        order = new int[capacity];
+        keys = new long[capacity];
+        tempOrder = new int[capacity];
+        tempKeys = new long[capacity];
+        resetOrder();
+    }
+
+    /**
+     * Resets the order so that sprites are in index order, call this if sprite data has been rearranged
+     * according to the sorted order.
+     */
+    public void resetOrder() {
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+    }
+
+    /**
+     * Sorts count number of sprites, after this call the returned array holds the index of sprites in sorted
+     * order.
+     *
+     * @param data Sprite data
+     * @param count Number of sprites to sort
+     * @param stride Number of values for each sprite
+     * @param depthOffset Offset to depth value, normally translate z
+     * @param frameOffset Offset to frame value
+     * @return Array with sprite indexes in sorted order, valid from 0 to count. Do not modify.
+     * If count is lowered between calls then {@link #resetOrder()} must be called first.
+     * @throws ArrayIndexOutOfBoundsException If count is larger than the capacity of the sorter
+     */
+    public int[] sort(float[] data, int count, int stride, int depthOffset, int frameOffset) {
+        int descending = sortOrder == SortOrder.DESCENDING ? -1 : 0;
+        int unsorted = 0;
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            int index = order[i] * stride;
+            int bits = Float.floatToRawIntBits(data[index + depthOffset]);
+            // Flip so that float order is same as unsigned int order
+            int depth = (bits ^ ((bits >> 31) | Integer.MIN_VALUE)) ^ descending;
+            long key = ((long) depth << FRAME_BITS) | ((int) data[index + frameOffset] & FRAME_MASK);
+            keys[i] = key;
+            if (i > 0 && Long.compareUnsigned(key, previous) < 0) {
+                unsorted++;
+            }
+            previous = key;
+        }
+        changed = false;
+        if (unsorted > 0) {
+            changed = true;
+            if (unsorted > (count >>> 5) || !insertionSort(count, count * INSERTION_MOVES)) {
+                radixSort(count);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Returns true if the order changed in the last call to sort.
+     *
+     * @return True if the last sort changed the order of sprites
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Returns the sprite order from the last call to sort
+     *
+     * @return Sprite indexes in sorted order
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Insertion sort of keys and order, returns false if number of moves exceeds maxMoves - the keys will be partly
+     * sorted.
+     *
+     */
+    private boolean insertionSort(int count, int maxMoves) {
+        for (int i = 1; i < count; i++) {
+            long key = keys[i];
+            int index = order[i];
+            int j = i - 1;
+            while (j >= 0 && Long.compareUnsigned(keys[j], key) > 0) {
+                keys[j + 1] = keys[j];
+                order[j + 1] = order[j];
+                j--;
+                if (--maxMoves < 0) {
+                    keys[j + 1] = key;
+                    order[j + 1] = index;
+                    return false;
+                }
+            }
+            keys[j + 1] = key;
+            order[j + 1] = index;
+        }
+        return true;
+    }
+
+    /**
+     * Stable LSD radix sort of keys and order, passes where all keys have the same digit are skipped.
+     * Normally frame only uses the lowest bits, and depth the highest bits, so a number of the passes are skipped.
+     *
+     */
+    private void radixSort(int count) {
+        Arrays.fill(histogram, 0);
+        for (int i = 0; i < count; i++) {
+            long key = keys[i];
+            for (int pass = 0; pass < RADIX_PASSES; pass++) {
+                histogram[(pass << RADIX_BITS) + ((int) (key >>> (pass * RADIX_BITS)) & RADIX_MASK)]++;
+            }
+        }
+        long[] srcKeys = keys;
+        int[] srcOrder = order;
+        long[] dstKeys = tempKeys;
+        int[] dstOrder = tempOrder;
+        for (int pass = 0; pass < RADIX_PASSES; pass++) {
+            int shift = pass * RADIX_BITS;
+            int base = pass << RADIX_BITS;
+            if (histogram[base + ((int) (srcKeys[0] >>> shift) & RADIX_MASK)] == count) {
+                // All keys have same digit
+                continue;
+            }
+            int start = 0;
+            for (int i = base; i < base + (1 << RADIX_BITS); i++) {
+                int c = histogram[i];
+                histogram[i] = start;
+                start += c;
+            }
+            for (int i = 0; i < count; i++) {
+                int dest = histogram[base + ((int) (srcKeys[i] >>> shift) & RADIX_MASK)]++;
+                dstKeys[dest] = srcKeys[i];
+                dstOrder[dest] = srcOrder[i];
+            }
+            long[] swapKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swapKeys;
+            int[] swap = srcOrder;
+            srcOrder = dstOrder;
+            dstOrder = swap;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, count);
+            System.arraycopy(srcOrder, 0, order, 0, count);
+        }
+    }
+
+}
@@ -18,11 +18,14 @@ public class GraphicsEngineNodeExporter extends NucleusNodeExporter {
     public Node exportNode(Node source, RootNode rootNode) {
         GraphicsEngineNodeType type = GraphicsEngineNodeType.valueOf(source.getType());
         switch (type) {
-            // case playfieldNode:
-            // return source.createInstance(rootNode);
-            // case quadNode:
-            // exportDataReferences((QuadParentNode) source, (GraphicsEngineRootNode) rootNode);
-            // return source.createInstance(rootNode);
+            case playfieldNode:
+            case sharedMeshNode:
+            case quadNode:
+            case button:
+            case toggle:
+            case spriteComponentNode:
+                // Data is referenced from the node or copied in set(), no data is exported to the root node
+                return source.createInstance(rootNode);
             default:
                 throw new IllegalArgumentException(NOT_IMPLEMENTED + type);
         }
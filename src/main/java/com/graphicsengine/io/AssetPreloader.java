@@ -0,0 +1,339 @@
+package com.graphicsengine.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.graphicsengine.io.gson.StreamBinder;
+import com.graphicsengine.map.Map;
+import com.graphicsengine.map.MapFactory;
+import com.graphicsengine.map.PlayfieldNode;
+import com.nucleus.SimpleLogger;
+import com.nucleus.io.ExternalReference;
+import com.nucleus.profiling.FrameSampler;
+import com.nucleus.scene.Node;
+
+/**
+ * Loads the assets of a scene concurrently on a worker pool.
+ * Set the preloader using {@link GSONGraphicsEngineFactory#setAssetPreloader(AssetPreloader)}, it is then
+ * registered as a type adapter factory when the scene is deserialized. The map of each {@link PlayfieldNode} that
+ * is read is fetched and decoded, in one task, on the worker pool while deserialization continues.
+ * Only references that have a consumer are loaded, other references can be fetched using
+ * {@link #fetch(ExternalReference)} and read using {@link #getData(ExternalReference)}.
+ * {@link GSONGraphicsEngineFactory#readScene(java.io.File, Class)} calls {@link #join()} before returning, so that
+ * assets are loaded before nodes are created. Maps are set in the created nodes using
+ * {@link PlayfieldNode#createMap(AssetPreloader)}.
+ * Each playfield node gets its own decoded map, the map is owned by the node and released by
+ * {@link PlayfieldNode#releaseMap()}. The preloader does not use {@link com.graphicsengine.map.MapCache}, use
+ * {@link PlayfieldNode#createMap(com.graphicsengine.map.MapCache)} for maps that are shared between nodes.
+ * Fetch and decode time of maps is sampled using {@link FrameSampler}.
+ *
+ */
+public class AssetPreloader implements TypeAdapterFactory {
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    /**
+     * Data of references fetched using {@link #fetch(ExternalReference)}, keyed on source
+     */
+    private final ConcurrentHashMap<String, Future<byte[]>> data = new ConcurrentHashMap<>();
+    /**
+     * Decoded maps keyed on source of the map reference, one map for each playfield node that has been read
+     */
+    private final HashMap<String, ArrayDeque<Future<Map>>> maps = new HashMap<>();
+    private final Set<PlayfieldNode> preloaded = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Future<?>> pending = new ArrayList<>();
+
+    /**
+     * Creates a preloader with a worker pool of the number of available processors, call {@link #destroy()} when
+     * loading is done.
+     */
+    public AssetPreloader() {
+        this(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    /**
+     * Creates a preloader using the executor, the executor is not shut down by the preloader.
+     *
+     * @param executor
+     */
+    public AssetPreloader(ExecutorService executor) {
+        this(executor, false);
+    }
+
+    private AssetPreloader(ExecutorService executor, boolean ownsExecutor) {
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Preloads the map of playfield nodes when read
+     */
+    private class PreloadAdapter<T> extends TypeAdapter<T> {
+
+        protected final TypeAdapter<T> delegate;
+
+        private PreloadAdapter(TypeAdapter<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            delegate.write(out, value);
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            return preload(delegate.read(in));
+        }
+
+        protected T preload(T value) {
+            if (value != null) {
+                preloadMap((PlayfieldNode) value);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Preloads the map of playfield nodes that are bound from the stream by {@link StreamBinder}
+     */
+    private class StreamPreloadAdapter<T> extends PreloadAdapter<T> implements StreamBinder<T> {
+
+        private StreamPreloadAdapter(TypeAdapter<T> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public T readRemaining(JsonReader in, String discriminatorName, String discriminator,
+                FieldHandler handler) throws IOException {
+            return preload(((StreamBinder<T>) delegate).readRemaining(in, discriminatorName, discriminator,
+                    handler));
+        }
+    }
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!PlayfieldNode.class.isAssignableFrom(type.getRawType())) {
+            return null;
+        }
+        TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        return delegate instanceof StreamBinder ? new StreamPreloadAdapter<>(delegate)
+                : new PreloadAdapter<>(delegate);
+    }
+
+    /**
+     * Fetches the data of the reference on the worker pool, if the reference has already been fetched the
+     * existing result is returned. Use {@link #getData(ExternalReference)} to get the data.
+     *
+     * @param ref
+     * @return Future for the data
+     */
+    public Future<byte[]> fetch(final ExternalReference ref) {
+        String source = ref.getSource();
+        Future<byte[]> result = data.get(source);
+        if (result == null) {
+            synchronized (data) {
+                result = data.get(source);
+                if (result == null) {
+                    result = executor.submit(() -> read(ref));
+                    data.put(source, result);
+                    addPending(result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decodes the maps of the playfield nodes in the node tree on the worker pool, use this for nodes that are
+     * not read using the gson the preloader is registered with. Nodes that have already been preloaded are
+     * skipped.
+     *
+     * @param root
+     */
+    public void preloadMaps(Node root) {
+        if (root instanceof PlayfieldNode) {
+            preloadMap((PlayfieldNode) root);
+        }
+        for (Node child : root.getChildren()) {
+            preloadMaps(child);
+        }
+    }
+
+    /**
+     * Fetches and decodes the map of the playfield node in one task on the worker pool, the fetched data is not
+     * kept after decoding.
+     */
+    private void preloadMap(PlayfieldNode playfield) {
+        final ExternalReference ref = playfield.getMapRef();
+        if (ref == null) {
+            return;
+        }
+        synchronized (maps) {
+            if (!preloaded.add(playfield)) {
+                return;
+            }
+        }
+        final String source = ref.getSource();
+        Future<Map> map = executor.submit(() -> {
+            long start = System.currentTimeMillis();
+            byte[] bytes = read(ref);
+            FrameSampler.getInstance().logTag(FrameSampler.Samples.LOAD_MAP, start, System.currentTimeMillis());
+            // Decode time is sampled by the map factory
+            return MapFactory.createMap(new ByteArrayInputStream(bytes));
+        });
+        synchronized (maps) {
+            ArrayDeque<Future<Map>> sourceMaps = maps.get(source);
+            if (sourceMaps == null) {
+                sourceMaps = new ArrayDeque<>();
+                maps.put(source, sourceMaps);
+            }
+            sourceMaps.add(map);
+        }
+        addPending(map);
+    }
+
+    /**
+     * Waits for all fetch and decode tasks to complete
+     *
+     * @throws IOException If an asset could not be loaded
+     */
+    public void join() throws IOException {
+        long start = System.currentTimeMillis();
+        int count = 0;
+        while (true) {
+            Future<?> future;
+            synchronized (pending) {
+                if (count >= pending.size()) {
+                    break;
+                }
+                future = pending.get(count++);
+            }
+            get(future);
+        }
+        SimpleLogger.d(getClass(), "Loaded " + count + " assets, joined in "
+                + (System.currentTimeMillis() - start) + " millis");
+    }
+
+    /**
+     * Returns a decoded map for the map reference of the playfield node, this will wait for the map to be decoded.
+     * Maps are looked up by the source of the reference, since the node created from the scene is not the node
+     * that was read. Each preloaded map is returned once, the caller owns the map.
+     *
+     * @param node
+     * @return The map or null if there is no preloaded map left for the reference of the node
+     * @throws IOException If the map could not be loaded
+     */
+    public Map getMap(PlayfieldNode node) throws IOException {
+        ExternalReference ref = node.getMapRef();
+        if (ref == null) {
+            return null;
+        }
+        Future<Map> map;
+        synchronized (maps) {
+            ArrayDeque<Future<Map>> sourceMaps = maps.get(ref.getSource());
+            map = sourceMaps != null ? sourceMaps.poll() : null;
+        }
+        return map != null ? (Map) get(map) : null;
+    }
+
+    /**
+     * Returns the fetched data for the reference, this will wait for the data to be fetched.
+     *
+     * @param ref
+     * @return The data, or null if the reference has not been fetched
+     * @throws IOException If the data could not be fetched
+     */
+    public byte[] getData(ExternalReference ref) throws IOException {
+        Future<byte[]> result = data.get(ref.getSource());
+        return result != null ? (byte[]) get(result) : null;
+    }
+
+    /**
+     * Destroys preloaded maps that have not been taken by a node, releases fetched data and shuts down the worker
+     * pool if it was created by this preloader
+     */
+    public void destroy() {
+        synchronized (maps) {
+            for (ArrayDeque<Future<Map>> sourceMaps : maps.values()) {
+                for (Future<Map> map : sourceMaps) {
+                    if (!map.cancel(false)) {
+                        try {
+                            ((Map) get(map)).destroy();
+                        } catch (IOException e) {
+                            // Map was not loaded
+                        }
+                    }
+                }
+            }
+            maps.clear();
+            preloaded.clear();
+        }
+        for (Future<byte[]> fetched : data.values()) {
+            fetched.cancel(false);
+        }
+        data.clear();
+        synchronized (pending) {
+            pending.clear();
+        }
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private void addPending(Future<?> future) {
+        synchronized (pending) {
+            pending.add(future);
+        }
+    }
+
+    private Object get(Future<?> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private byte[] read(ExternalReference ref) throws IOException {
+        InputStream in = ref.getAsStream();
+        if (in == null) {
+            throw new IOException("Could not open " + ref.getSource());
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+}
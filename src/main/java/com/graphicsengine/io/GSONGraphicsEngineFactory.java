@@ -1,10 +1,17 @@
 package com.graphicsengine.io;
 
+import java.io.File;
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.graphicsengine.component.ParticleComponent;
 import com.graphicsengine.component.SpriteAttributeComponent;
 import com.graphicsengine.component.SpriteComponent;
 import com.graphicsengine.exporter.GraphicsEngineNodeExporter;
 import com.graphicsengine.io.gson.GraphicsEngineNodeDeserializer;
 import com.graphicsengine.scene.GraphicsEngineNodeType;
+import com.nucleus.SimpleLogger;
 import com.nucleus.common.Type;
 import com.nucleus.common.TypeResolver;
 import com.nucleus.io.GSONSceneFactory;
@@ -32,7 +39,8 @@ public class GSONGraphicsEngineFactory extends GSONSceneFactory {
     public enum GraphicsEngineClasses implements Type<Object> {
 
         spriteattributecomponent(SpriteAttributeComponent.class),
-        spritecomponent(SpriteComponent.class);
+        spritecomponent(SpriteComponent.class),
+        particlecomponent(ParticleComponent.class);
 
         private final Class<?> theClass;
 
@@ -51,17 +59,42 @@ public class GSONGraphicsEngineFactory extends GSONSceneFactory {
         }
     }
 
+    /**
+     * Suffix added to the name of a JSON scene for the snapshot file
+     */
+    public static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    private GraphicsEngineNodeDeserializer graphicsDeserializer;
+    private AssetPreloader assetPreloader;
+
     protected GSONGraphicsEngineFactory() {
         super();
     }
 
-    public static SceneSerializer<RootNode> getInstance() {
+    /**
+     * Returns the shared scene factory, the shared factory shall only be used by one thread at a time.
+     * Use {@link #createInstance()} to create factories for loading scenes on other threads.
+     * 
+     * @return
+     */
+    public static synchronized SceneSerializer<RootNode> getInstance() {
         if (sceneFactory == null) {
             sceneFactory = new GSONGraphicsEngineFactory();
         }
         return sceneFactory;
     }
 
+    /**
+     * Creates a new scene factory that is independent of the shared factory, it has its own gson and deserializer
+     * instances. Use one factory per thread to load scenes concurrently, for instance using
+     * {@link ParallelSceneLoader}. The factory must be initialized before use.
+     * 
+     * @return
+     */
+    public static GSONGraphicsEngineFactory createInstance() {
+        return new GSONGraphicsEngineFactory();
+    }
+
     @Override
     public void init(NucleusRenderer renderer, Type<?>[] types) {
         super.init(renderer, types);
@@ -70,7 +103,77 @@ public class GSONGraphicsEngineFactory extends GSONSceneFactory {
 
     @Override
     protected NucleusDeserializer<Node> createNucleusNodeDeserializer() {
-        return new GraphicsEngineNodeDeserializer();
+        graphicsDeserializer = new GraphicsEngineNodeDeserializer();
+        graphicsDeserializer.setAssetPreloader(assetPreloader);
+        return graphicsDeserializer;
+    }
+
+    /**
+     * Reads the JSON scene into an object of type, if there is a current snapshot of the scene it is read instead
+     * of the JSON. If not, the JSON is read and a snapshot is written next to it so that the next read uses the
+     * snapshot. The snapshot is named as the JSON file with {@link #SNAPSHOT_SUFFIX} added.
+     * A snapshot that cannot be read is deleted and the JSON is read instead.
+     * Read time is logged for JSON and snapshot so that they can be compared.
+     * If an asset preloader is set this will wait for the assets to be loaded before returning.
+     * The factory must be initialized before use.
+     * 
+     * @param json The JSON scene
+     * @param type The class to read, the same class as when importing the JSON
+     * @return
+     * @throws IOException If the JSON could not be read, or an asset could not be preloaded
+     */
+    public <T> T readScene(File json, Class<T> type) throws IOException {
+        File snapshot = new File(json.getPath() + SNAPSHOT_SUFFIX);
+        Gson gson = createGson();
+        T scene = null;
+        if (SceneSnapshot.isCurrent(json, snapshot)) {
+            try {
+                scene = SceneSnapshot.read(gson, snapshot, type);
+            } catch (IOException | RuntimeException e) {
+                // Any failure binding the snapshot means it cannot be trusted, it is written again from the JSON.
+                SimpleLogger.d(getClass(), "Could not read snapshot " + snapshot + ", reading JSON: " + e);
+                snapshot.delete();
+            }
+        }
+        if (scene == null) {
+            scene = SceneSnapshot.readJson(gson, json, type);
+            try {
+                SceneSnapshot.write(json, snapshot);
+            } catch (IOException e) {
+                SimpleLogger.d(getClass(), "Could not write snapshot " + snapshot + ": " + e);
+            }
+        }
+        if (assetPreloader != null) {
+            assetPreloader.join();
+        }
+        return scene;
+    }
+
+    /**
+     * Sets the preloader used to fetch assets, and decode maps, concurrently while scenes are read by this factory.
+     * The preloader is registered with the gson used to read scenes, call {@link AssetPreloader#join()} before
+     * creating nodes if the scene is not read using {@link #readScene(File, Class)}.
+     * 
+     * @param preloader The preloader, or null to read scenes without preloading
+     */
+    public void setAssetPreloader(AssetPreloader preloader) {
+        assetPreloader = preloader;
+        if (graphicsDeserializer != null) {
+            graphicsDeserializer.setAssetPreloader(preloader);
+        }
+    }
+
+    /**
+     * Creates gson with the type adapters of the graphics engine, the gson is set in the node deserializer.
+     * 
+     * @return
+     */
+    protected Gson createGson() {
+        GsonBuilder builder = new GsonBuilder();
+        graphicsDeserializer.registerTypeAdapter(builder);
+        Gson gson = builder.create();
+        graphicsDeserializer.setGson(gson);
+        return gson;
     }
 
     @Override
@@ -0,0 +1,159 @@
+package com.graphicsengine.io;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.nucleus.SimpleLogger;
+import com.nucleus.common.Type;
+import com.nucleus.io.SceneSerializer;
+import com.nucleus.renderer.NucleusRenderer;
+import com.nucleus.scene.RootNode;
+
+/**
+ * Parses scenes concurrently, each worker thread uses its own {@link GSONGraphicsEngineFactory} created by
+ * {@link GSONGraphicsEngineFactory#createInstance()} so that no factory or deserializer is shared between threads.
+ * Use this to load the next level while playing, only parsing is done by the loader - nodes shall be created on
+ * the render thread.
+ * The factories are created and initialized on the thread creating the loader, since initializing a factory
+ * registers types in the shared {@link com.nucleus.common.TypeResolver}. The worker threads only read types.
+ *
+ */
+public class ParallelSceneLoader {
+
+    /**
+     * Loads one scene using the factory of the worker thread
+     *
+     * @param <T> The loaded scene
+     */
+    public interface SceneTask<T> {
+        /**
+         * Loads the scene, called on a worker thread
+         *
+         * @param factory Initialized factory owned by the calling thread
+         * @return The loaded scene
+         * @throws Exception
+         */
+        T load(SceneSerializer<RootNode> factory) throws Exception;
+    }
+
+    private final ExecutorService executor;
+    /**
+     * Initialized factories not yet taken by a worker thread
+     */
+    private final ConcurrentLinkedQueue<GSONGraphicsEngineFactory> idleFactories = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<GSONGraphicsEngineFactory> factories = new ThreadLocal<>();
+
+    /**
+     * Creates a loader with the number of threads, one factory for each thread is created and initialized on the
+     * calling thread using the renderer and types.
+     *
+     * @param threads Number of worker threads
+     * @param renderer
+     * @param types Types passed to {@link GSONGraphicsEngineFactory#init(NucleusRenderer, Type[])}
+     */
+    public ParallelSceneLoader(int threads, NucleusRenderer renderer, Type<?>[] types) {
+        for (int i = 0; i < threads; i++) {
+            GSONGraphicsEngineFactory factory = GSONGraphicsEngineFactory.createInstance();
+            factory.init(renderer, types);
+            idleFactories.add(factory);
+        }
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Returns the factory for the calling worker thread, the first call on a thread takes one of the factories
+     * created by the constructor.
+     *
+     * @return
+     * @throws IllegalStateException If there is no factory left for the thread
+     */
+    protected GSONGraphicsEngineFactory getFactory() {
+        GSONGraphicsEngineFactory factory = factories.get();
+        if (factory == null) {
+            factory = idleFactories.poll();
+            if (factory == null) {
+                throw new IllegalStateException("No factory for thread " + Thread.currentThread().getName());
+            }
+            factories.set(factory);
+        }
+        return factory;
+    }
+
+    /**
+     * Submits the task to be run on a worker thread
+     *
+     * @param task
+     * @return Future for the loaded scene
+     */
+    public <T> Future<T> submit(final SceneTask<T> task) {
+        return executor.submit(() -> {
+            long start = System.currentTimeMillis();
+            T result = task.load(getFactory());
+            SimpleLogger.d(getClass(), "Loaded scene on " + Thread.currentThread().getName() + " in "
+                    + (System.currentTimeMillis() - start) + " millis");
+            return result;
+        });
+    }
+
+    /**
+     * Runs the tasks concurrently and waits for all to complete, total time is logged.
+     *
+     * @param tasks
+     * @return The loaded scenes, in the order of the tasks
+     * @throws ExecutionException If a scene could not be loaded
+     * @throws InterruptedException
+     */
+    public <T> List<T> loadAll(List<SceneTask<T>> tasks) throws ExecutionException, InterruptedException {
+        long start = System.currentTimeMillis();
+        List<Future<T>> futures = new ArrayList<>();
+        for (SceneTask<T> task : tasks) {
+            futures.add(submit(task));
+        }
+        List<T> result = new ArrayList<>();
+        for (Future<T> future : futures) {
+            result.add(future.get());
+        }
+        SimpleLogger.d(getClass(), "Loaded " + tasks.size() + " scenes in " + (System.currentTimeMillis() - start)
+                + " millis");
+        return result;
+    }
+
+    /**
+     * Loads the scenes one at a time and then concurrently, and logs the time of both. The tasks are first run
+     * concurrently once, without measuring, so that classes are loaded and each worker has used its factory.
+     * Use this to check the speedup for a set of scenes on a device, the scenes are loaded 3 times.
+     *
+     * @param tasks
+     * @return Sequential and concurrent load time, in millis
+     * @throws ExecutionException If a scene could not be loaded
+     * @throws InterruptedException
+     */
+    public <T> long[] benchmark(List<SceneTask<T>> tasks) throws ExecutionException, InterruptedException {
+        loadAll(tasks);
+        long start = System.currentTimeMillis();
+        for (SceneTask<T> task : tasks) {
+            submit(task).get();
+        }
+        long sequential = System.currentTimeMillis() - start;
+        start = System.currentTimeMillis();
+        loadAll(tasks);
+        long concurrent = System.currentTimeMillis() - start;
+        SimpleLogger.d(getClass(), "Benchmark " + tasks.size() + " scenes, sequential " + sequential
+                + " millis, concurrent " + concurrent + " millis, speedup "
+                + (concurrent > 0 ? (float) sequential / concurrent : 0));
+        return new long[] { sequential, concurrent };
+    }
+
+    /**
+     * Shuts down the worker threads, submitted tasks are completed.
+     */
+    public void destroy() {
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,378 @@
+package com.graphicsengine.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.nucleus.SimpleLogger;
+
+/**
+ * Compact binary snapshot of a JSON scene, used to skip text parsing on startup.
+ * The snapshot is the token stream of the JSON with numbers stored as binary int, float or double and names and
+ * strings stored once and then referenced by index.
+ * The snapshot is loaded into memory and decoded into a tree that is bound by gson, so the same gson adapters that
+ * are used for the JSON scene are used for the snapshot, ie all graphics engine and nucleus node and component types
+ * are supported.
+ * The snapshot stores length and last modified of the source, use {@link #isCurrent(File, File)} to check if the
+ * snapshot can be used. The snapshot ends with the length and CRC of the preceding data, a snapshot that was not
+ * completely written is not current and a snapshot with invalid CRC is not read.
+ * Snapshots are written to a temporary file that is then renamed, so a snapshot is never partly written.
+ *
+ */
+public class SceneSnapshot {
+
+    /**
+     * Identifier of snapshot files
+     */
+    public static final int MAGIC = 0x4745534e;
+    public static final int VERSION = 2;
+    /**
+     * Size of magic, version, source length and last modified
+     */
+    protected static final int HEADER_SIZE = 24;
+    /**
+     * Size of data length and CRC at end of snapshot
+     */
+    protected static final int TRAILER_SIZE = 12;
+
+    protected static final int END = 0;
+    protected static final int BEGIN_OBJECT = 1;
+    protected static final int END_OBJECT = 2;
+    protected static final int BEGIN_ARRAY = 3;
+    protected static final int END_ARRAY = 4;
+    protected static final int NAME = 5;
+    protected static final int NAME_REF = 6;
+    protected static final int STRING = 7;
+    protected static final int STRING_REF = 8;
+    protected static final int INT = 9;
+    protected static final int FLOAT = 10;
+    protected static final int DOUBLE = 11;
+    protected static final int TRUE = 12;
+    protected static final int FALSE = 13;
+    protected static final int NULL = 14;
+
+    /**
+     * Writes a snapshot of the JSON source file, the snapshot is written to a temporary file in the same folder that
+     * replaces the snapshot when complete.
+     *
+     * @param source The JSON scene
+     * @param snapshot Destination file
+     * @throws IOException
+     */
+    public static void write(File source, File snapshot) throws IOException {
+        long start = System.currentTimeMillis();
+        File temp = new File(snapshot.getPath() + ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (JsonReader in = new JsonReader(new InputStreamReader(
+                    new BufferedInputStream(new FileInputStream(source)), StandardCharsets.UTF_8));
+                    DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(temp)), crc))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(source.length());
+                out.writeLong(source.lastModified());
+                write(in, out);
+                long length = out.size();
+                int value = (int) crc.getValue();
+                out.writeLong(length);
+                out.writeInt(value);
+            }
+            Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+        SimpleLogger.d(SceneSnapshot.class, "Wrote snapshot of " + source + ", " + snapshot.length() + " bytes in "
+                + (System.currentTimeMillis() - start) + " millis");
+    }
+
+    /**
+     * Writes the tokens of one JSON value from the reader, the JSON is transcoded token by token without creating
+     * a tree.
+     *
+     * @param in
+     * @param out
+     * @throws IOException
+     */
+    public static void write(JsonReader in, DataOutputStream out) throws IOException {
+        HashMap<String, Integer> strings = new HashMap<>();
+        int depth = 0;
+        do {
+            JsonToken token = in.peek();
+            switch (token) {
+                case BEGIN_OBJECT:
+                    in.beginObject();
+                    out.writeByte(BEGIN_OBJECT);
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    in.endObject();
+                    out.writeByte(END_OBJECT);
+                    depth--;
+                    break;
+                case BEGIN_ARRAY:
+                    in.beginArray();
+                    out.writeByte(BEGIN_ARRAY);
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    in.endArray();
+                    out.writeByte(END_ARRAY);
+                    depth--;
+                    break;
+                case NAME:
+                    writeString(in.nextName(), NAME, NAME_REF, strings, out);
+                    break;
+                case STRING:
+                    writeString(in.nextString(), STRING, STRING_REF, strings, out);
+                    break;
+                case NUMBER:
+                    writeNumber(in.nextString(), out);
+                    break;
+                case BOOLEAN:
+                    out.writeByte(in.nextBoolean() ? TRUE : FALSE);
+                    break;
+                case NULL:
+                    in.nextNull();
+                    out.writeByte(NULL);
+                    break;
+                default:
+                    throw new JsonParseException("Unexpected token " + token + " at " + in.getPath());
+            }
+        } while (depth > 0);
+        out.writeByte(END);
+    }
+
+    private static void writeString(String value, int tag, int refTag, HashMap<String, Integer> strings,
+            DataOutputStream out) throws IOException {
+        Integer index = strings.get(value);
+        if (index != null) {
+            out.writeByte(refTag);
+            out.writeInt(index);
+        } else {
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeByte(tag);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Writes number as int if integral and in int range, as float if it can be stored as float without loss,
+     * otherwise as double.
+     */
+    private static void writeNumber(String text, DataOutputStream out) throws IOException {
+        double value = Double.parseDouble(text);
+        if (value == (int) value && text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+            out.writeByte(INT);
+            out.writeInt((int) value);
+        } else if ((double) (float) value == value) {
+            out.writeByte(FLOAT);
+            out.writeFloat((float) value);
+        } else {
+            out.writeByte(DOUBLE);
+            out.writeDouble(value);
+        }
+    }
+
+    /**
+     * Returns true if the snapshot exists, was created from the current version of the source and has the length
+     * stored at the end of the snapshot. The CRC is checked when the snapshot is read.
+     *
+     * @param source
+     * @param snapshot
+     * @return
+     */
+    public static boolean isCurrent(File source, File snapshot) {
+        if (!snapshot.isFile()) {
+            return false;
+        }
+        try (RandomAccessFile in = new RandomAccessFile(snapshot, "r")) {
+            long length = in.length() - TRAILER_SIZE;
+            if (length < HEADER_SIZE || in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != source.length() || in.readLong() != source.lastModified()) {
+                return false;
+            }
+            in.seek(length);
+            return in.readLong() == length;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the snapshot into an object of type using the adapters registered in gson, use the gson of the scene
+     * factory to read a scene.
+     *
+     * @param gson
+     * @param snapshot
+     * @param type
+     * @return
+     * @throws IOException If the snapshot could not be read or is not a valid snapshot
+     */
+    public static <T> T read(Gson gson, File snapshot, Class<T> type) throws IOException {
+        long start = System.currentTimeMillis();
+        byte[] data = new byte[(int) snapshot.length()];
+        try (DataInputStream stream = new DataInputStream(new FileInputStream(snapshot))) {
+            stream.readFully(data);
+        }
+        int length = data.length - TRAILER_SIZE;
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if (length < HEADER_SIZE || in.getInt() != MAGIC || in.getInt() != VERSION
+                || in.getLong(length) != length) {
+            throw new IOException("Not a valid snapshot: " + snapshot);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        if (in.getInt(length + 8) != (int) crc.getValue()) {
+            throw new IOException("Invalid CRC in snapshot: " + snapshot);
+        }
+        // Skip source length and last modified
+        in.position(HEADER_SIZE);
+        in.limit(length);
+        JsonElement element;
+        try {
+            SnapshotDecoder decoder = new SnapshotDecoder(in);
+            element = decoder.decode();
+            if ((in.get() & 0xff) != END) {
+                throw new IOException("Expected end of snapshot: " + snapshot);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Unexpected end of snapshot: " + snapshot);
+        }
+        T result = gson.fromJson(element, type);
+        SimpleLogger.d(SceneSnapshot.class, "Read snapshot " + snapshot + " in "
+                + (System.currentTimeMillis() - start) + " millis");
+        return result;
+    }
+
+    /**
+     * Reads the JSON scene into an object of type using gson, the read time is logged so that it can be compared
+     * to {@link #read(Gson, File, Class)}
+     *
+     * @param gson
+     * @param json
+     * @param type
+     * @return
+     * @throws IOException
+     */
+    public static <T> T readJson(Gson gson, File json, Class<T> type) throws IOException {
+        long start = System.currentTimeMillis();
+        try (Reader reader = new InputStreamReader(new BufferedInputStream(new FileInputStream(json)),
+                StandardCharsets.UTF_8)) {
+            T result = gson.fromJson(reader, type);
+            SimpleLogger.d(SceneSnapshot.class, "Read JSON " + json + " in "
+                    + (System.currentTimeMillis() - start) + " millis");
+            return result;
+        }
+    }
+
+    /**
+     * Decodes the tokens of a snapshot into a tree
+     *
+     */
+    protected static class SnapshotDecoder {
+
+        private final ByteBuffer in;
+        private final ArrayList<String> strings = new ArrayList<>();
+
+        /**
+         * Creates a decoder for the snapshot tokens, the buffer shall be positioned after the snapshot header.
+         *
+         * @param in
+         */
+        protected SnapshotDecoder(ByteBuffer in) {
+            this.in = in;
+        }
+
+        /**
+         * Decodes the next value
+         *
+         * @return
+         * @throws JsonParseException If the tokens are not a valid value
+         */
+        protected JsonElement decode() {
+            return decode(in.get() & 0xff);
+        }
+
+        private JsonElement decode(int tag) {
+            switch (tag) {
+                case BEGIN_OBJECT:
+                    JsonObject obj = new JsonObject();
+                    for (int t = in.get() & 0xff; t != END_OBJECT; t = in.get() & 0xff) {
+                        if (t != NAME && t != NAME_REF) {
+                            throw new JsonParseException("Expected name but was tag " + t);
+                        }
+                        String name = readString(t);
+                        obj.add(name, decode(in.get() & 0xff));
+                    }
+                    return obj;
+                case BEGIN_ARRAY:
+                    JsonArray array = new JsonArray();
+                    for (int t = in.get() & 0xff; t != END_ARRAY; t = in.get() & 0xff) {
+                        array.add(decode(t));
+                    }
+                    return array;
+                case STRING:
+                case STRING_REF:
+                    return new JsonPrimitive(readString(tag));
+                case INT:
+                    return new JsonPrimitive(in.getInt());
+                case FLOAT:
+                    return new JsonPrimitive(in.getFloat());
+                case DOUBLE:
+                    return new JsonPrimitive(in.getDouble());
+                case TRUE:
+                    return new JsonPrimitive(true);
+                case FALSE:
+                    return new JsonPrimitive(false);
+                case NULL:
+                    return JsonNull.INSTANCE;
+                default:
+                    throw new JsonParseException("Invalid snapshot tag " + tag);
+            }
+        }
+
+        private String readString(int tag) {
+            if (tag == NAME || tag == STRING) {
+                int length = in.getInt();
+                String value = new String(in.array(), in.arrayOffset() + in.position(), length,
+                        StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+                strings.add(value);
+                return value;
+            }
+            return strings.get(in.getInt());
+        }
+
+    }
+
+}
@@ -0,0 +1,237 @@
+package com.graphicsengine.io.gson;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Creates type adapters that read the fields declared by the graphics engine classes using {@link FieldBinder}s,
+ * instead of binding them by reflection.
+ * The object is created using the no-arg constructor and all fields are bound from the stream, no tree is created.
+ * Fields not handled by a binder, ie fields declared in nucleus superclasses, are set using the field, the fields
+ * are looked up once when the adapter is created.
+ * Classes without a no-arg constructor are read by the reflective adapter of gson, as is writing.
+ * Use {@link #setEnabled(boolean)} to read the same scene with and without binders, when disabled all fields are set
+ * using the field. This is used to compare startup time, see BinderBenchmark.
+ *
+ */
+public class BinderTypeAdapterFactory implements TypeAdapterFactory {
+
+    private final HashMap<Class<?>, FieldBinder<?>[]> binders = new HashMap<>();
+    private volatile boolean enabled = true;
+
+    /**
+     * Adds the binders to use for a class, this shall include the binders of graphics engine superclasses.
+     *
+     * @param type
+     * @param classBinders Binders for the fields of the class and its superclasses
+     * @return This factory
+     */
+    @SafeVarargs
+    public final <T> BinderTypeAdapterFactory add(Class<T> type, FieldBinder<? super T>... classBinders) {
+        binders.put(type, classBinders);
+        return this;
+    }
+
+    /**
+     * Enables or disables the binders, when disabled all fields are set using reflection.
+     *
+     * @param enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        FieldBinder<?>[] classBinders = binders.get(type.getRawType());
+        if (classBinders == null) {
+            return null;
+        }
+        Constructor<T> constructor;
+        try {
+            constructor = (Constructor<T>) type.getRawType().getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        return new BinderAdapter<>(gson, gson.getDelegateAdapter(this, type), constructor,
+                (FieldBinder<? super T>[]) classBinders);
+    }
+
+    /**
+     * A field that is not bound by a binder, set using reflection
+     *
+     */
+    private static class UnboundField {
+        private final Field field;
+        private final Type type;
+        private TypeAdapter<?> adapter;
+
+        private UnboundField(Field field, Type type) {
+            this.field = field;
+            this.type = type;
+        }
+    }
+
+    private class BinderAdapter<T> extends TypeAdapter<T> implements StreamBinder<T> {
+
+        private final Gson gson;
+        private final TypeAdapter<T> delegate;
+        private final Constructor<T> constructor;
+        private final FieldBinder<? super T>[] binders;
+        private final HashMap<String, UnboundField> fields = new HashMap<>();
+
+        private BinderAdapter(Gson gson, TypeAdapter<T> delegate, Constructor<T> constructor,
+                FieldBinder<? super T>[] binders) {
+            this.gson = gson;
+            this.delegate = delegate;
+            this.constructor = constructor;
+            this.binders = binders;
+            collectFields(constructor.getDeclaringClass());
+        }
+
+        /**
+         * Collects the serialized fields of the class and superclasses, a field in a subclass hides a field with the
+         * same name in a superclass.
+         */
+        private void collectFields(Class<?> type) {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    SerializedName serializedName = field.getAnnotation(SerializedName.class);
+                    String name = serializedName != null ? serializedName.value() : field.getName();
+                    field.setAccessible(true);
+                    // Type variables are not resolved, the raw type of the field is used.
+                    Type fieldType = field.getGenericType() instanceof Class
+                            || field.getGenericType() instanceof ParameterizedType ? field.getGenericType()
+                                    : field.getType();
+                    UnboundField unbound = new UnboundField(field, fieldType);
+                    addField(name, unbound);
+                    if (serializedName != null) {
+                        for (String alternate : serializedName.alternate()) {
+                            addField(alternate, unbound);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void addField(String name, UnboundField field) {
+            if (!fields.containsKey(name)) {
+                fields.put(name, field);
+            }
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            delegate.write(out, value);
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            in.beginObject();
+            return readRemaining(in, null, null, null);
+        }
+
+        @Override
+        public T readRemaining(JsonReader in, String discriminatorName, String discriminator, FieldHandler handler)
+                throws IOException {
+            T result = createInstance();
+            boolean bind = enabled;
+            if (discriminatorName != null) {
+                UnboundField field = fields.get(discriminatorName);
+                if (field != null) {
+                    set(result, field, getAdapter(field).fromJsonTree(new JsonPrimitive(discriminator)));
+                }
+            }
+            FieldBinder.Values[] values = new FieldBinder.Values[binders.length];
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (handler != null && handler.read(name, in)) {
+                    continue;
+                }
+                if (!bind || !readField(name, in, values)) {
+                    UnboundField field = fields.get(name);
+                    if (field != null) {
+                        Object value = getAdapter(field).read(in);
+                        if (value != null || !field.field.getType().isPrimitive()) {
+                            set(result, field, value);
+                        }
+                    } else {
+                        in.skipValue();
+                    }
+                }
+            }
+            in.endObject();
+            for (int b = 0; b < binders.length; b++) {
+                if (values[b] != null) {
+                    binders[b].apply(result, values[b]);
+                }
+            }
+            return result;
+        }
+
+        private T createInstance() {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new JsonParseException("Could not create " + constructor.getDeclaringClass().getName(), e);
+            }
+        }
+
+        private TypeAdapter<?> getAdapter(UnboundField field) {
+            // Resolved when first used, the adapter of a field may be the adapter being created.
+            if (field.adapter == null) {
+                field.adapter = gson.getAdapter(TypeToken.get(field.type));
+            }
+            return field.adapter;
+        }
+
+        private void set(T target, UnboundField field, Object value) {
+            try {
+                field.field.set(target, value);
+            } catch (IllegalAccessException e) {
+                throw new JsonParseException("Could not set field " + field.field.getName(), e);
+            }
+        }
+
+        private boolean readField(String name, JsonReader in, FieldBinder.Values[] values) throws IOException {
+            for (int b = 0; b < binders.length; b++) {
+                int field = binders[b].indexOf(name);
+                if (field >= 0) {
+                    if (values[b] == null) {
+                        values[b] = binders[b].createValues();
+                    }
+                    binders[b].read(field, in, gson, values[b]);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.graphicsengine.io.gson;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.nucleus.common.TypeResolver;
+import com.nucleus.component.Component;
+
+/**
+ * Deserialization of {@linkplain Component}, returns the correct subclass of Component.
+ * The type of the component is read from the stream, if it is the first field the rest of the component is bound
+ * from the stream by the adapter of the component class, see {@link StreamBinder}. Adapters are resolved once for
+ * each class.
+ * If type is not the first field, or the component class is not bound by a {@link StreamBinder}, the component is
+ * read into a tree of its own and bound from the tree. Used together with {@link NodeTypeAdapterFactory} only that
+ * component is held as a tree, instead of the tree of the whole scene as with {@link ComponentDeserializer}
+ *
+ */
+public class ComponentTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != Component.class) {
+            return null;
+        }
+        return (TypeAdapter<T>) new ComponentAdapter(gson);
+    }
+
+    /**
+     * Reads components using the adapter of the component class
+     *
+     */
+    private static class ComponentAdapter extends TypeAdapter<Component> {
+
+        private final Gson gson;
+        private final TypeAdapter<JsonElement> elementAdapter;
+        private final ConcurrentHashMap<Class<?>, TypeAdapter<?>> adapters = new ConcurrentHashMap<>();
+
+        private ComponentAdapter(Gson gson) {
+            this.gson = gson;
+            this.elementAdapter = gson.getAdapter(JsonElement.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, Component value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            getAdapter(value.getClass()).write(out, value);
+        }
+
+        @Override
+        public Component read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            String path = in.getPath();
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new JsonParseException("Component is not an object, at " + path);
+            }
+            in.beginObject();
+            JsonObject obj = new JsonObject();
+            if (in.hasNext()) {
+                String name = in.nextName();
+                if (Component.TYPE.equals(name) && in.peek() == JsonToken.STRING) {
+                    String typeName = in.nextString();
+                    TypeAdapter<Component> adapter = getAdapter(typeName);
+                    if (adapter instanceof StreamBinder) {
+                        return ((StreamBinder<Component>) adapter).readRemaining(in, Component.TYPE, typeName, null);
+                    }
+                    obj.addProperty(Component.TYPE, typeName);
+                } else {
+                    obj.add(name, JsonElementReader.read(in, elementAdapter));
+                }
+            }
+            JsonElementReader.readRemaining(in, obj, elementAdapter);
+            JsonElement typeElement = obj.get(Component.TYPE);
+            if (typeElement == null) {
+                throw new JsonParseException("Component does not define " + Component.TYPE + ", at " + path);
+            }
+            return getAdapter(typeElement.getAsString()).fromJsonTree(obj);
+        }
+
+        private TypeAdapter<Component> getAdapter(String typeName) {
+            Class<?> typeClass = TypeResolver.getInstance().getTypeClass(typeName);
+            if (typeClass == null) {
+                throw new JsonParseException("Unknown component type " + typeName);
+            }
+            return getAdapter(typeClass);
+        }
+
+        private TypeAdapter<Component> getAdapter(Class<?> typeClass) {
+            TypeAdapter<?> adapter = adapters.get(typeClass);
+            if (adapter == null) {
+                adapter = gson.getAdapter(typeClass);
+                adapters.put(typeClass, adapter);
+            }
+            return (TypeAdapter<Component>) adapter;
+        }
+
+    }
+
+}
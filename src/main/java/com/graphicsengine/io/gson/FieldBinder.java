@@ -0,0 +1,259 @@
+package com.graphicsengine.io.gson;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Hand written binding of the serialized fields declared by one class, used by {@link BinderTypeAdapterFactory}
+ * to read fields without reflection.
+ * The binder is declared in the class that owns the fields, so that private fields can be set.
+ * Fields are read in the order they appear in JSON into {@link Values} and set after the object is created.
+ * Primitive fields are read and set without boxing, subclasses override the setter for the type of each field.
+ *
+ * @param <T> The class declaring the fields
+ */
+public abstract class FieldBinder<T> {
+
+    /**
+     * Values read for the fields of one binder, primitives are stored without boxing.
+     *
+     */
+    public static class Values {
+        private final int[] ints;
+        private final long[] longs;
+        private final float[] floats;
+        private final boolean[] booleans;
+        private final Object[] objects;
+        private final boolean[] read;
+
+        private Values(int fieldCount) {
+            ints = new int[fieldCount];
+            longs = new long[fieldCount];
+            floats = new float[fieldCount];
+            booleans = new boolean[fieldCount];
+            objects = new Object[fieldCount];
+            read = new boolean[fieldCount];
+        }
+    }
+
+    private final String[] names;
+    private final Class<?>[] types;
+
+    /**
+     * Creates a binder for the fields with the serialized names and types.
+     *
+     * @param names Serialized names of the fields
+     * @param types Type of each field
+     * @throws IllegalArgumentException If names and types does not have same length
+     */
+    protected FieldBinder(String[] names, Class<?>[] types) {
+        if (names.length != types.length) {
+            throw new IllegalArgumentException("Names and types does not match: " + names.length + ", "
+                    + types.length);
+        }
+        this.names = names;
+        this.types = types;
+    }
+
+    /**
+     * Returns the number of fields
+     *
+     * @return
+     */
+    public int getFieldCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the index of the field with the serialized name
+     *
+     * @param name
+     * @return Index of the field or -1 if not bound by this binder
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Creates the storage for values read by this binder
+     *
+     * @return
+     */
+    public Values createValues() {
+        return new Values(names.length);
+    }
+
+    /**
+     * Reads the value of a field into values, primitives and primitive arrays are read directly from the reader,
+     * other types using the adapter from gson. Fields that are null in JSON are not stored.
+     *
+     * @param field Index of the field
+     * @param in
+     * @param gson
+     * @param values Destination for the value
+     * @throws IOException
+     */
+    public void read(int field, JsonReader in, Gson gson, Values values) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return;
+        }
+        Class<?> type = types[field];
+        if (type == int.class) {
+            values.ints[field] = in.nextInt();
+        } else if (type == long.class) {
+            values.longs[field] = in.nextLong();
+        } else if (type == float.class) {
+            values.floats[field] = (float) in.nextDouble();
+        } else if (type == boolean.class) {
+            values.booleans[field] = in.nextBoolean();
+        } else if (type == int[].class) {
+            values.objects[field] = readIntArray(in);
+        } else if (type == float[].class) {
+            values.objects[field] = readFloatArray(in);
+        } else if (type == String.class) {
+            values.objects[field] = in.nextString();
+        } else {
+            values.objects[field] = gson.getAdapter(type).read(in);
+        }
+        values.read[field] = true;
+    }
+
+    /**
+     * Sets the fields that have been read into values
+     *
+     * @param target
+     * @param values
+     */
+    public void apply(T target, Values values) {
+        for (int field = 0; field < types.length; field++) {
+            if (!values.read[field]) {
+                continue;
+            }
+            Class<?> type = types[field];
+            if (type == int.class) {
+                setInt(target, field, values.ints[field]);
+            } else if (type == long.class) {
+                setLong(target, field, values.longs[field]);
+            } else if (type == float.class) {
+                setFloat(target, field, values.floats[field]);
+            } else if (type == boolean.class) {
+                setBoolean(target, field, values.booleans[field]);
+            } else {
+                setObject(target, field, values.objects[field]);
+            }
+        }
+    }
+
+    /**
+     * Sets an int field, override in binders with int fields
+     *
+     * @param target
+     * @param field Index of the field
+     * @param value
+     * @throws IllegalArgumentException If the field is not an int
+     */
+    public void setInt(T target, int field, int value) {
+        throw new IllegalArgumentException("Not an int field: " + names[field]);
+    }
+
+    /**
+     * Sets a long field, override in binders with long fields
+     *
+     * @param target
+     * @param field Index of the field
+     * @param value
+     * @throws IllegalArgumentException If the field is not a long
+     */
+    public void setLong(T target, int field, long value) {
+        throw new IllegalArgumentException("Not a long field: " + names[field]);
+    }
+
+    /**
+     * Sets a float field, override in binders with float fields
+     *
+     * @param target
+     * @param field Index of the field
+     * @param value
+     * @throws IllegalArgumentException If the field is not a float
+     */
+    public void setFloat(T target, int field, float value) {
+        throw new IllegalArgumentException("Not a float field: " + names[field]);
+    }
+
+    /**
+     * Sets a boolean field, override in binders with boolean fields
+     *
+     * @param target
+     * @param field Index of the field
+     * @param value
+     * @throws IllegalArgumentException If the field is not a boolean
+     */
+    public void setBoolean(T target, int field, boolean value) {
+        throw new IllegalArgumentException("Not a boolean field: " + names[field]);
+    }
+
+    /**
+     * Sets a field that is not a primitive, including primitive arrays. Override in binders with object fields
+     *
+     * @param target
+     * @param field Index of the field
+     * @param value
+     * @throws IllegalArgumentException If the field is a primitive
+     */
+    public void setObject(T target, int field, Object value) {
+        throw new IllegalArgumentException("Not an object field: " + names[field]);
+    }
+
+    /**
+     * Reads an int array
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static int[] readIntArray(JsonReader in) throws IOException {
+        int[] values = new int[16];
+        int count = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = in.nextInt();
+        }
+        in.endArray();
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Reads a float array
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static float[] readFloatArray(JsonReader in) throws IOException {
+        float[] values = new float[16];
+        int count = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = (float) in.nextDouble();
+        }
+        in.endArray();
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+}
@@ -3,8 +3,17 @@ package com.graphicsengine.io.gson;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonDeserializer;
+import com.graphicsengine.component.ActorComponent;
+import com.graphicsengine.component.ParticleComponent;
+import com.graphicsengine.component.SpriteAttributeComponent;
+import com.graphicsengine.component.SpriteComponent;
+import com.graphicsengine.io.AssetPreloader;
+import com.graphicsengine.map.PlayfieldNode;
 import com.graphicsengine.scene.GraphicsEngineNodeType;
-import com.nucleus.component.Component;
+import com.graphicsengine.scene.QuadParentNode;
+import com.graphicsengine.scene.SharedMeshButton;
+import com.graphicsengine.scene.SharedMeshQuad;
+import com.graphicsengine.scene.SharedMeshToggle;
 import com.nucleus.io.gson.NucleusDeserializerImpl;
 import com.nucleus.scene.Node;
 
@@ -15,7 +24,19 @@ import com.nucleus.scene.Node;
  */
 public class GraphicsEngineNodeDeserializer extends NucleusDeserializerImpl implements JsonDeserializer<Node> {
 
-    private ComponentDeserializer componentDeserializer = new ComponentDeserializer();
+    private NodeTypeAdapterFactory nodeFactory = new NodeTypeAdapterFactory();
+    private ComponentTypeAdapterFactory componentFactory = new ComponentTypeAdapterFactory();
+    private BinderTypeAdapterFactory binderFactory = new BinderTypeAdapterFactory()
+            .add(SharedMeshQuad.class, SharedMeshQuad.FIELD_BINDER)
+            .add(SharedMeshButton.class, SharedMeshQuad.FIELD_BINDER)
+            .add(SharedMeshToggle.class, SharedMeshToggle.FIELD_BINDER, SharedMeshQuad.FIELD_BINDER)
+            .add(QuadParentNode.class, QuadParentNode.FIELD_BINDER)
+            .add(PlayfieldNode.class, PlayfieldNode.FIELD_BINDER)
+            .add(SpriteAttributeComponent.class, SpriteAttributeComponent.FIELD_BINDER, ActorComponent.FIELD_BINDER)
+            .add(SpriteComponent.class, SpriteComponent.FIELD_BINDER, ActorComponent.FIELD_BINDER)
+            .add(ParticleComponent.class, ParticleComponent.FIELD_BINDER, SpriteComponent.FIELD_BINDER,
+                    ActorComponent.FIELD_BINDER);
+    private AssetPreloader assetPreloader;
 
     public GraphicsEngineNodeDeserializer() {
         super();
@@ -27,14 +48,48 @@ public class GraphicsEngineNodeDeserializer extends NucleusDeserializerImpl impl
         super.registerTypeAdapter(builder);
         builder.registerTypeAdapter(Node.class, this);
         // builder.registerTypeAdapter(Node.class, nodeDeserializer);
-        builder.registerTypeAdapter(Component.class, componentDeserializer);
+        // Registered after this so that nodes are streamed and bound by this deserializer
+        builder.registerTypeAdapterFactory(nodeFactory);
+        builder.registerTypeAdapterFactory(componentFactory);
+        builder.registerTypeAdapterFactory(binderFactory);
+        if (assetPreloader != null) {
+            // Registered last so that playfield nodes are read by the preloader first
+            builder.registerTypeAdapterFactory(assetPreloader);
+        }
+    }
+
+    /**
+     * Sets the preloader that fetches assets while the scene is read, the preloader is registered when type
+     * adapters are registered.
+     * 
+     * @param assetPreloader The preloader, or null to read without preloading
+     */
+    public void setAssetPreloader(AssetPreloader assetPreloader) {
+        this.assetPreloader = assetPreloader;
+    }
+
+    /**
+     * Returns the preloader that fetches assets while the scene is read
+     * 
+     * @return The preloader or null
+     */
+    public AssetPreloader getAssetPreloader() {
+        return assetPreloader;
+    }
+
+    /**
+     * Returns the factory for the field binders, use to enable or disable binders when comparing load times.
+     * 
+     * @return
+     */
+    public BinderTypeAdapterFactory getBinderFactory() {
+        return binderFactory;
     }
 
     @Override
     public void setGson(Gson gson) {
         super.setGson(gson);
         // nodeDeserializer.setGson(gson);
-        componentDeserializer.setGson(gson);
     }
 
 }
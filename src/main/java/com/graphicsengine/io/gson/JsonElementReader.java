@@ -0,0 +1,51 @@
+package com.graphicsengine.io.gson;
+
+import java.io.IOException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Reads a value from a reader into a tree, used by the graphics engine adapters when part of an object must be
+ * bound from a tree.
+ *
+ */
+public class JsonElementReader {
+
+    private JsonElementReader() {
+    }
+
+    /**
+     * Reads the next value into a tree
+     *
+     * @param in
+     * @param elementAdapter The gson adapter for JsonElement
+     * @return
+     * @throws IOException
+     */
+    public static JsonElement read(JsonReader in, TypeAdapter<JsonElement> elementAdapter) throws IOException {
+        return elementAdapter.read(in);
+    }
+
+    /**
+     * Reads the remaining fields of an object into the destination, up to and including the end of the object.
+     *
+     * @param in Reader positioned after begin of object, or after the value of a field
+     * @param destination
+     * @param elementAdapter The gson adapter for JsonElement
+     * @return The destination object
+     * @throws IOException
+     */
+    public static JsonObject readRemaining(JsonReader in, JsonObject destination,
+            TypeAdapter<JsonElement> elementAdapter) throws IOException {
+        while (in.hasNext()) {
+            String name = in.nextName();
+            destination.add(name, read(in, elementAdapter));
+        }
+        in.endObject();
+        return destination;
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.graphicsengine.io.gson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.graphicsengine.scene.GraphicsEngineNodeType;
+import com.nucleus.scene.Node;
+
+/**
+ * Streaming deserialization of {@linkplain Node}, the scene is read one node at a time instead of first parsing
+ * the whole scene into a tree.
+ * If the type of the node is the first field, and the node is a {@link GraphicsEngineNodeType} that is bound by a
+ * {@link StreamBinder}, the node is bound from the stream by the adapter of the node class.
+ * Other nodes have their fields, except the children, read into a tree that is bound by the adapter registered
+ * before this factory, ie the node deserializer.
+ * Children are read from the stream, one at a time, using this adapter and added to the node after it is created.
+ * This means that at most the fields of the nodes from the root to the node being read are held as trees, the
+ * children of a node are not.
+ * Must be registered after the node deserializer.
+ *
+ */
+public class NodeTypeAdapterFactory implements TypeAdapterFactory {
+
+    /**
+     * Serialized name of the children in a node
+     */
+    public static final String CHILDREN = "children";
+    /**
+     * Serialized name of the node type, read before the node is bound
+     */
+    public static final String TYPE = "type";
+
+    private static final HashMap<String, Class<?>> NODE_CLASSES = new HashMap<>();
+
+    static {
+        for (GraphicsEngineNodeType type : GraphicsEngineNodeType.values()) {
+            NODE_CLASSES.put(type.getName(), type.getTypeClass());
+        }
+    }
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != Node.class) {
+            return null;
+        }
+        return (TypeAdapter<T>) new NodeAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(Node.class)));
+    }
+
+    private static class NodeAdapter extends TypeAdapter<Node> {
+
+        private final Gson gson;
+        private final TypeAdapter<Node> delegate;
+        private final TypeAdapter<JsonElement> elementAdapter;
+        private final ConcurrentHashMap<Class<?>, TypeAdapter<?>> adapters = new ConcurrentHashMap<>();
+
+        private NodeAdapter(Gson gson, TypeAdapter<Node> delegate) {
+            this.gson = gson;
+            this.delegate = delegate;
+            this.elementAdapter = gson.getAdapter(JsonElement.class);
+        }
+
+        /**
+         * Reads the children of one node
+         */
+        private class ChildrenHandler implements StreamBinder.FieldHandler {
+
+            private ArrayList<Node> children;
+
+            @Override
+            public boolean read(String name, JsonReader in) throws IOException {
+                if (CHILDREN.equals(name) && in.peek() == JsonToken.BEGIN_ARRAY) {
+                    children = readChildren(in);
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        @Override
+        public void write(JsonWriter out, Node value) throws IOException {
+            delegate.write(out, value);
+        }
+
+        @Override
+        public Node read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ChildrenHandler handler = new ChildrenHandler();
+            JsonObject obj = new JsonObject();
+            Node node = null;
+            in.beginObject();
+            if (in.hasNext()) {
+                String name = in.nextName();
+                if (TYPE.equals(name) && in.peek() == JsonToken.STRING) {
+                    String typeName = in.nextString();
+                    StreamBinder<Node> binder = getBinder(typeName);
+                    if (binder != null) {
+                        node = binder.readRemaining(in, TYPE, typeName, handler);
+                    } else {
+                        obj.addProperty(TYPE, typeName);
+                    }
+                } else if (!handler.read(name, in)) {
+                    obj.add(name, JsonElementReader.read(in, elementAdapter));
+                }
+            }
+            if (node == null) {
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    if (!handler.read(name, in)) {
+                        obj.add(name, JsonElementReader.read(in, elementAdapter));
+                    }
+                }
+                in.endObject();
+                node = delegate.fromJsonTree(obj);
+            }
+            if (handler.children != null) {
+                for (Node child : handler.children) {
+                    node.addChild(child);
+                }
+            }
+            return node;
+        }
+
+        /**
+         * Returns the binder for the node type
+         *
+         * @param typeName
+         * @return The binder, or null if the type is not a graphics engine node type bound by a {@link StreamBinder}
+         */
+        private StreamBinder<Node> getBinder(String typeName) {
+            Class<?> typeClass = NODE_CLASSES.get(typeName);
+            if (typeClass == null) {
+                return null;
+            }
+            TypeAdapter<?> adapter = adapters.get(typeClass);
+            if (adapter == null) {
+                adapter = gson.getAdapter(typeClass);
+                adapters.put(typeClass, adapter);
+            }
+            return adapter instanceof StreamBinder ? (StreamBinder<Node>) adapter : null;
+        }
+
+        private ArrayList<Node> readChildren(JsonReader in) throws IOException {
+            ArrayList<Node> children = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                Node child = read(in);
+                if (child != null) {
+                    children.add(child);
+                }
+            }
+            in.endArray();
+            return children;
+        }
+
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.graphicsengine.io.gson;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Type adapter that can read an object when the beginning of the object has already been read from the stream.
+ * Used by {@link NodeTypeAdapterFactory} and {@link ComponentTypeAdapterFactory} to read the type discriminator and
+ * then bind the rest of the object using the adapter of the concrete class, without reading the object into a tree.
+ *
+ * @param <T>
+ */
+public interface StreamBinder<T> {
+
+    /**
+     * Reads fields of the object that are handled by the caller, for instance node children.
+     *
+     */
+    public interface FieldHandler {
+        /**
+         * Called for each field before it is bound, if the handler reads the value it is not bound.
+         *
+         * @param name Serialized name of the field
+         * @param in Reader positioned at the value
+         * @return True if the value was read by the handler, false to bind the value.
+         * @throws IOException
+         */
+        public boolean read(String name, JsonReader in) throws IOException;
+    }
+
+    /**
+     * Creates the object and reads the remaining fields from the stream, up to and including the end of the object.
+     *
+     * @param in Reader positioned after begin of object, or after the value of a field
+     * @param discriminatorName Serialized name of the discriminator field that has been read, or null
+     * @param discriminator Value of the discriminator field, set in the object as if read from the stream
+     * @param handler Optional handler for fields that are read by the caller, or null
+     * @return The object
+     * @throws IOException
+     */
+    public T readRemaining(JsonReader in, String discriminatorName, String discriminator, FieldHandler handler)
+            throws IOException;
+
+}
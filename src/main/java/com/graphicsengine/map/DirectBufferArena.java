@@ -0,0 +1,189 @@
+package com.graphicsengine.map;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+import com.nucleus.SimpleLogger;
+
+/**
+ * Pool of direct buffers, bucketed by power of two size classes, so that direct buffers can be reused instead of
+ * allocated each time, for instance when a level is reloaded.
+ * Buffers are allocated using {@link #allocate(int)} and returned using {@link #release(ByteBuffer)}, a released
+ * buffer must not be used.
+ * Buffers are in native order, capacity is rounded up to the size class and limit is set to the requested size.
+ * Released buffers are kept until pooled bytes reaches max pooled bytes.
+ *
+ */
+public class DirectBufferArena {
+
+    /**
+     * Default max number of bytes kept in the pool
+     */
+    public static final long DEFAULT_MAX_POOLED = 32 * 1024 * 1024;
+    /**
+     * Smallest size class, buffers are at least 1 << MIN_CLASS bytes
+     */
+    public static final int MIN_CLASS = 6;
+    private static final int CLASS_COUNT = 31;
+
+    private static DirectBufferArena instance;
+
+    private final ArrayDeque<ByteBuffer>[] pools;
+    private long maxPooledBytes;
+    private long liveBytes;
+    private long pooledBytes;
+    private long allocatedBytes;
+    private int allocations;
+    private int reuses;
+    private long statsStart = System.currentTimeMillis();
+
+    /**
+     * Creates a new arena
+     *
+     * @param maxPooledBytes Max number of bytes kept in the pool
+     */
+    public DirectBufferArena(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        pools = new ArrayDeque[CLASS_COUNT];
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            pools[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Returns the shared arena, created with {@link #DEFAULT_MAX_POOLED}
+     *
+     * @return
+     */
+    public static synchronized DirectBufferArena getInstance() {
+        if (instance == null) {
+            instance = new DirectBufferArena(DEFAULT_MAX_POOLED);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns a direct buffer with at least size bytes, the buffer is cleared to 0 and limit is set to size.
+     *
+     * @param size Number of bytes
+     * @return
+     * @throws IllegalArgumentException If size is negative or too large
+     */
+    public synchronized ByteBuffer allocate(int size) {
+        int sizeClass = getSizeClass(size);
+        ByteBuffer buffer = pools[sizeClass].poll();
+        if (buffer != null) {
+            pooledBytes -= buffer.capacity();
+            reuses++;
+            buffer.clear();
+            while (buffer.remaining() >= 8) {
+                buffer.putLong(0);
+            }
+            while (buffer.hasRemaining()) {
+                buffer.put((byte) 0);
+            }
+            buffer.clear();
+        } else {
+            buffer = ByteBuffer.allocateDirect(1 << sizeClass).order(ByteOrder.nativeOrder());
+            allocations++;
+            allocatedBytes += buffer.capacity();
+        }
+        liveBytes += buffer.capacity();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the arena, the buffer must have been allocated using {@link #allocate(int)} and shall
+     * not be used after it is released.
+     *
+     * @param buffer
+     */
+    public synchronized void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        liveBytes -= capacity;
+        if (pooledBytes + capacity <= maxPooledBytes) {
+            pools[getSizeClass(capacity)].push(buffer);
+            pooledBytes += capacity;
+        }
+    }
+
+    /**
+     * Returns the size class for a number of bytes, ie the exponent of the power of two size
+     */
+    private int getSizeClass(int size) {
+        if (size < 0 || size > 1 << (CLASS_COUNT - 1)) {
+            throw new IllegalArgumentException("Invalid size " + size);
+        }
+        int sizeClass = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1);
+        return Math.max(MIN_CLASS, sizeClass);
+    }
+
+    /**
+     * Removes all pooled buffers
+     */
+    public synchronized void trim() {
+        for (ArrayDeque<ByteBuffer> pool : pools) {
+            pool.clear();
+        }
+        pooledBytes = 0;
+    }
+
+    /**
+     * Returns the number of bytes in allocated buffers that have not been released
+     *
+     * @return
+     */
+    public synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Returns the number of bytes in released buffers kept in the pool
+     *
+     * @return
+     */
+    public synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    /**
+     * Returns the number of bytes in new direct buffers, since creation or {@link #resetStats()}
+     *
+     * @return
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the number of bytes per second in new direct buffers, since creation or {@link #resetStats()}
+     *
+     * @return
+     */
+    public synchronized float getAllocationRate() {
+        long millis = Math.max(1, System.currentTimeMillis() - statsStart);
+        return allocatedBytes * 1000f / millis;
+    }
+
+    /**
+     * Resets allocated bytes, allocation and reuse count
+     */
+    public synchronized void resetStats() {
+        allocatedBytes = 0;
+        allocations = 0;
+        reuses = 0;
+        statsStart = System.currentTimeMillis();
+    }
+
+    /**
+     * Logs live, pooled and allocated bytes
+     */
+    public synchronized void logStats() {
+        SimpleLogger.d(getClass(), "Live bytes: " + liveBytes + ", pooled bytes: " + pooledBytes
+                + ", allocated bytes: " + allocatedBytes + " in " + allocations + " buffers, reused " + reuses
+                + " buffers, allocation rate: " + (int) getAllocationRate() + " bytes/s");
+    }
+
+}
@@ -9,7 +9,6 @@ import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 
 import com.nucleus.SimpleLogger;
-import com.nucleus.common.BufferUtils;
 import com.nucleus.io.BaseReference;
 import com.nucleus.types.DataType;
 import com.nucleus.vecmath.Axis;
@@ -75,6 +74,7 @@ public class Map extends BaseReference implements Serializable {
          */
         private DataType format;
         private FloatBuffer color;
+        private transient ByteBuffer colorBytes;
 
         /**
          * Creates a new color for map
@@ -97,7 +97,8 @@ public class Map extends BaseReference implements Serializable {
         }
 
         private void createBuffer() {
-            color = BufferUtils.createFloatBuffer(length);
+            colorBytes = DirectBufferArena.getInstance().allocate(length * 4);
+            color = colorBytes.asFloatBuffer();
             SimpleLogger.d(getClass(), "Created emissive buffer with " + length + " floats");
         }
 
@@ -195,6 +196,17 @@ public class Map extends BaseReference implements Serializable {
             return color;
         }
 
+        /**
+         * Releases the color buffer to the {@link DirectBufferArena}, the color shall not be used after this call.
+         */
+        public void destroy() {
+            if (colorBytes != null) {
+                DirectBufferArena.getInstance().release(colorBytes);
+                colorBytes = null;
+                color = null;
+            }
+        }
+
         private void writeObject(ObjectOutputStream out) throws IOException {
             SimpleLogger.d(getClass(), "writeObject()");
             out.writeByte(VERSION_1);
@@ -234,6 +246,10 @@ public class Map extends BaseReference implements Serializable {
      * The map data
      */
     private IntBuffer mapBuffer;
+    /**
+     * The buffer backing mapBuffer, allocated from {@link DirectBufferArena}
+     */
+    private transient ByteBuffer mapBytes;
 
     private ByteBuffer flags;
 
@@ -266,8 +282,30 @@ public class Map extends BaseReference implements Serializable {
      * @param height
      */
     private void createBuffers(int width, int height) {
-        mapBuffer = BufferUtils.createIntBuffer(width * height);
-        flags = BufferUtils.createByteBuffer(width * height);
+        DirectBufferArena arena = DirectBufferArena.getInstance();
+        mapBytes = arena.allocate(width * height * 4);
+        mapBuffer = mapBytes.asIntBuffer();
+        flags = arena.allocate(width * height);
+    }
+
+    /**
+     * Releases the buffers of this map to the {@link DirectBufferArena}, the map shall not be used after this call.
+     */
+    public void destroy() {
+        DirectBufferArena arena = DirectBufferArena.getInstance();
+        if (mapBytes != null) {
+            arena.release(mapBytes);
+            mapBytes = null;
+            mapBuffer = null;
+        }
+        if (flags != null) {
+            arena.release(flags);
+            flags = null;
+        }
+        if (emissive != null) {
+            emissive.destroy();
+            emissive = null;
+        }
     }
 
     /**
@@ -281,6 +319,9 @@ public class Map extends BaseReference implements Serializable {
         if (mapSize == null || mapSize[0] <= 0 || mapSize[1] <= 0) {
             throw new IllegalArgumentException("Map does not have valid size");
         }
+        if (emissive != null) {
+            emissive.destroy();
+        }
         emissive = new MapColor(mapSize[0], mapSize[1], mode, format);
     }
 
@@ -421,6 +462,25 @@ public class Map extends BaseReference implements Serializable {
         return mapSize != null ? mapSize[0] : 0;
     }
 
+    /**
+     * Returns the number of bytes in the (direct) buffers of this map, map, flags and emissive
+     * 
+     * @return
+     */
+    public long getBufferBytes() {
+        long bytes = 0;
+        if (mapBuffer != null) {
+            bytes += mapBuffer.capacity() * 4L;
+        }
+        if (flags != null) {
+            bytes += flags.capacity();
+        }
+        if (emissive != null && emissive.getColor() != null) {
+            bytes += emissive.getColor().capacity() * 4L;
+        }
+        return bytes;
+    }
+
     /**
      * Copies data from the source to the mapbuffer, this will copy map char data from the source into this map.
      * 
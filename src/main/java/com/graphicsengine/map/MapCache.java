@@ -0,0 +1,227 @@
+package com.graphicsengine.map;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import com.nucleus.SimpleLogger;
+import com.nucleus.io.ExternalReference;
+
+/**
+ * Cache for maps loaded from an {@link ExternalReference}, keyed on the source of the reference, so that nodes
+ * referencing the same map, or a scene that is reloaded, share one map instead of loading it again.
+ * Maps are reference counted using {@link #acquire(ExternalReference)} and {@link #release(ExternalReference)}.
+ * Maps that are not referenced are kept until the bytes held by unreferenced maps exceeds the budget, least
+ * recently used maps are evicted first. Maps that are referenced do not count against the budget.
+ * Evicted maps are destroyed, which returns their direct buffers to the {@link DirectBufferArena} where they are
+ * reused by maps that are loaded later.
+ * Maps returned by the cache are shared, do not use the cache for maps that are changed.
+ *
+ */
+public class MapCache {
+
+    /**
+     * Default budget, in bytes, for maps that are not referenced
+     */
+    public static final long DEFAULT_BUDGET = 16 * 1024 * 1024;
+
+    private static MapCache instance;
+
+    private static class Entry {
+        private Map map;
+        private int refCount;
+        private long bytes;
+    }
+
+    /**
+     * Entries in access order, first entry is least recently used
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long budget;
+    private long heldBytes;
+    /**
+     * Bytes held by maps that are not referenced, this is what the budget applies to
+     */
+    private long unreferencedBytes;
+    private int hits;
+    private int misses;
+
+    /**
+     * Creates a new map cache
+     *
+     * @param budget Max number of bytes held by maps that are not referenced
+     */
+    public MapCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the shared map cache, created with default budget.
+     *
+     * @return
+     */
+    public static synchronized MapCache getInstance() {
+        if (instance == null) {
+            instance = new MapCache(DEFAULT_BUDGET);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the map for the reference and increases the reference count, the map is loaded if not in the cache.
+     * Call {@link #release(ExternalReference)} when the map is not used anymore.
+     *
+     * @param ref
+     * @return The map
+     * @throws IOException If the map could not be loaded
+     * @throws ClassNotFoundException If the map could not be loaded
+     */
+    public Map acquire(ExternalReference ref) throws IOException, ClassNotFoundException {
+        String source = ref.getSource();
+        synchronized (this) {
+            Map map = get(source);
+            if (map != null) {
+                hits++;
+                return map;
+            }
+            misses++;
+        }
+        Map loaded = MapFactory.createMap(ref);
+        synchronized (this) {
+            // Another thread may have loaded the same map
+            Map map = get(source);
+            if (map != null) {
+                loaded.destroy();
+                return map;
+            }
+            Entry entry = new Entry();
+            entry.map = loaded;
+            entry.refCount = 1;
+            entry.bytes = loaded.getBufferBytes();
+            entries.put(source, entry);
+            heldBytes += entry.bytes;
+            return loaded;
+        }
+    }
+
+    /**
+     * Returns the map from the entry and increases reference count, or null if not found.
+     */
+    private Map get(String source) {
+        Entry entry = entries.get(source);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.refCount == 0) {
+            unreferencedBytes -= entry.bytes;
+        }
+        entry.refCount++;
+        return entry.map;
+    }
+
+    /**
+     * Decreases the reference count of the map, when it reaches 0 the map may be evicted.
+     *
+     * @param ref
+     * @throws IllegalArgumentException If the map is not referenced
+     */
+    public synchronized void release(ExternalReference ref) {
+        Entry entry = entries.get(ref.getSource());
+        if (entry == null || entry.refCount <= 0) {
+            throw new IllegalArgumentException("Map is not referenced: " + ref.getSource());
+        }
+        entry.refCount--;
+        if (entry.refCount == 0) {
+            unreferencedBytes += entry.bytes;
+            evict();
+        }
+    }
+
+    /**
+     * Evicts least recently used maps that are not referenced, until bytes of unreferenced maps are within budget
+     */
+    private void evict() {
+        Iterator<java.util.Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (unreferencedBytes > budget && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.refCount == 0) {
+                heldBytes -= entry.bytes;
+                unreferencedBytes -= entry.bytes;
+                entry.map.destroy();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Sets the budget for maps that are not referenced, maps are evicted if needed
+     *
+     * @param budget Max bytes
+     */
+    public synchronized void setBudget(long budget) {
+        this.budget = budget;
+        evict();
+    }
+
+    /**
+     * Removes and destroys all maps that are not referenced
+     */
+    public synchronized void clear() {
+        Iterator<java.util.Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.refCount == 0) {
+                heldBytes -= entry.bytes;
+                unreferencedBytes -= entry.bytes;
+                entry.map.destroy();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes in direct buffers held by maps in the cache, referenced or not.
+     *
+     * @return
+     */
+    public synchronized long getHeldBytes() {
+        return heldBytes;
+    }
+
+    /**
+     * Returns the number of bytes in direct buffers held by maps that are not referenced, this is the value that is
+     * kept within the budget.
+     *
+     * @return
+     */
+    public synchronized long getUnreferencedBytes() {
+        return unreferencedBytes;
+    }
+
+    /**
+     * Returns the number of acquired maps that were found in the cache
+     *
+     * @return
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of acquired maps that were loaded
+     *
+     * @return
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Logs hits, misses and held bytes
+     */
+    public synchronized void logStats() {
+        SimpleLogger.d(getClass(), "Map cache hits: " + hits + ", misses: " + misses + ", maps: " + entries.size()
+                + ", held bytes: " + heldBytes + ", unreferenced bytes: " + unreferencedBytes);
+    }
+
+}
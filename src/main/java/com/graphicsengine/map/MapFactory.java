@@ -1,6 +1,7 @@
 package com.graphicsengine.map;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 
 import com.graphicsengine.map.Map.Mode;
@@ -39,7 +40,17 @@ public class MapFactory {
      * @return
      */
     public static Map createMap(ExternalReference externalRef) throws IOException, ClassNotFoundException {
-        ObjectInputStream in = new ObjectInputStream(externalRef.getAsStream());
+        return createMap(externalRef.getAsStream());
+    }
+
+    /**
+     * Load a map from a stream, the stream is closed.
+     * 
+     * @param stream
+     * @return
+     */
+    public static Map createMap(InputStream stream) throws IOException, ClassNotFoundException {
+        ObjectInputStream in = new ObjectInputStream(stream);
         try {
             long start = System.currentTimeMillis();
             Map map = (Map) in.readObject();
@@ -271,28 +271,46 @@ public class PlayfieldMesh extends SpriteMesh {
      * @param source Map data will be copied from this
      */
     public void copyCharmap(VariableIndexer mapper, Map source) {
+        int height = getCharmapRows(source);
+        for (int y = 0; y < height; y++) {
+            copyCharmapRow(mapper, source, y);
+        }
+    }
+
+    /**
+     * Returns the number of rows that are copied from the source map, this is the smallest of the source and
+     * playfield height.
+     * 
+     * @param source
+     * @return Number of rows, 0 if source is null or does not have a size
+     */
+    public int getCharmapRows(Map source) {
         if (source == null || source.getMapSize() == null) {
-            return;
+            return 0;
         }
+        return Math.min(playfieldSize[Axis.HEIGHT.index], source.getMapSize()[Axis.HEIGHT.index]);
+    }
+
+    /**
+     * Copies one row from the source map into this class, adjusting to different width of source and destination.
+     * Use this to spread the copy of a map over several frames.
+     * 
+     * @param mapper The attribute property mapper
+     * @param source Map data will be copied from this
+     * @param row The row to copy, 0 to {@link #getCharmapRows(Map)} - 1
+     */
+    public void copyCharmapRow(VariableIndexer mapper, Map source, int row) {
         this.map = source;
         int[] sourceSize = source.getMapSize();
-
-        int height = Math.min(playfieldSize[Axis.HEIGHT.index], sourceSize[Axis.HEIGHT.index]);
         int width = Math.min(playfieldSize[Axis.WIDTH.index], sourceSize[Axis.WIDTH.index]);
         MapColor emissive = source.getEmissive();
         if (emissive != null) {
-            for (int y = 0; y < height; y++) {
-                copyCharmap(mapper, source.getMap(), source.getFlags(), emissive,
-                        y * sourceSize[Axis.WIDTH.index], y * playfieldSize[Axis.WIDTH.index], width);
-            }
+            copyCharmap(mapper, source.getMap(), source.getFlags(), emissive,
+                    row * sourceSize[Axis.WIDTH.index], row * playfieldSize[Axis.WIDTH.index], width);
         } else {
-            for (int y = 0; y < height; y++) {
-                copyCharmap(mapper, source.getMap(), source.getFlags(),
-                        y * sourceSize[Axis.WIDTH.index], y * playfieldSize[Axis.WIDTH.index], width);
-            }
-
+            copyCharmap(mapper, source.getMap(), source.getFlags(),
+                    row * sourceSize[Axis.WIDTH.index], row * playfieldSize[Axis.WIDTH.index], width);
         }
-
     }
 
     /**
@@ -1,9 +1,18 @@
 package com.graphicsengine.map;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.google.gson.annotations.SerializedName;
+import com.graphicsengine.io.AssetPreloader;
+import com.graphicsengine.io.gson.FieldBinder;
 import com.graphicsengine.scene.GraphicsEngineNodeType;
+import com.graphicsengine.scene.NodeHandle;
+import com.graphicsengine.scene.NodeIndex;
 import com.nucleus.BackendException;
 import com.nucleus.SimpleLogger;
 import com.nucleus.geometry.Mesh;
@@ -19,6 +28,7 @@ import com.nucleus.scene.AbstractMeshNode;
 import com.nucleus.scene.LineDrawerNode;
 import com.nucleus.scene.Node;
 import com.nucleus.scene.NodeException;
+import com.nucleus.scene.RenderableNode;
 import com.nucleus.scene.RootNode;
 import com.nucleus.ui.Button;
 import com.nucleus.ui.Toggle;
@@ -40,6 +50,7 @@ public class PlayfieldNode extends AbstractMeshNode<Mesh> {
     public class PlayfieldNodeObjectInputListener implements UIElementInput {
 
         float[] rectangle = new float[4];
+        NodeHandle<LineDrawerNode> lines;
         float[] rgba = new float[] { 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1 };
         EventConfiguration config = new EventConfiguration();
 
@@ -69,9 +80,12 @@ public class PlayfieldNode extends AbstractMeshNode<Mesh> {
             rectangle[1] = down[1];
             rectangle[2] = current[0] - down[0];
             rectangle[3] = down[1] - current[1];
-            LineDrawerNode lines = getRootNode().getNodeById("lines", LineDrawerNode.class);
-            if (lines != null) {
-                lines.setRectangle(0, rectangle, 0f, rgba);
+            if (lines == null) {
+                lines = NodeIndex.getIndex(getRootNode()).getHandle("lines", LineDrawerNode.class);
+            }
+            LineDrawerNode linesNode = lines.get();
+            if (linesNode != null) {
+                linesNode.setRectangle(0, rectangle, 0f, rgba);
             }
             return true;
         }
@@ -101,11 +115,63 @@ public class PlayfieldNode extends AbstractMeshNode<Mesh> {
 
     public static final String MAPREF = "mapRef";
     public static final String ANCHOR = "anchor";
+    /**
+     * Default time, in nanos, used each frame to copy map rows after {@link #createMapAsync(ExecutorService)}
+     */
+    public static final long DEFAULT_UPLOAD_BUDGET = 2000000;
 
     public enum Anchor {
         CENTER_XY();
     }
 
+    /**
+     * Loads a map on an executor, the loaded map is owned either by the node or, if the load is released before
+     * the map is loaded, by the task that then destroys the map.
+     *
+     */
+    private static class MapLoad implements Callable<Map> {
+
+        private final ExternalReference ref;
+        /**
+         * Set by the first of the task, when the map is loaded, and {@link #release()}
+         */
+        private final AtomicBoolean handedOver = new AtomicBoolean();
+        private Future<Map> future;
+
+        private MapLoad(ExternalReference ref) {
+            this.ref = ref;
+        }
+
+        @Override
+        public Map call() throws Exception {
+            Map loaded = MapFactory.createMap(ref);
+            if (!handedOver.compareAndSet(false, true)) {
+                // Released while loading, the map is not used by anyone
+                loaded.destroy();
+            }
+            return loaded;
+        }
+
+        /**
+         * Releases the map, if the map is loaded it is destroyed otherwise the task is cancelled and the map is
+         * destroyed by the task if it completes.
+         */
+        private void release() {
+            if (handedOver.compareAndSet(false, true)) {
+                future.cancel(true);
+                return;
+            }
+            // The map is loaded, wait for the task to return it
+            try {
+                future.get().destroy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Map was not loaded
+            }
+        }
+    }
+
     /**
      * Reference to map data
      */
@@ -135,6 +201,45 @@ public class PlayfieldNode extends AbstractMeshNode<Mesh> {
      * The map used by this controller.
      */
     transient private Map map;
+    /**
+     * Map that is loaded by {@link #createMapAsync(ExecutorService)}
+     */
+    transient private MapLoad pendingMap;
+    /**
+     * The cache the map is acquired from, or null if map is not shared
+     */
+    transient private MapCache mapCache;
+    /**
+     * Map that is copied to the mesh, rows are copied in the order of uploadRows
+     */
+    transient private Map uploadMap;
+    transient private int[] uploadRows;
+    transient private int uploadIndex;
+
+    /**
+     * Binds the serialized fields declared by this class, see
+     * {@link com.graphicsengine.io.gson.BinderTypeAdapterFactory}
+     */
+    public static final FieldBinder<PlayfieldNode> FIELD_BINDER = new FieldBinder<PlayfieldNode>(
+            new String[] { MAPREF, Map.MAPSIZE, ANCHOR, Rectangle.RECT },
+            new Class<?>[] { ExternalReference.class, int[].class, Anchor.class, Rectangle.class }) {
+        @Override
+        public void setObject(PlayfieldNode target, int field, Object value) {
+            switch (field) {
+                case 0:
+                    target.mapRef = (ExternalReference) value;
+                    break;
+                case 1:
+                    target.mapSize = (int[]) value;
+                    break;
+                case 2:
+                    target.anchor = (Anchor) value;
+                    break;
+                default:
+                    target.rectangle = (Rectangle) value;
+            }
+        }
+    };
 
     /**
      * Used by GSON and {@link #createInstance(RootNode)} method - do NOT call directly
@@ -197,16 +302,206 @@ public class PlayfieldNode extends AbstractMeshNode<Mesh> {
      * @throws NodeException If referenced map can not be loaded.
      */
     public void createMap() throws NodeException {
+        releaseMap();
         try {
-            map = MapFactory.createMap(mapRef);
-            PlayfieldMesh playfield = (PlayfieldMesh) getMesh(MeshIndex.MAIN);
-            if (map.getMap() != null && map.getMapSize() != null) {
-                playfield.copyCharmap(getProgram().getFunction().getIndexer(), map);
-            }
+            setMap(MapFactory.createMap(mapRef));
+        } catch (IOException | ClassNotFoundException e) {
+            throw new NodeException(e);
+        }
+
+    }
+
+    /**
+     * Sets the map in this node using the map loaded by the preloader, if the map has not been preloaded it is
+     * loaded as in {@link #createMap()}
+     * 
+     * @param preloader
+     * @throws NodeException If the map could not be loaded
+     */
+    public void createMap(AssetPreloader preloader) throws NodeException {
+        releaseMap();
+        Map preloaded;
+        try {
+            preloaded = preloader.getMap(this);
+        } catch (IOException e) {
+            throw new NodeException(e);
+        }
+        if (preloaded == null) {
+            createMap();
+        } else {
+            setMap(preloaded);
+        }
+    }
+
+    /**
+     * Sets the map in this node using a map shared through the cache, the map is loaded if not in the cache.
+     * Call {@link #releaseMap()} when the node is not used anymore.
+     * The map is shared with other nodes using the same reference, do not change the map data.
+     * 
+     * @param cache
+     * @throws NodeException If the map could not be loaded
+     */
+    public void createMap(MapCache cache) throws NodeException {
+        releaseMap();
+        try {
+            setMap(cache.acquire(mapRef));
+            mapCache = cache;
         } catch (IOException | ClassNotFoundException e) {
             throw new NodeException(e);
         }
+    }
+
+    /**
+     * Releases the map, if it was acquired using {@link #createMap(MapCache)} it is released to the cache,
+     * otherwise the map buffers are released.
+     * A map that is loaded, or copied to the mesh, after {@link #createMapAsync(ExecutorService)} is released and
+     * the upload is stopped.
+     */
+    public void releaseMap() {
+        if (pendingMap != null) {
+            pendingMap.release();
+            pendingMap = null;
+        }
+        uploadMap = null;
+        uploadRows = null;
+        if (mapCache != null) {
+            mapCache.release(mapRef);
+            mapCache = null;
+        } else if (map != null) {
+            map.destroy();
+        }
+        map = null;
+    }
 
+    /**
+     * Loads the referenced map on the executor, the map is copied to the mesh by calling
+     * {@link #updateMapUpload(long)} once every frame on the render thread until it returns true.
+     * Rows are copied over several frames, visible rows first. The current map is released, as by
+     * {@link #releaseMap()}.
+     * 
+     * @param executor
+     * @return Future for the loaded map
+     */
+    public Future<Map> createMapAsync(ExecutorService executor) {
+        final ExternalReference ref = mapRef;
+        releaseMap();
+        MapLoad load = new MapLoad(ref);
+        load.future = executor.submit(load);
+        pendingMap = load;
+        return load.future;
+    }
+
+    /**
+     * Copies rows of the map loaded by {@link #createMapAsync(ExecutorService)} to the mesh, until all rows are
+     * copied or the time budget is used. At least one row is copied each call once the map is loaded.
+     * Call this once every frame on the render thread.
+     * 
+     * @param budget Max time to use, in nanos, for instance {@link #DEFAULT_UPLOAD_BUDGET}
+     * @return True if the map is copied, or there is no pending map, false if there are rows left to copy
+     * @throws NodeException If the map could not be loaded
+     */
+    public boolean updateMapUpload(long budget) throws NodeException {
+        if (pendingMap != null) {
+            if (!pendingMap.future.isDone()) {
+                return false;
+            }
+            Map loaded;
+            try {
+                loaded = pendingMap.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                pendingMap = null;
+                throw new NodeException(e);
+            }
+            pendingMap = null;
+            startUpload(loaded);
+        }
+        if (uploadMap == null) {
+            return true;
+        }
+        long start = System.nanoTime();
+        PlayfieldMesh playfield = (PlayfieldMesh) getMesh(MeshIndex.MAIN);
+        do {
+            playfield.copyCharmapRow(getProgram().getFunction().getIndexer(), uploadMap, uploadRows[uploadIndex++]);
+        } while (uploadIndex < uploadRows.length && System.nanoTime() - start < budget);
+        if (uploadIndex < uploadRows.length) {
+            return false;
+        }
+        SimpleLogger.d(getClass(), "Copied " + uploadRows.length + " map rows for " + getId());
+        uploadMap = null;
+        uploadRows = null;
+        return true;
+    }
+
+    /**
+     * Sets the loaded map and creates the order that rows are copied in, rows within the view first followed by
+     * rows in order of distance to the view.
+     */
+    private void startUpload(Map loaded) {
+        releaseMap();
+        map = loaded;
+        if (loaded.getMap() == null || loaded.getMapSize() == null) {
+            return;
+        }
+        int rows = ((PlayfieldMesh) getMesh(MeshIndex.MAIN)).getCharmapRows(loaded);
+        if (rows == 0) {
+            return;
+        }
+        int[] visible = new int[] { 0, rows - 1 };
+        getVisibleRows(visible, rows);
+        uploadRows = new int[rows];
+        int index = 0;
+        for (int row = visible[0]; row <= visible[1]; row++) {
+            uploadRows[index++] = row;
+        }
+        for (int distance = 1; index < rows; distance++) {
+            if (visible[1] + distance < rows) {
+                uploadRows[index++] = visible[1] + distance;
+            }
+            if (visible[0] - distance >= 0) {
+                uploadRows[index++] = visible[0] - distance;
+            }
+        }
+        uploadIndex = 0;
+        uploadMap = loaded;
+    }
+
+    /**
+     * Fetches the first and last map row within the view, if there is no view the range is not changed.
+     * 
+     * @param range First and last row, clamped to 0 - rows - 1
+     */
+    private void getVisibleRows(int[] range, int rows) {
+        RenderableNode<?> view = getViewFrustum() != null ? this : getParentView();
+        float[] inverse = new float[16];
+        if (view == null || !Matrix.invertM(inverse, 0, getModelMatrix(), 0)) {
+            return;
+        }
+        float[] frustum = view.getViewFrustum().getValues();
+        // Frustum values are left, right, bottom, top
+        float[] corners = new float[] { frustum[0], frustum[3], frustum[1], frustum[2] };
+        float[] result = new float[4];
+        Matrix.transformVec2(inverse, 0, corners, result, 2);
+        float top = Math.max(result[1], result[3]);
+        float bottom = Math.min(result[1], result[3]);
+        float offsetY = getAnchorOffset()[1];
+        float charHeight = rectangle.getSize()[1];
+        int first = (int) Math.floor((offsetY - top) / charHeight);
+        int last = (int) Math.floor((offsetY - bottom) / charHeight);
+        first = Math.max(0, Math.min(rows - 1, first));
+        last = Math.max(first, Math.min(rows - 1, last));
+        range[0] = first;
+        range[1] = last;
+    }
+
+    private void setMap(Map map) {
+        this.map = map;
+        PlayfieldMesh playfield = (PlayfieldMesh) getMesh(MeshIndex.MAIN);
+        if (map.getMap() != null && map.getMapSize() != null) {
+            playfield.copyCharmap(getProgram().getFunction().getIndexer(), map);
+        }
     }
 
     /**
@@ -285,13 +580,14 @@ public class PlayfieldNode extends AbstractMeshNode<Mesh> {
     }
 
     /**
-     * Sets the mapsize from the source values, internal method.
+     * Sets the mapsize, internal method.
      * This will not create storage for map.
+     * The size is not changed after the node is created, it is shared with the source node.
      * 
      * @param mapSize
      */
     private void setMapSize(int[] mapSize) {
-        System.arraycopy(mapSize, 0, this.mapSize, 0, 2);
+        this.mapSize = mapSize;
     }
 
     /**
@@ -304,13 +600,13 @@ public class PlayfieldNode extends AbstractMeshNode<Mesh> {
     }
 
     /**
-     * Sets the rectangle defining each char
+     * Sets the rectangle defining each char, the rectangle is not changed after the node is created and is shared
+     * with the source node.
      * 
      * @param rectangle defining each char
      */
     private void setCharRectangle(Rectangle rectangle) {
-        this.rectangle = new Rectangle(rectangle);
-
+        this.rectangle = rectangle;
     }
 
     /**
@@ -344,6 +640,23 @@ public class PlayfieldNode extends AbstractMeshNode<Mesh> {
         return null;
     }
 
+    @Override
+    public void onCreated() {
+        super.onCreated();
+        NodeIndex.register(this);
+    }
+
+    /**
+     * Releases the map, as by {@link #releaseMap()}, so that map buffers are returned when the node is unloaded,
+     * and removes the node from the {@link NodeIndex}
+     */
+    @Override
+    public void destroy(NucleusRenderer renderer) {
+        releaseMap();
+        NodeIndex.unregister(this);
+        super.destroy(renderer);
+    }
+
     @Override
     public void createTransient() {
         // TODO Auto-generated method stub
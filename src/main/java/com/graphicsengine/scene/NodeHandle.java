@@ -0,0 +1,54 @@
+package com.graphicsengine.scene;
+
+import java.lang.ref.WeakReference;
+
+import com.nucleus.scene.Node;
+
+/**
+ * Handle to a node in a {@link NodeIndex}, the node is resolved once and kept until the index is changed.
+ * Use this to lookup nodes every frame, for instance in input listeners.
+ * The node is held weakly, the handle does not keep a removed node from being garbage collected.
+ *
+ * @param <T> Type of node
+ */
+public class NodeHandle<T extends Node> {
+
+    private final NodeIndex index;
+    private final String id;
+    private final Class<T> type;
+    private WeakReference<T> node;
+    private int version = -1;
+
+    protected NodeHandle(NodeIndex index, String id, Class<T> type) {
+        this.index = index;
+        this.id = id;
+        this.type = type;
+    }
+
+    /**
+     * Returns the node, or null if there is no node with the id and type.
+     * A node that is not found is searched for again when the index is changed.
+     *
+     * @return
+     */
+    public T get() {
+        int current = index.getVersion();
+        T result = node != null ? node.get() : null;
+        if (version != current || (node != null && result == null)) {
+            result = index.get(id, type);
+            node = result != null ? new WeakReference<>(result) : null;
+            version = current;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the id of the node
+     *
+     * @return
+     */
+    public String getId() {
+        return id;
+    }
+
+}
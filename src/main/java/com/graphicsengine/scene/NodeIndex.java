@@ -0,0 +1,180 @@
+package com.graphicsengine.scene;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+import com.nucleus.scene.Node;
+import com.nucleus.scene.RootNode;
+
+/**
+ * Index of nodes by id for one root node, used to lookup nodes without searching the node tree.
+ * Graphics engine nodes add themselves when created, other nodes are added the first time they are found by
+ * {@link #get(String, Class)}.
+ * Nodes that are removed from the tree, or moved to another root, must be removed using {@link #remove(Node)} since
+ * the node tree does not notify the index. Graphics engine nodes remove themselves when destroyed.
+ * An id that is not found is not searched for again until the index is changed, nodes that are added to the tree
+ * after a lookup of the id must be added using {@link #register(Node)} to be found.
+ * Use {@link #getHandle(String, Class)} to get a handle that can be kept across frames.
+ * The index does not keep the root node, or the indexed nodes, from being garbage collected. Call
+ * {@link #destroy(RootNode)} when the root node is not used anymore to remove the index directly.
+ *
+ */
+public class NodeIndex {
+
+    /**
+     * The index of each root node, the index is removed when the root node is garbage collected.
+     * The index must not reference the root node strongly, nodes reference their root so they are held weakly.
+     */
+    private static final WeakHashMap<RootNode, NodeIndex> indexes = new WeakHashMap<>();
+
+    private final WeakReference<RootNode> root;
+    private final HashMap<String, WeakReference<Node>> nodes = new HashMap<>();
+    /**
+     * Ids that were not found in the tree and the version when searched
+     */
+    private final HashMap<String, Integer> misses = new HashMap<>();
+    /**
+     * Incremented when a node is removed or replaced, or added with an id that was not found, handles resolve the
+     * node again when this changes.
+     */
+    private int version;
+
+    private NodeIndex(RootNode root) {
+        this.root = new WeakReference<>(root);
+    }
+
+    /**
+     * Returns the index for the root node, creating it if needed
+     *
+     * @param root
+     * @return
+     */
+    public static synchronized NodeIndex getIndex(RootNode root) {
+        NodeIndex index = indexes.get(root);
+        if (index == null) {
+            index = new NodeIndex(root);
+            indexes.put(root, index);
+        }
+        return index;
+    }
+
+    /**
+     * Removes the index for the root node, call this when the root node is not used anymore.
+     * Handles from the index will not find any nodes after this call.
+     *
+     * @param root
+     */
+    public static synchronized void destroy(RootNode root) {
+        NodeIndex index = indexes.remove(root);
+        if (index != null) {
+            index.clear();
+        }
+    }
+
+    /**
+     * Adds the node to the index of its root node, nodes without id or root node are not added.
+     *
+     * @param node
+     */
+    public static void register(Node node) {
+        RootNode nodeRoot = node.getRootNode();
+        if (nodeRoot != null && node.getId() != null) {
+            getIndex(nodeRoot).add(node);
+        }
+    }
+
+    /**
+     * Removes the node from the index of its root node
+     *
+     * @param node
+     */
+    public static void unregister(Node node) {
+        RootNode nodeRoot = node.getRootNode();
+        if (nodeRoot != null && node.getId() != null) {
+            getIndex(nodeRoot).remove(node);
+        }
+    }
+
+    /**
+     * Adds the node to the index, if a node with the same id is already in the index it is replaced.
+     *
+     * @param node
+     */
+    public synchronized void add(Node node) {
+        WeakReference<Node> previous = nodes.put(node.getId(), new WeakReference<>(node));
+        if ((previous != null && previous.get() != node) || misses.remove(node.getId()) != null) {
+            version++;
+        }
+    }
+
+    /**
+     * Removes the node from the index, call this when the node is removed from the tree or moved to another root.
+     *
+     * @param node
+     */
+    public synchronized void remove(Node node) {
+        WeakReference<Node> ref = nodes.get(node.getId());
+        if (ref != null && ref.get() == node) {
+            nodes.remove(node.getId());
+            version++;
+        }
+    }
+
+    private synchronized void clear() {
+        nodes.clear();
+        misses.clear();
+        root.clear();
+        version++;
+    }
+
+    /**
+     * Returns the node with the id, if the node is not in the index the tree is searched and the found node is
+     * added to the index. If the node is not found the tree is not searched again for the id until the index is
+     * changed.
+     *
+     * @param id
+     * @param type
+     * @return The node or null if not found, not of the type or the root node is destroyed
+     */
+    public synchronized <T extends Node> T get(String id, Class<T> type) {
+        WeakReference<Node> ref = nodes.get(id);
+        Node node = ref != null ? ref.get() : null;
+        if (node == null) {
+            Integer missed = misses.get(id);
+            if (missed != null && missed == version) {
+                return null;
+            }
+            RootNode rootNode = root.get();
+            node = rootNode != null ? rootNode.getNodeById(id, type) : null;
+            if (node == null) {
+                misses.put(id, version);
+                return null;
+            }
+            misses.remove(id);
+            nodes.put(id, new WeakReference<>(node));
+        }
+        return type.isInstance(node) ? type.cast(node) : null;
+    }
+
+    /**
+     * Returns a handle for the node with the id, the handle caches the node until the index is changed.
+     *
+     * @param id
+     * @param type
+     * @return
+     */
+    public <T extends Node> NodeHandle<T> getHandle(String id, Class<T> type) {
+        return new NodeHandle<>(this, id, type);
+    }
+
+    /**
+     * Returns the change version of the index
+     *
+     * @return
+     */
+    synchronized int getVersion() {
+        return version;
+    }
+
+}
@@ -0,0 +1,330 @@
+package com.graphicsengine.scene;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.nucleus.SimpleLogger;
+import com.nucleus.scene.AbstractNode.MeshIndex;
+import com.nucleus.scene.Node;
+import com.nucleus.texturing.Texture2D;
+
+/**
+ * Merges compatible {@link QuadParentNode}s so that they are rendered using one draw call.
+ * Nodes are compatible if they use the same program, texture and material and have the same model matrix.
+ * The quads of compatible nodes are moved to the first node (the leader) of the batch, as long as the leader has
+ * free slots, the other nodes are then disabled by setting draw count to 0.
+ * Batching is normally done once after the scene is loaded, model matrices are compared at the time of batching so
+ * nodes shall not be moved independently after they are batched.
+ * The batching decision is made by {@link #group(BatchKey[], int[], int[])} and the quad data is merged by
+ * {@link #mergeQuadData(float[][], int[][], int[], int, float[], QuadSlots, int[])}, these do not need any nodes or
+ * renderer.
+ *
+ */
+public class QuadBatcher {
+
+    /**
+     * The values that must be equal for quad nodes to be batched
+     *
+     */
+    public static class BatchKey {
+
+        private final Object program;
+        private final Object texture;
+        private final Object material;
+        private final float[] matrix;
+
+        /**
+         * Creates a new key, matrix values are copied.
+         *
+         * @param program
+         * @param texture
+         * @param material
+         * @param matrix
+         */
+        public BatchKey(Object program, Object texture, Object material, float[] matrix) {
+            this.program = program;
+            this.texture = texture;
+            this.material = material;
+            this.matrix = matrix != null ? matrix.clone() : null;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey other = (BatchKey) obj;
+            return program == other.program && texture == other.texture && Objects.equals(material, other.material)
+                    && Arrays.equals(matrix, other.matrix);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(program), System.identityHashCode(texture),
+                    Arrays.hashCode(matrix));
+        }
+
+    }
+
+    /**
+     * A batch of quad nodes that are rendered by the leader
+     *
+     */
+    public static class Batch {
+
+        private final QuadParentNode leader;
+        private final ArrayList<QuadParentNode> members = new ArrayList<>();
+        private int[] slots;
+        private int[] offsets;
+
+        private Batch(QuadParentNode leader) {
+            this.leader = leader;
+        }
+
+        /**
+         * Returns the node that renders the batch
+         *
+         * @return
+         */
+        public QuadParentNode getLeader() {
+            return leader;
+        }
+
+        /**
+         * Returns the nodes that have their quads moved to the leader, not including the leader
+         *
+         * @return
+         */
+        public List<QuadParentNode> getMembers() {
+            return members;
+        }
+
+        /**
+         * Returns the slots in the leader of the quads moved from the members, the quads of each member start at the
+         * offset returned by {@link #getOffsets()}
+         *
+         * @return Slot of each moved quad, or null if the batch has not been merged
+         */
+        public int[] getSlots() {
+            return slots;
+        }
+
+        /**
+         * Returns the offset, in {@link #getSlots()}, of the first moved quad for each member
+         *
+         * @return Offset for each member, or null if the batch has not been merged
+         */
+        public int[] getOffsets() {
+            return offsets;
+        }
+
+    }
+
+    private int drawCallsBefore;
+    private int drawCallsAfter;
+
+    /**
+     * Creates the batch key for the quad node
+     *
+     * @param node
+     * @return
+     */
+    public static BatchKey createKey(QuadParentNode node) {
+        return new BatchKey(node.getProgram(), node.getMesh(MeshIndex.MAIN).getTexture(Texture2D.TEXTURE_0),
+                node.getMaterial(), node.getModelMatrix());
+    }
+
+    /**
+     * Adds all quad parent nodes in the node tree to the result
+     *
+     * @param node
+     * @param result
+     * @return The result list
+     */
+    public static List<QuadParentNode> collect(Node node, List<QuadParentNode> result) {
+        if (node instanceof QuadParentNode) {
+            result.add((QuadParentNode) node);
+        }
+        for (Node child : node.getChildren()) {
+            collect(child, result);
+        }
+        return result;
+    }
+
+    /**
+     * Groups nodes into batches, a node is added to the first batch with equal key where the leader has capacity
+     * for the quads of the node. If no batch is found the node becomes the leader of a new batch.
+     *
+     * @param keys The batch key of each node
+     * @param quadCounts Number of quads in each node
+     * @param capacities Max number of quads of each node
+     * @return The index of the leader node for each node, leaders have their own index.
+     */
+    public static int[] group(BatchKey[] keys, int[] quadCounts, int[] capacities) {
+        int[] leaders = new int[keys.length];
+        int[] used = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            leaders[i] = i;
+            used[i] = quadCounts[i];
+            for (int leader = 0; leader < i; leader++) {
+                if (leaders[leader] == leader && keys[leader].equals(keys[i])
+                        && used[leader] + quadCounts[i] <= capacities[leader]) {
+                    leaders[i] = leader;
+                    used[leader] += quadCounts[i];
+                    break;
+                }
+            }
+        }
+        return leaders;
+    }
+
+    /**
+     * Copies the quad data of the sources into the destination, a slot is allocated in the destination for each
+     * quad. The quads are stored in result in source order, the quads of each source start at the returned offset.
+     *
+     * @param sources Quad data of each source
+     * @param sourceSlots Slots of the quads to copy, for each source
+     * @param sourceCounts Number of quads to copy from each source
+     * @param size Number of values for each quad
+     * @param destination Destination quad data
+     * @param destinationSlots Slots of the destination
+     * @param result Destination slot of each copied quad
+     * @return The offset, in result, of the first quad of each source
+     * @throws IllegalArgumentException If the destination does not have free slots for all quads
+     */
+    public static int[] mergeQuadData(float[][] sources, int[][] sourceSlots, int[] sourceCounts, int size,
+            float[] destination, QuadSlots destinationSlots, int[] result) {
+        int total = 0;
+        for (int count : sourceCounts) {
+            total += count;
+        }
+        if (total > destinationSlots.getAvailable()) {
+            throw new IllegalArgumentException(
+                    "Destination has " + destinationSlots.getAvailable() + " free slots, needs " + total);
+        }
+        int[] offsets = new int[sources.length];
+        int index = 0;
+        for (int source = 0; source < sources.length; source++) {
+            offsets[source] = index;
+            for (int i = 0; i < sourceCounts[source]; i++) {
+                int slot = destinationSlots.allocate();
+                System.arraycopy(sources[source], sourceSlots[source][i] * size, destination, slot * size, size);
+                result[index++] = slot;
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Creates the batches for the nodes, no quads are moved.
+     *
+     * @param nodes
+     * @return List of batches, including batches with only a leader
+     */
+    public ArrayList<Batch> createBatches(List<QuadParentNode> nodes) {
+        int count = nodes.size();
+        BatchKey[] keys = new BatchKey[count];
+        int[] quadCounts = new int[count];
+        int[] capacities = new int[count];
+        for (int i = 0; i < count; i++) {
+            QuadParentNode node = nodes.get(i);
+            keys[i] = createKey(node);
+            quadCounts[i] = node.getQuadCount();
+            capacities[i] = node.getMaxQuads();
+        }
+        int[] leaders = group(keys, quadCounts, capacities);
+        ArrayList<Batch> batches = new ArrayList<>();
+        Batch[] nodeBatch = new Batch[count];
+        for (int i = 0; i < count; i++) {
+            if (leaders[i] == i) {
+                nodeBatch[i] = new Batch(nodes.get(i));
+                batches.add(nodeBatch[i]);
+            } else {
+                nodeBatch[leaders[i]].members.add(nodes.get(i));
+            }
+        }
+        return batches;
+    }
+
+    /**
+     * Moves the quads of the batch members to the leader and disables drawing of the members.
+     * The quad data is copied in one pass, then the quads are moved to the leader. After this call the slots of the
+     * moved quads are available in the batch.
+     *
+     * @param batch
+     */
+    public void merge(Batch batch) {
+        QuadParentNode leader = batch.getLeader();
+        List<QuadParentNode> members = batch.getMembers();
+        int count = members.size();
+        float[][] sources = new float[count][];
+        int[][] sourceSlots = new int[count][];
+        int[] sourceCounts = new int[count];
+        SharedMeshQuad[][] quads = new SharedMeshQuad[count][];
+        int total = 0;
+        for (int m = 0; m < count; m++) {
+            QuadParentNode member = members.get(m);
+            int quadCount = member.getQuadCount();
+            sources[m] = member.getQuadData();
+            sourceCounts[m] = quadCount;
+            sourceSlots[m] = new int[quadCount];
+            quads[m] = new SharedMeshQuad[quadCount];
+            for (int i = 0; i < quadCount; i++) {
+                quads[m][i] = member.getQuad(i);
+                sourceSlots[m][i] = quads[m][i].getChildIndex();
+            }
+            total += quadCount;
+        }
+        batch.slots = new int[total];
+        batch.offsets = mergeQuadData(sources, sourceSlots, sourceCounts, leader.getQuadSize(),
+                leader.getQuadData(), leader.slots, batch.slots);
+        for (int m = 0; m < count; m++) {
+            QuadParentNode member = members.get(m);
+            for (int i = 0; i < sourceCounts[m]; i++) {
+                member.moveQuad(quads[m][i], leader, batch.slots[batch.offsets[m] + i]);
+            }
+            member.setDrawCount(0);
+        }
+    }
+
+    /**
+     * Batches the quad parent nodes in the node tree, compatible nodes are merged and draw calls before and after
+     * are logged.
+     *
+     * @param root
+     * @return The batches
+     */
+    public ArrayList<Batch> batch(Node root) {
+        List<QuadParentNode> nodes = collect(root, new ArrayList<>());
+        ArrayList<Batch> batches = createBatches(nodes);
+        for (Batch batch : batches) {
+            merge(batch);
+        }
+        drawCallsBefore = nodes.size();
+        drawCallsAfter = batches.size();
+        SimpleLogger.d(getClass(), "Batched quad nodes, draw calls before: " + drawCallsBefore + ", after: "
+                + drawCallsAfter);
+        return batches;
+    }
+
+    /**
+     * Returns the number of quad node draw calls before last call to {@link #batch(Node)}
+     *
+     * @return
+     */
+    public int getDrawCallsBefore() {
+        return drawCallsBefore;
+    }
+
+    /**
+     * Returns the number of quad node draw calls after last call to {@link #batch(Node)}
+     *
+     * @return
+     */
+    public int getDrawCallsAfter() {
+        return drawCallsAfter;
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.graphicsengine.scene;
+
+import com.graphicsengine.component.SpatialHash;
+
+/**
+ * Hit bounds of the quads in a {@link QuadParentNode}, used to find the quad at a position.
+ * Quads are stored by index, in the same order as the quad children of the parent, when a quad is removed the last
+ * quad is moved into its place.
+ * Changes are published by calling {@link #publish()} on the render thread, only the entries that have changed since
+ * the last publish are updated in the spatial hash. Queries use the published data so that queries from other
+ * threads do not see partly updated bounds.
+ * This class is threadsafe.
+ *
+ * @param <T> The quad type
+ */
+public class QuadHitIndex<T> {
+
+    /**
+     * Number of values for each quad, translate x, y followed by bounds x, y, width, height and translate z.
+     */
+    private static final int HIT_STRIDE = 7;
+    private static final int BOUNDS_OFFSET = 2;
+    private static final int Z_OFFSET = 6;
+    /**
+     * Max number of overlapping quads checked at a hit position
+     */
+    private static final int MAX_HITS = 32;
+
+    private final Object lock = new Object();
+    private final float[] hitData;
+    private final Object[] quads;
+    private int count;
+    /**
+     * Copy of hit data and quads as of the last publish, used by {@link #getAt(float, float)}
+     */
+    private final float[] queryHitData;
+    private final Object[] queryQuads;
+    private int queryCount;
+    private final SpatialHash hash = new SpatialHash();
+    private final int[] hitResult = new int[MAX_HITS];
+    /**
+     * Index of entries changed since last publish
+     */
+    private final int[] dirty;
+    private final boolean[] isDirty;
+    private int dirtyCount;
+
+    /**
+     * Creates a hit index for the max number of quads
+     *
+     * @param capacity Max number of quads
+     */
+    public QuadHitIndex(int capacity) {
+        hitData = new float[capacity * HIT_STRIDE];
+        quads = new Object[capacity];
+        queryHitData = new float[capacity * HIT_STRIDE];
+        queryQuads = new Object[capacity];
+        dirty = new int[capacity];
+        isDirty = new boolean[capacity];
+    }
+
+    /**
+     * Adds the quad last, with empty bounds, use {@link #setBounds(int, float, float, float, float, float, float,
+     * float)} to set the bounds.
+     *
+     * @param quad
+     * @return Index of the quad
+     * @throws ArrayIndexOutOfBoundsException If the index is full
+     */
+    public int add(T quad) {
+        synchronized (lock) {
+            int index = count;
+            quads[index] = quad;
+            count++;
+            int data = index * HIT_STRIDE;
+            for (int i = 0; i < HIT_STRIDE; i++) {
+                hitData[data + i] = 0;
+            }
+            markDirty(index);
+            return index;
+        }
+    }
+
+    /**
+     * Removes the quad at the index, the last quad is moved to the index.
+     *
+     * @param index
+     */
+    public void remove(int index) {
+        synchronized (lock) {
+            int last = --count;
+            if (index != last) {
+                System.arraycopy(hitData, last * HIT_STRIDE, hitData, index * HIT_STRIDE, HIT_STRIDE);
+                quads[index] = quads[last];
+                markDirty(index);
+            }
+            quads[last] = null;
+        }
+    }
+
+    /**
+     * Sets the hit bounds of the quad at the index
+     *
+     * @param index
+     * @param x Translate x
+     * @param y Translate y
+     * @param boundsX Bounds x offset from translate
+     * @param boundsY Bounds y offset from translate, top of bounds
+     * @param width
+     * @param height
+     * @param z Translate z, the quad with highest z is returned if more than one quad is at a position
+     */
+    public void setBounds(int index, float x, float y, float boundsX, float boundsY, float width, float height,
+            float z) {
+        int data = index * HIT_STRIDE;
+        synchronized (lock) {
+            hitData[data] = x;
+            hitData[data + 1] = y;
+            hitData[data + BOUNDS_OFFSET] = boundsX;
+            hitData[data + BOUNDS_OFFSET + 1] = boundsY;
+            hitData[data + BOUNDS_OFFSET + 2] = width;
+            hitData[data + BOUNDS_OFFSET + 3] = height;
+            hitData[data + Z_OFFSET] = z;
+            markDirty(index);
+        }
+    }
+
+    /**
+     * Publishes the changes since last call so that they are used by {@link #getAt(float, float)}, only the
+     * changed entries are copied and updated in the spatial hash.
+     */
+    public void publish() {
+        synchronized (lock) {
+            if (dirtyCount == 0 && queryCount == count) {
+                return;
+            }
+            for (int i = 0; i < dirtyCount; i++) {
+                int index = dirty[i];
+                isDirty[index] = false;
+                if (index < count) {
+                    System.arraycopy(hitData, index * HIT_STRIDE, queryHitData, index * HIT_STRIDE, HIT_STRIDE);
+                    queryQuads[index] = quads[index];
+                }
+            }
+            for (int i = count; i < queryCount; i++) {
+                queryQuads[i] = null;
+            }
+            queryCount = count;
+            hash.update(queryHitData, count, HIT_STRIDE, 0, BOUNDS_OFFSET, dirty, dirtyCount);
+            dirtyCount = 0;
+        }
+    }
+
+    /**
+     * Returns the quad at the position, if more than one quad is at the position the quad with highest z is
+     * returned. The result is as of the last call to {@link #publish()}, this method does not allocate.
+     *
+     * @param x
+     * @param y
+     * @return The quad at the position, or null
+     */
+    @SuppressWarnings("unchecked")
+    public T getAt(float x, float y) {
+        synchronized (lock) {
+            if (queryCount == 0) {
+                return null;
+            }
+            int found = hash.query(x, y, x, y, hitResult);
+            Object hit = null;
+            float hitZ = 0;
+            for (int i = 0; i < found; i++) {
+                float z = queryHitData[hitResult[i] * HIT_STRIDE + Z_OFFSET];
+                if (hit == null || z >= hitZ) {
+                    hit = queryQuads[hitResult[i]];
+                    hitZ = z;
+                }
+            }
+            return (T) hit;
+        }
+    }
+
+    /**
+     * Returns the number of quads
+     *
+     * @return
+     */
+    public int getCount() {
+        synchronized (lock) {
+            return count;
+        }
+    }
+
+    private void markDirty(int index) {
+        if (!isDirty[index]) {
+            isDirty[index] = true;
+            dirty[dirtyCount++] = index;
+        }
+    }
+
+}
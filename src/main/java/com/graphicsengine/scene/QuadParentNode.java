@@ -2,13 +2,19 @@ package com.graphicsengine.scene;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import com.google.gson.annotations.SerializedName;
+import com.graphicsengine.component.IncrementalQuadExpander;
 import com.graphicsengine.component.SpriteComponent;
+import com.graphicsengine.component.SpriteSorter;
+import com.graphicsengine.component.SpriteSorter.SortOrder;
+import com.graphicsengine.io.gson.FieldBinder;
 import com.graphicsengine.spritemesh.SpriteMesh;
 import com.nucleus.BackendException;
+import com.nucleus.SimpleLogger;
 import com.nucleus.component.CPUComponentBuffer;
-import com.nucleus.component.CPUQuadExpander;
 import com.nucleus.component.Component;
 import com.nucleus.geometry.AttributeBuffer;
 import com.nucleus.geometry.AttributeUpdater.BufferIndex;
@@ -24,9 +30,11 @@ import com.nucleus.scene.Node;
 import com.nucleus.scene.RenderableNode;
 import com.nucleus.scene.RootNode;
 import com.nucleus.shader.VariableIndexer;
+import com.nucleus.shader.VariableIndexer.Property;
 import com.nucleus.texturing.Texture2D;
 import com.nucleus.texturing.TextureType;
 import com.nucleus.vecmath.Rectangle;
+import com.nucleus.vecmath.Transform;
 
 /**
  * Node containing Quad elements, the intended usage is to group as many quad objects as possible under one node
@@ -47,12 +55,99 @@ public class QuadParentNode extends AbstractMeshNode<Mesh> implements Consumer {
 
     @SerializedName(MAX_QUADS)
     private int maxQuads;
+    /**
+     * Optional depth sort of quads, if set the quads are sorted on translate z and frame so that draw order
+     * follows depth.
+     */
+    @SerializedName(SpriteSorter.DEPTH_SORT)
+    private SortOrder depthSort;
 
     transient private ArrayList<SharedMeshQuad> quadChildren = new ArrayList<>();
+    /**
+     * Quads that have pending work, {@link SharedMeshQuad#prepareRender()} is only called for these.
+     */
+    transient private ArrayList<SharedMeshQuad> activeQuads = new ArrayList<>();
+    /**
+     * Quads that shall be activated, may be added to from any thread
+     */
+    transient private ConcurrentLinkedQueue<SharedMeshQuad> activateQueue = new ConcurrentLinkedQueue<>();
+    /**
+     * Hit bounds for each quad child, stored in the same order as quadChildren. Changes are published on the
+     * render thread, used by {@link #getQuadAt(float, float)}
+     */
+    transient private volatile QuadHitIndex<SharedMeshQuad> hitIndex;
+    /**
+     * Quad slots of the mesh, slots of removed quads are reused
+     */
+    transient QuadSlots slots;
+    /**
+     * If true quads added before first render are built in runs of slots with the same rectangle, if false each
+     * quad is built separately. Set to false to compare load time with the per quad build.
+     */
+    transient private boolean batchPendingQuads = true;
+    /**
+     * Transform used to hide removed quads
+     */
+    transient private Transform removedTransform;
 
     transient SpriteMesh spriteMesh;
-    transient CPUQuadExpander quadExpander;
+    transient IncrementalQuadExpander quadExpander;
+    transient CPUComponentBuffer quadData;
+    /**
+     * Builds quads, the configuration is changed for each build so that one builder is used for all quads.
+     */
     transient RectangleShapeBuilder shapeBuilder;
+    transient private QuadConfiguration quadConfiguration;
+    /**
+     * Quads created before the first render are built in one pass, this is the rectangle of each pending slot.
+     */
+    transient private Rectangle[] pendingQuads;
+    transient private int pendingCount;
+    /**
+     * Rectangles created from texture, one for each frame
+     */
+    transient private Rectangle[] frameRectangles;
+    transient SpriteSorter sorter;
+    transient private int[] inverseOrder;
+    transient private float[] sortData;
+
+    /**
+     * Rectangle configuration where the number of quads can be changed, so that the same shapebuilder is used to
+     * build single quads and runs of quads.
+     */
+    private static class QuadConfiguration extends RectangleConfiguration {
+
+        private QuadConfiguration() {
+            super(1, 0);
+        }
+
+        /**
+         * Sets the number of quads to build
+         * 
+         * @param count
+         */
+        private void setCount(int count) {
+            this.count = count;
+        }
+    }
+
+    /**
+     * Binds the serialized fields declared by this class, see
+     * {@link com.graphicsengine.io.gson.BinderTypeAdapterFactory}
+     */
+    public static final FieldBinder<QuadParentNode> FIELD_BINDER = new FieldBinder<QuadParentNode>(
+            new String[] { MAX_QUADS, SpriteSorter.DEPTH_SORT },
+            new Class<?>[] { int.class, SortOrder.class }) {
+        @Override
+        public void setInt(QuadParentNode target, int field, int value) {
+            target.maxQuads = value;
+        }
+
+        @Override
+        public void setObject(QuadParentNode target, int field, Object value) {
+            target.depthSort = (SortOrder) value;
+        }
+    };
 
     /**
      * Used by GSON and {@link #createInstance(RootNode)} method - do NOT call directly
@@ -92,6 +187,7 @@ public class QuadParentNode extends AbstractMeshNode<Mesh> implements Consumer {
     public void set(QuadParentNode source) {
         super.set(source);
         this.maxQuads = source.maxQuads;
+        this.depthSort = source.depthSort;
     }
 
     /**
@@ -104,14 +200,205 @@ public class QuadParentNode extends AbstractMeshNode<Mesh> implements Consumer {
         return maxQuads;
     }
 
+    /**
+     * Adds the quad child and allocates a slot for it, slots of removed quads are reused.
+     * 
+     * @param quadMeshNode
+     * @return The slot (quad index) of the child
+     * @throws IllegalArgumentException If all slots are used
+     */
     protected int addQuad(SharedMeshQuad quadMeshNode) {
-        int index = quadChildren.size();
+        int slot = slots.allocate();
+        if (slot < 0) {
+            throw new IllegalArgumentException("Node " + getId() + " is full, " + MAX_QUADS + ": " + maxQuads);
+        }
+        addQuadChild(quadMeshNode);
+        return slot;
+    }
+
+    private void addQuadChild(SharedMeshQuad quadMeshNode) {
+        quadMeshNode.setListIndex(quadChildren.size());
         quadChildren.add(quadMeshNode);
-        return index;
+        hitIndex.add(quadMeshNode);
+    }
+
+    /**
+     * Removes the quad child and frees the slot, the quad is hidden by setting scale to zero.
+     * The slot will be reused by the next added quad. The quad is removed from the {@link NodeIndex}.
+     * After this call the quad has no quad parent and child index is -1, until it is added to a quad node again.
+     * 
+     * @param quadMeshNode
+     * @return True if the quad was removed, false if not a child of this node
+     */
+    public boolean removeQuad(SharedMeshQuad quadMeshNode) {
+        int listIndex = quadMeshNode.getListIndex();
+        if (listIndex < 0 || listIndex >= quadChildren.size() || quadChildren.get(listIndex) != quadMeshNode) {
+            return false;
+        }
+        SharedMeshQuad last = quadChildren.remove(quadChildren.size() - 1);
+        if (last != quadMeshNode) {
+            quadChildren.set(listIndex, last);
+            last.setListIndex(listIndex);
+        }
+        hitIndex.remove(listIndex);
+        NodeIndex.unregister(quadMeshNode);
+        quadMeshNode.setListIndex(-1);
+        if (quadMeshNode.isActive()) {
+            activeQuads.remove(quadMeshNode);
+            quadMeshNode.setActive(false);
+        }
+        int slot = quadMeshNode.getChildIndex();
+        // Removed quad no longer owns the slot, updates to it are ignored until it is added again
+        quadMeshNode.setQuadParent(null, -1);
+        quadExpander.setData(slot, removedTransform);
+        slots.free(slot);
+        return true;
+    }
+
+    /**
+     * Updates the hit bounds of the quad child, this is called by the child when transform is updated.
+     * The bounds are published to {@link #getQuadAt(float, float)} next time attribute data is updated.
+     * Rotation is not used, the bounds are the scaled rectangle of the quad.
+     * 
+     * @param quad
+     */
+    protected void updateHitBounds(SharedMeshQuad quad) {
+        int listIndex = quad.getListIndex();
+        Rectangle rectangle = quad.getQuadRectangle();
+        if (listIndex < 0 || rectangle == null) {
+            return;
+        }
+        float[] values = rectangle.getValues();
+        Transform transform = quad.getTransform();
+        float[] translate = transform.getTranslate();
+        float[] scale = transform.getScale();
+        hitIndex.setBounds(listIndex, translate[0], translate[1], values[0] * scale[0], values[1] * scale[1],
+                values[2] * scale[0], values[3] * scale[1], translate[2]);
+    }
+
+    /**
+     * Returns the quad child at the position, if more than one quad is at the position the quad with the highest
+     * z is returned. Position shall be in the coordinate space of this node.
+     * Quads are stored in a spatial hash, the cells of quads that have been added, removed or moved are updated on
+     * the render thread when attribute data is updated. The result is as of the last update, this method does not
+     * allocate.
+     * This method is threadsafe, for instance it can be called on the input thread.
+     * Rotation of quads is not used, a rotated quad is hit within its unrotated bounds.
+     * 
+     * @param x
+     * @param y
+     * @return The quad at the position, or null if there is no quad at the position or the node is not created
+     */
+    public SharedMeshQuad getQuadAt(float x, float y) {
+        QuadHitIndex<SharedMeshQuad> index = hitIndex;
+        return index != null ? index.getAt(x, y) : null;
+    }
+
+    /**
+     * Activates the quad so that {@link SharedMeshQuad#prepareRender()} is called before rendering, until the quad
+     * returns false. Call this when the quad has pending work, for instance a click animation.
+     * This method is threadsafe, the quad is added to the active set on the render thread.
+     * 
+     * @param quad
+     */
+    public void activate(SharedMeshQuad quad) {
+        activateQueue.add(quad);
+    }
+
+    /**
+     * Returns the number of quads that currently have pending work
+     * 
+     * @return Number of active quads
+     */
+    public int getActiveCount() {
+        return activeQuads.size();
+    }
+
+    /**
+     * Moves the quad child to the target node, the quad data must have been copied to the slot in the target, see
+     * {@link QuadBatcher#mergeQuadData(float[][], int[][], int[], int, float[], QuadSlots, int[])}
+     * The slot in this node is freed. The quad is removed from the children of this node and added as a child of the
+     * target, so that it follows the transform of the target, and registered in the {@link NodeIndex} of the
+     * target root.
+     * The target must use the same program, texture and material and have the same model matrix as this node
+     * for the quad to look the same, this is normally checked by {@link QuadBatcher}
+     * 
+     * @param quad Quad child of this node
+     * @param target
+     * @param slot The slot allocated in the target, holding the quad data
+     */
+    protected void moveQuad(SharedMeshQuad quad, QuadParentNode target, int slot) {
+        boolean active = quad.isActive();
+        if (!removeQuad(quad)) {
+            return;
+        }
+        removeChild(quad);
+        target.addChild(quad);
+        NodeIndex.register(quad);
+        target.addQuadChild(quad);
+        quad.setQuadParent(target, slot);
+        target.buildQuad(slot, quad.getQuadRectangle(), 0);
+        target.quadExpander.markDirty(slot);
+        target.updateHitBounds(quad);
+        if (active) {
+            target.activate(quad);
+        }
+    }
+
+    /**
+     * Returns the quad data, each quad is stored at the offset slot * {@link #getQuadSize()}
+     * 
+     * @return
+     */
+    float[] getQuadData() {
+        return quadData.getData();
+    }
+
+    /**
+     * Returns the number of values for each quad in quad data
+     * 
+     * @return
+     */
+    int getQuadSize() {
+        return program.getFunction().getIndexer().getSizePerVertex(BufferIndex.ATTRIBUTES.index);
+    }
+
+    /**
+     * Returns the number of free slots
+     * 
+     * @return Number of quads that can be added
+     */
+    public int getFreeSlotCount() {
+        return maxQuads - quadChildren.size();
+    }
+
+    /**
+     * Sets the number of quads drawn by the mesh, use 0 to disable drawing of this node when the quads have been
+     * moved to another node.
+     * 
+     * @param count
+     */
+    protected void setDrawCount(int count) {
+        spriteMesh.setDrawCount(count * RectangleShapeBuilder.QUAD_ELEMENTS, 0);
     }
 
-    public void removeQuad(SharedMeshQuad quadMeshNode) {
-        quadChildren.remove(quadMeshNode);
+    /**
+     * Returns the quad child at the index
+     * 
+     * @param index Index from 0 to {@link #getQuadCount()} - 1
+     * @return
+     */
+    public SharedMeshQuad getQuad(int index) {
+        return quadChildren.get(index);
+    }
+
+    /**
+     * Returns the number of quad children
+     * 
+     * @return
+     */
+    public int getQuadCount() {
+        return quadChildren.size();
     }
 
     /**
@@ -123,11 +410,54 @@ public class QuadParentNode extends AbstractMeshNode<Mesh> implements Consumer {
      */
     private void createBuffers(SpriteMesh mesh) {
         VariableIndexer indexer = program.getFunction().getIndexer();
-        CPUComponentBuffer sourceData = new CPUComponentBuffer(maxQuads,
-                indexer.getSizePerVertex(BufferIndex.ATTRIBUTES.index));
-        CPUComponentBuffer destinationData = new CPUComponentBuffer(maxQuads,
-                indexer.getSizePerVertex(BufferIndex.ATTRIBUTES.index) * 4);
-        quadExpander = new CPUQuadExpander(mesh.getTexture(Texture2D.TEXTURE_0), indexer, sourceData, destinationData);
+        int size = indexer.getSizePerVertex(BufferIndex.ATTRIBUTES.index);
+        quadData = new CPUComponentBuffer(maxQuads, size);
+        CPUComponentBuffer destinationData = new CPUComponentBuffer(maxQuads, size * 4);
+        quadExpander = new IncrementalQuadExpander(mesh.getTexture(Texture2D.TEXTURE_0), indexer, quadData,
+                destinationData, size, size);
+        slots = new QuadSlots(maxQuads);
+        hitIndex = new QuadHitIndex<>(maxQuads);
+        removedTransform = new Transform();
+        removedTransform.setScale(new float[] { 0, 0, 0 });
+        if (depthSort != null) {
+            sorter = new SpriteSorter(maxQuads, depthSort);
+            inverseOrder = new int[maxQuads];
+            sortData = new float[maxQuads * size];
+        }
+    }
+
+    /**
+     * Sorts the quads on depth and frame, if order has changed the quad data is moved so that the quads are stored
+     * in sorted order and the children are updated with the new quad index.
+     * Quads are normally mostly static so the sorted order is checked in linear time, quads are only moved when
+     * the order changes.
+     */
+    private void sortQuads() {
+        VariableIndexer indexer = program.getFunction().getIndexer();
+        int size = indexer.getSizePerVertex(BufferIndex.ATTRIBUTES.index);
+        float[] data = quadData.getData();
+        int slotCount = slots.getSlotCount();
+        int[] order = sorter.sort(data, slotCount, size, indexer.getOffset(Property.TRANSLATE.getLocation()) + 2,
+                indexer.getOffset(Property.FRAME.getLocation()));
+        if (!sorter.isChanged()) {
+            return;
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            System.arraycopy(data, order[slot] * size, sortData, slot * size, size);
+            inverseOrder[order[slot]] = slot;
+        }
+        System.arraycopy(sortData, 0, data, 0, slotCount * size);
+        quadExpander.markDirty(0, slotCount);
+        for (SharedMeshQuad child : quadChildren) {
+            int slot = inverseOrder[child.getChildIndex()];
+            if (slot != child.getChildIndex()) {
+                child.setChildIndex(slot);
+                buildQuad(slot, child.getQuadRectangle(), 0);
+            }
+        }
+        slots.remap(inverseOrder);
+        // Quads are now stored in sorted order
+        sorter.resetOrder();
     }
 
     /**
@@ -136,9 +466,9 @@ public class QuadParentNode extends AbstractMeshNode<Mesh> implements Consumer {
      * 
      * @param quad
      * @param rectangle Rectangle to build quad from, if null then texture is used.
-     * @param The rectangle used to build the quad, same as rectangle if specified, otherwise texture rectangle based on
-     * frame number
      * @param frame Initial frame
+     * @return The rectangle used to build the quad, same as rectangle if specified, otherwise a copy of the texture
+     * rectangle that is owned by the caller.
      */
     public Rectangle buildQuad(int quad, Rectangle rectangle, int frame) {
         Texture2D texture = spriteMesh.getTexture(Texture2D.TEXTURE_0);
@@ -148,11 +478,119 @@ public class QuadParentNode extends AbstractMeshNode<Mesh> implements Consumer {
             throw new IllegalArgumentException(
                     "Node " + getId() + " does not define RECT and texture is untextured or size is zero");
         }
-        Rectangle quadRect = (rectangle != null && rectangle.getValues() != null && rectangle.getValues().length >= 4)
-                ? rectangle
-                : createRectangle(texture, 0);
-        shapeBuilder.setStartQuad(quad).setRectangle(quadRect).build(spriteMesh, getProgram());
-        return quadRect;
+        boolean defined = rectangle != null && rectangle.getValues() != null && rectangle.getValues().length >= 4;
+        Rectangle quadRect = defined ? rectangle : getRectangle(texture, 0);
+        if (pendingQuads != null) {
+            if (pendingQuads[quad] == null) {
+                pendingCount++;
+            }
+            pendingQuads[quad] = quadRect;
+        } else {
+            quadConfiguration.setCount(1);
+            shapeBuilder.setStartQuad(quad).setRectangle(quadRect).build(spriteMesh, getProgram());
+        }
+        if (defined) {
+            return quadRect;
+        }
+        // Texture rectangle is shared by all quads, return a copy so that the caller can not change it
+        float[] values = quadRect.getValues();
+        return new Rectangle(values[0], values[1], values[2], values[3]);
+    }
+
+    /**
+     * Builds the quads that have been added before the first render, slots with the same rectangle are built using
+     * one shapebuilder. Empty slots between quads with the same rectangle are built as part of the run, they are
+     * built again when used.
+     * If batching of pending quads is disabled, see {@link #setBatchPendingQuads(boolean)}, each quad is built
+     * separately, as when quads are added after the first render, use this to compare load time.
+     * After this call quads are built when they are added.
+     */
+    protected void buildPendingQuads() {
+        Rectangle[] pending = pendingQuads;
+        pendingQuads = null;
+        if (pendingCount == 0) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int slotCount = slots.getSlotCount();
+        int builds = 0;
+        int slot = 0;
+        while (slot < slotCount) {
+            Rectangle rectangle = pending[slot];
+            if (rectangle == null) {
+                slot++;
+                continue;
+            }
+            if (!batchPendingQuads) {
+                quadConfiguration.setCount(1);
+                shapeBuilder.setStartQuad(slot).setRectangle(rectangle).build(spriteMesh, getProgram());
+                builds++;
+                slot++;
+                continue;
+            }
+            int first = slot;
+            int end = ++slot;
+            while (slot < slotCount && (pending[slot] == null || isSameRectangle(rectangle, pending[slot]))) {
+                if (pending[slot] != null) {
+                    end = slot + 1;
+                }
+                slot++;
+            }
+            slot = end;
+            quadConfiguration.setCount(end - first);
+            shapeBuilder.setStartQuad(first).setRectangle(rectangle).build(spriteMesh, getProgram());
+            builds++;
+        }
+        SimpleLogger.d(getClass(), "Built " + pendingCount + " quads using " + builds + " builds in "
+                + (System.currentTimeMillis() - start) + " millis, batched: " + batchPendingQuads + ", node "
+                + getId());
+        pendingCount = 0;
+    }
+
+    /**
+     * Enables or disables building of quads added before the first render in runs, call this before the node is
+     * rendered. Default is enabled.
+     * 
+     * @param batch True to build runs of quads with the same rectangle using one build, false to build each quad
+     * separately.
+     */
+    public void setBatchPendingQuads(boolean batch) {
+        batchPendingQuads = batch;
+    }
+
+    /**
+     * Returns true if quads added before the first render are built in runs
+     * 
+     * @return
+     */
+    public boolean isBatchPendingQuads() {
+        return batchPendingQuads;
+    }
+
+    private boolean isSameRectangle(Rectangle rectangle, Rectangle other) {
+        return rectangle == other || Arrays.equals(rectangle.getValues(), other.getValues());
+    }
+
+    /**
+     * Returns the rectangle for the texture frame, rectangles are created once for each frame.
+     * The returned rectangle is shared and must not be changed, use {@link #createRectangle(Texture2D, int)} to get
+     * a new rectangle.
+     * 
+     * @param texture
+     * @param frame
+     * @return
+     */
+    protected Rectangle getRectangle(Texture2D texture, int frame) {
+        if (frameRectangles == null) {
+            frameRectangles = new Rectangle[Math.max(1, texture.getFrameCount())];
+        }
+        if (frame < 0 || frame >= frameRectangles.length) {
+            return createRectangle(texture, frame);
+        }
+        if (frameRectangles[frame] == null) {
+            frameRectangles[frame] = createRectangle(texture, frame);
+        }
+        return frameRectangles[frame];
     }
 
     protected Rectangle createRectangle(Texture2D texture, int frame) {
@@ -169,11 +607,14 @@ public class QuadParentNode extends AbstractMeshNode<Mesh> implements Consumer {
     @Override
     public void onCreated() {
         super.onCreated();
+        NodeIndex.register(this);
         spriteMesh = (SpriteMesh) getMesh(MeshIndex.MAIN);
         spriteMesh.setAttributeUpdater(this);
         createBuffers(spriteMesh);
         bindAttributeBuffer(spriteMesh.getAttributeBuffer(BufferIndex.ATTRIBUTES.index));
-        shapeBuilder = new RectangleShapeBuilder(new RectangleConfiguration(1, 0));
+        quadConfiguration = new QuadConfiguration();
+        shapeBuilder = new RectangleShapeBuilder(quadConfiguration);
+        pendingQuads = new Rectangle[maxQuads];
         switch (spriteMesh.getTexture(Texture2D.TEXTURE_0).textureType) {
             case TiledTexture2D:
             case UVTexture2D:
@@ -188,9 +629,30 @@ public class QuadParentNode extends AbstractMeshNode<Mesh> implements Consumer {
 
     @Override
     public void updateAttributeData(NucleusRenderer renderer) {
-        for (SharedMeshQuad child : quadChildren) {
-            child.prepareRender();
+        if (pendingQuads != null) {
+            buildPendingQuads();
+        }
+        SharedMeshQuad quad;
+        while ((quad = activateQueue.poll()) != null) {
+            if (!quad.isActive() && quad.getListIndex() >= 0) {
+                quad.setActive(true);
+                activeQuads.add(quad);
+            }
+        }
+        for (int i = activeQuads.size() - 1; i >= 0; i--) {
+            quad = activeQuads.get(i);
+            if (!quad.prepareRender()) {
+                quad.setActive(false);
+                SharedMeshQuad last = activeQuads.remove(activeQuads.size() - 1);
+                if (last != quad) {
+                    activeQuads.set(i, last);
+                }
+            }
         }
+        if (sorter != null) {
+            sortQuads();
+        }
+        hitIndex.publish();
         quadExpander.updateAttributeData(renderer);
     }
 
@@ -199,7 +661,7 @@ public class QuadParentNode extends AbstractMeshNode<Mesh> implements Consumer {
         quadExpander.bindAttributeBuffer(buffer);
     }
 
-    public CPUQuadExpander getExpander() {
+    public IncrementalQuadExpander getExpander() {
         return quadExpander;
     }
 
@@ -209,6 +671,18 @@ public class QuadParentNode extends AbstractMeshNode<Mesh> implements Consumer {
         return list;
     }
 
+    /**
+     * Removes this node and the quad children from the {@link NodeIndex}
+     */
+    @Override
+    public void destroy(NucleusRenderer renderer) {
+        for (SharedMeshQuad quad : quadChildren) {
+            NodeIndex.unregister(quad);
+        }
+        NodeIndex.unregister(this);
+        super.destroy(renderer);
+    }
+
     @Override
     public void createTransient() {
         // TODO Auto-generated method stub
@@ -0,0 +1,98 @@
+package com.graphicsengine.scene;
+
+/**
+ * Allocates quad slots in a {@link QuadParentNode}, slots of removed quads are kept in a free list and reused before
+ * new slots are used. This keeps used slots packed at the start of the mesh.
+ * This class is not threadsafe.
+ *
+ */
+public class QuadSlots {
+
+    private final int capacity;
+    /**
+     * Number of slots that have been used, highest used slot + 1. Slots below this may be free.
+     */
+    private int slotCount;
+    /**
+     * Stack of free slots below slotCount
+     */
+    private final int[] freeSlots;
+    private int freeCount;
+
+    /**
+     * Creates slots for the max number of quads
+     *
+     * @param capacity Max number of quads
+     */
+    public QuadSlots(int capacity) {
+        this.capacity = capacity;
+        freeSlots = new int[capacity];
+    }
+
+    /**
+     * Allocates a slot, the last freed slot is returned if there are free slots.
+     *
+     * @return The slot, or -1 if all slots are used
+     */
+    public int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount >= capacity) {
+            return -1;
+        }
+        return slotCount++;
+    }
+
+    /**
+     * Frees the slot so that it is reused by the next call to {@link #allocate()}
+     *
+     * @param slot A slot returned by {@link #allocate()} that has not been freed
+     * @throws IllegalArgumentException If the slot is not allocated
+     */
+    public void free(int slot) {
+        if (slot < 0 || slot >= slotCount) {
+            throw new IllegalArgumentException("Slot not allocated: " + slot);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Updates the free slots after the slots have been reordered, for instance when sorted.
+     *
+     * @param newSlots The new slot for each slot below {@link #getSlotCount()}
+     */
+    public void remap(int[] newSlots) {
+        for (int i = 0; i < freeCount; i++) {
+            freeSlots[i] = newSlots[freeSlots[i]];
+        }
+    }
+
+    /**
+     * Returns the number of slots that have been used, all allocated slots are below this.
+     *
+     * @return Highest used slot + 1
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Returns the number of free slots below {@link #getSlotCount()}
+     *
+     * @return
+     */
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    /**
+     * Returns the number of slots that can be allocated
+     *
+     * @return
+     */
+    public int getAvailable() {
+        return capacity - slotCount + freeCount;
+    }
+
+}
@@ -41,6 +41,7 @@ public class SharedMeshButton extends SharedMeshQuad implements Button {
             case NONE:
             case PRESSED:
                 nextAction = Action.CLICKED;
+                activate();
                 break;
             default:
                 // Nothing to do
@@ -71,7 +72,7 @@ public class SharedMeshButton extends SharedMeshQuad implements Button {
     }
 
     @Override
-    protected void prepareRender() {
+    protected boolean prepareRender() {
         if (nextAction != null) {
             nextAction = dispatchAction(nextAction);
         } else {
@@ -84,6 +85,7 @@ public class SharedMeshButton extends SharedMeshQuad implements Button {
                 default:
             }
         }
+        return nextAction != null || action != Action.NONE;
     }
 
     @Override
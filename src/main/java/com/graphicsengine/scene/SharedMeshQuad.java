@@ -4,6 +4,7 @@ import java.io.IOException;
 
 import com.google.gson.annotations.SerializedName;
 import com.graphicsengine.component.SpriteAttributeComponent;
+import com.graphicsengine.io.gson.FieldBinder;
 import com.nucleus.SimpleLogger;
 import com.nucleus.common.Type;
 import com.nucleus.geometry.Mesh;
@@ -42,6 +43,14 @@ public class SharedMeshQuad extends AbstractMeshNode<Mesh> {
      * The index of this shared mesh quad node with it's parent.
      */
     transient private int childIndex;
+    /**
+     * Index of this node in the quad children list of the parent, used to remove in constant time.
+     */
+    transient private int listIndex = -1;
+    /**
+     * True if this quad is in the active set of the parent, only accessed by the parent on the render thread.
+     */
+    transient private boolean active;
     transient private QuadParentNode quadParent;
     /**
      * The rectangle defining the sprites, all sprites will have same size
@@ -49,6 +58,28 @@ public class SharedMeshQuad extends AbstractMeshNode<Mesh> {
      */
     @SerializedName(Rectangle.RECT)
     private Rectangle rectangle;
+    /**
+     * The rectangle used to build the quad, this is the rectangle or texture size if rectangle is not defined.
+     */
+    transient private Rectangle quadRectangle;
+
+    /**
+     * Binds the serialized fields declared by this class, see
+     * {@link com.graphicsengine.io.gson.BinderTypeAdapterFactory}
+     */
+    public static final FieldBinder<SharedMeshQuad> FIELD_BINDER = new FieldBinder<SharedMeshQuad>(
+            new String[] { TiledTexture2D.FRAME, Rectangle.RECT },
+            new Class<?>[] { int.class, Rectangle.class }) {
+        @Override
+        public void setInt(SharedMeshQuad target, int field, int value) {
+            target.frame = value;
+        }
+
+        @Override
+        public void setObject(SharedMeshQuad target, int field, Object value) {
+            target.rectangle = (Rectangle) value;
+        }
+    };
 
     /**
      * Used by GSON and {@link #createInstance(RootNode)} method - do NOT call directly
@@ -77,12 +108,14 @@ public class SharedMeshQuad extends AbstractMeshNode<Mesh> {
             SimpleLogger.d(getClass(), "Warning - blend property cannot be controlled in shared mesh, id: " + getId());
         }
         childIndex = quadParent.addQuad(this);
-        initBounds(quadParent.buildQuad(childIndex, rectangle, frame));
+        quadRectangle = quadParent.buildQuad(childIndex, rectangle, frame);
+        initBounds(quadRectangle);
         if (transform == null) {
             transform = new Transform();
         }
         quadParent.getExpander().setData(childIndex, transform);
         quadParent.getExpander().setFrame(childIndex, frame);
+        quadParent.updateHitBounds(this);
         Mesh mesh = quadParent.getMesh(MeshIndex.MAIN);
         if (mesh.getTexture(Texture2D.TEXTURE_0).textureType == TextureType.Untextured) {
             updateAmbient();
@@ -91,6 +124,7 @@ public class SharedMeshQuad extends AbstractMeshNode<Mesh> {
             SimpleLogger.d(getClass(),
                     "Node state is set for id " + getId() + ", state handling for shared mesh quad is not implemented");
         }
+        NodeIndex.register(this);
     }
 
     /**
@@ -102,6 +136,73 @@ public class SharedMeshQuad extends AbstractMeshNode<Mesh> {
         this.childIndex = index;
     }
 
+    /**
+     * Returns the index of this child with the parent
+     * 
+     * @return Index of the quad in the parent, or -1 if the quad has been removed from the parent
+     */
+    public int getChildIndex() {
+        return childIndex;
+    }
+
+    /**
+     * Sets the index of this node in the quad list of the parent, this is done by the parent.
+     * 
+     * @param index
+     */
+    void setListIndex(int index) {
+        this.listIndex = index;
+    }
+
+    /**
+     * Returns the index of this node in the quad list of the parent
+     * 
+     * @return Index in parent list, or -1 if not added
+     */
+    int getListIndex() {
+        return listIndex;
+    }
+
+    /**
+     * Sets the parent quad node, used when the quad is moved to another quad node.
+     * 
+     * @param parent
+     * @param index
+     */
+    void setQuadParent(QuadParentNode parent, int index) {
+        this.quadParent = parent;
+        this.childIndex = index;
+    }
+
+    void setActive(boolean active) {
+        this.active = active;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Activates this quad so that {@link #prepareRender()} is called before the parent is rendered, until it returns
+     * false. May be called from any thread.
+     * Does nothing if the quad has been removed from the parent.
+     */
+    protected void activate() {
+        QuadParentNode parent = quadParent;
+        if (parent != null) {
+            parent.activate(this);
+        }
+    }
+
+    /**
+     * Returns the rectangle that was used to build the quad, this is only valid after the node has been created.
+     * 
+     * @return The rectangle used to build the quad
+     */
+    protected Rectangle getQuadRectangle() {
+        return quadRectangle;
+    }
+
     @Override
     public Node createInstance(RootNode root) {
         SharedMeshQuad copy = new SharedMeshQuad(root);
@@ -117,46 +218,54 @@ public class SharedMeshQuad extends AbstractMeshNode<Mesh> {
     public void set(SharedMeshQuad source) {
         super.set(source);
         this.frame = source.frame;
-        if (source.rectangle != null) {
-            setQuadRectangle(source.rectangle);
-        } else {
-            rectangle = null;
-        }
+        setQuadRectangle(source.rectangle);
     }
 
     /**
      * Internal method, sets the rectangle defining each sprite
      * This will only set the size parameter, createMesh must be called to actually create the mesh
      * 
+     * The rectangle is definition data that is not changed after the node is created, it is shared with the
+     * source so that instances of a template does not copy it.
+     * 
      * param rectangle values defining sprite, X1, Y1, width, height.
      */
     private void setQuadRectangle(Rectangle rectangle) {
-        this.rectangle = new Rectangle(rectangle);
+        this.rectangle = rectangle;
     }
 
     /**
      * Sets the visible frame
      * Note, this will not update the frame number in this class - {@link #frame}
+     * Does nothing if the quad has been removed from the parent.
      * 
      * @param frame Frame to display
      */
     public void setFrame(int frame) {
+        if (quadParent == null) {
+            return;
+        }
         quadParent.getExpander().setFrame(childIndex, frame);
     }
 
     /**
      * Copies the transform so that the Quad is updated on screen.
      * Call this after the transform in the Mesh has been changed.
+     * Does nothing if the quad has been removed from the parent, the slot may be used by another quad.
      */
     public void updateTransform() {
+        if (quadParent == null) {
+            return;
+        }
         quadParent.getExpander().setData(childIndex, transform);
+        quadParent.updateHitBounds(this);
     }
 
     /**
      * If material and ambient color is set it is updated.
      */
     public void updateAmbient() {
-        if (getMaterial() != null && getMaterial().getEmissive() != null) {
+        if (quadParent != null && getMaterial() != null && getMaterial().getEmissive() != null) {
             quadParent.getExpander().setColor(childIndex, getMaterial().getEmissive());
         }
     }
@@ -193,11 +302,14 @@ public class SharedMeshQuad extends AbstractMeshNode<Mesh> {
     }
 
     /**
-     * Called by the QuadParentNode before it is rendered - this will give shared meshes chance to update
-     * periodically. Used for instance if shared mesh quad is a ui element.
+     * Called by the QuadParentNode before it is rendered, when this quad has been activated by calling
+     * {@link #activate()} - this will give shared meshes chance to update periodically. Used for instance if shared
+     * mesh quad is a ui element with an animation.
+     * 
+     * @return True if the quad has more pending work, false to be removed from the active set.
      */
-    protected void prepareRender() {
-        // Nothing to do here
+    protected boolean prepareRender() {
+        return false;
     }
 
 }
@@ -3,6 +3,7 @@ package com.graphicsengine.scene;
 import java.util.ArrayList;
 
 import com.google.gson.annotations.SerializedName;
+import com.graphicsengine.io.gson.FieldBinder;
 import com.nucleus.mmi.Pointer;
 import com.nucleus.scene.Node;
 import com.nucleus.scene.RootNode;
@@ -28,6 +29,24 @@ public class SharedMeshToggle extends SharedMeshQuad implements Toggle {
 
     private ArrayList<ToggleListener> listeners = new ArrayList<>();
 
+    /**
+     * Binds the serialized fields declared by this class, see
+     * {@link com.graphicsengine.io.gson.BinderTypeAdapterFactory}
+     */
+    public static final FieldBinder<SharedMeshToggle> FIELD_BINDER = new FieldBinder<SharedMeshToggle>(
+            new String[] { SELECTED, SELECTED_FRAMES },
+            new Class<?>[] { int.class, int[].class }) {
+        @Override
+        public void setInt(SharedMeshToggle target, int field, int value) {
+            target.selected = value;
+        }
+
+        @Override
+        public void setObject(SharedMeshToggle target, int field, Object value) {
+            target.selectedFrames = (int[]) value;
+        }
+    };
+
     /**
      * Used by GSON and {@link #createInstance(RootNode)} method - do NOT call directly
      */
@@ -68,8 +87,8 @@ public class SharedMeshToggle extends SharedMeshQuad implements Toggle {
 
     public void set(SharedMeshToggle source) {
         selected = source.selected;
-        selectedFrames = new int[source.selectedFrames.length];
-        System.arraycopy(source.selectedFrames, 0, selectedFrames, 0, selectedFrames.length);
+        // Selected frames are not changed after the node is created, shared with source
+        selectedFrames = source.selectedFrames;
         super.set(source);
     }
 
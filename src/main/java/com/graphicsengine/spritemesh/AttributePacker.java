@@ -0,0 +1,147 @@
+package com.graphicsengine.spritemesh;
+
+/**
+ * Utility methods to pack float attribute values into smaller datatypes, used to reduce the size of attribute data
+ * that is uploaded each frame.
+ * Values are packed into 32 bit ints so that the result can be written to an int or byte buffer.
+ * Halffloats are stored as IEEE 754 binary16, colors as normalized RGBA8 with red in the lowest byte (little endian
+ * byte order matches GL_UNSIGNED_BYTE vec4 attributes) and shorts as unsigned 16 bit values.
+ *
+ */
+public class AttributePacker {
+
+    /**
+     * Max value that can be stored in a halffloat
+     */
+    public static final float MAX_HALF = 65504f;
+
+    private AttributePacker() {
+    }
+
+    /**
+     * Converts the float value to halffloat, value is rounded to nearest with ties to even.
+     * Values outside the range of halffloat are set to infinity, NaN is preserved.
+     *
+     * @param value
+     * @return The 16 bit halffloat value in the lower 16 bits
+     */
+    public static int toHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xff;
+        int mantissa = bits & 0x7fffff;
+        if (exponent == 0xff) {
+            // Infinity or NaN
+            return sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0);
+        }
+        int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 0x1f) {
+            return sign | 0x7c00;
+        }
+        int shift = 13;
+        if (halfExponent <= 0) {
+            if (halfExponent < -10) {
+                // Less than half of the smallest subnormal half
+                return sign;
+            }
+            // Subnormal half
+            mantissa |= 0x800000;
+            shift = 14 - halfExponent;
+            halfExponent = 0;
+        }
+        int half = mantissa >> shift;
+        int remainder = mantissa & ((1 << shift) - 1);
+        int halfway = 1 << (shift - 1);
+        if (remainder > halfway || (remainder == halfway && (half & 1) != 0)) {
+            // Carry into exponent is correct behavior, largest value rounds to infinity
+            half++;
+        }
+        return sign | ((halfExponent << 10) + half);
+    }
+
+    /**
+     * Converts the halffloat in the lower 16 bits to float
+     *
+     * @param half
+     * @return
+     */
+    public static float fromHalf(int half) {
+        int sign = (half & 0x8000) << 16;
+        int exponent = (half >>> 10) & 0x1f;
+        int mantissa = half & 0x3ff;
+        if (exponent == 0) {
+            if (mantissa == 0) {
+                return Float.intBitsToFloat(sign);
+            }
+            float value = mantissa / 16777216f;
+            return sign != 0 ? -value : value;
+        }
+        if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+
+    /**
+     * Packs two floats as halffloats, first value is stored in the lower 16 bits.
+     *
+     * @param first
+     * @param second
+     * @return
+     */
+    public static int packHalf2(float first, float second) {
+        return toHalf(first) | (toHalf(second) << 16);
+    }
+
+    /**
+     * Packs 4 color values in the range 0 - 1 as normalized RGBA8, values outside the range are clamped.
+     *
+     * @param color Array with RGBA
+     * @param offset Offset into color where values are read
+     * @return Red in the lowest byte and alpha in the highest
+     */
+    public static int packRGBA8(float[] color, int offset) {
+        return toUnorm8(color[offset]) | (toUnorm8(color[offset + 1]) << 8) | (toUnorm8(color[offset + 2]) << 16)
+                | (toUnorm8(color[offset + 3]) << 24);
+    }
+
+    /**
+     * Unpacks the RGBA8 color into the destination
+     *
+     * @param rgba Packed color as returned by {@link #packRGBA8(float[], int)}
+     * @param destination
+     * @param offset Offset into destination where RGBA is written
+     */
+    public static void unpackRGBA8(int rgba, float[] destination, int offset) {
+        destination[offset] = (rgba & 0xff) / 255f;
+        destination[offset + 1] = ((rgba >>> 8) & 0xff) / 255f;
+        destination[offset + 2] = ((rgba >>> 16) & 0xff) / 255f;
+        destination[offset + 3] = (rgba >>> 24) / 255f;
+    }
+
+    /**
+     * Packs two unsigned 16 bit values, for instance frame and flags, first value is stored in lower 16 bits.
+     *
+     * @param first
+     * @param second
+     * @return
+     * @throws IllegalArgumentException If a value is outside the range 0 - 65535
+     */
+    public static int packShort2(int first, int second) {
+        if ((first & 0xffff0000) != 0 || (second & 0xffff0000) != 0) {
+            throw new IllegalArgumentException("Value does not fit in 16 bits: " + first + ", " + second);
+        }
+        return first | (second << 16);
+    }
+
+    private static int toUnorm8(float value) {
+        if (value <= 0) {
+            return 0;
+        }
+        if (value >= 1) {
+            return 255;
+        }
+        return (int) (value * 255f + 0.5f);
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.graphicsengine.spritemesh;
+
+import com.graphicsengine.spritemesh.TiledSpriteProgram.TiledSpriteIndexer;
+import com.nucleus.geometry.AttributeUpdater.BufferIndex;
+import com.nucleus.opengl.shader.NamedVariableIndexer;
+import com.nucleus.shader.ShaderVariable.VariableType;
+
+/**
+ * Layout for instanced sprites, per sprite data has the same offsets as {@link TiledSpriteIndexer}.
+ * The shared static quad ({@link BufferIndex#ATTRIBUTES_STATIC}) only holds vertex position and vertex index, it is
+ * read for each vertex. Texture coordinates are calculated in the shader from frame and vertex index.
+ * Translate, rotate, scale, albedo and frame are read once per instance ({@link BufferIndex#ATTRIBUTES}).
+ *
+ */
+public class InstancedSpriteIndexer extends NamedVariableIndexer {
+
+    protected final static Property[] PROPERTY = new Property[] { Property.VERTEX, Property.TRANSLATE,
+            Property.ROTATE, Property.SCALE, Property.ALBEDO, Property.FRAME };
+    protected final static int[] OFFSETS = new int[] { 0, 0, 3, 6, 9, 12 };
+    protected final static VariableType[] TYPES = new VariableType[] { VariableType.ATTRIBUTE,
+            VariableType.ATTRIBUTE, VariableType.ATTRIBUTE, VariableType.ATTRIBUTE, VariableType.ATTRIBUTE,
+            VariableType.ATTRIBUTE };
+    protected final static BufferIndex[] BUFFERINDEXES = new BufferIndex[] { BufferIndex.ATTRIBUTES_STATIC,
+            BufferIndex.ATTRIBUTES, BufferIndex.ATTRIBUTES, BufferIndex.ATTRIBUTES, BufferIndex.ATTRIBUTES,
+            BufferIndex.ATTRIBUTES };
+    protected final static int[] SIZEPERVERTEX = new int[] { 13, 4 };
+
+    public InstancedSpriteIndexer() {
+        super();
+        createArrays(PROPERTY, OFFSETS, TYPES, SIZEPERVERTEX, BUFFERINDEXES);
+    }
+
+    /**
+     * Returns the attribute divisor for the buffer, this is the number of instances that share the same values.
+     * 0 means that the values are read per vertex.
+     *
+     * @param index
+     * @return 1 for the instance buffer, 0 for the static quad
+     */
+    public int getDivisor(BufferIndex index) {
+        return index == BufferIndex.ATTRIBUTES ? 1 : 0;
+    }
+
+    /**
+     * Returns the number of values for each instance
+     *
+     * @return
+     */
+    public int getInstanceSize() {
+        return getSizePerVertex(BufferIndex.ATTRIBUTES.index);
+    }
+
+    /**
+     * Returns the number of values for each vertex in the shared static quad
+     *
+     * @return
+     */
+    public int getStaticSizePerVertex() {
+        return getSizePerVertex(BufferIndex.ATTRIBUTES_STATIC.index);
+    }
+
+}
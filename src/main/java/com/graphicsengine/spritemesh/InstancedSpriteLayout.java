@@ -0,0 +1,154 @@
+package com.graphicsengine.spritemesh;
+
+import com.nucleus.geometry.shape.RectangleShapeBuilder;
+
+/**
+ * Buffer layout for instanced sprites, the vertex position and vertex index are stored once in a shared static quad
+ * and the per sprite data (translate, rotate, scale, albedo and frame) is stored once per instance.
+ * Compared to {@link SpriteMesh}, where the per sprite data is copied to all four vertices, the dynamic data is a
+ * quarter of the size.
+ * This class has no dependency on a GPU backend, it can be used to calculate buffer sizes and create the static
+ * quad data.
+ *
+ */
+public class InstancedSpriteLayout {
+
+    /**
+     * Number of bytes for each float value
+     */
+    public static final int FLOAT_BYTES = 4;
+
+    private final int staticSizePerVertex;
+    private final int instanceSize;
+
+    /**
+     * Creates the layout using the sizes from the indexer
+     *
+     * @param indexer
+     */
+    public InstancedSpriteLayout(InstancedSpriteIndexer indexer) {
+        this(indexer.getStaticSizePerVertex(), indexer.getInstanceSize());
+    }
+
+    /**
+     * Creates the layout from static size per vertex and instance size
+     *
+     * @param staticSizePerVertex Number of values for each vertex in the shared quad
+     * @param instanceSize Number of values for each instance
+     */
+    public InstancedSpriteLayout(int staticSizePerVertex, int instanceSize) {
+        this.staticSizePerVertex = staticSizePerVertex;
+        this.instanceSize = instanceSize;
+    }
+
+    /**
+     * Returns the number of values needed for the static, shared, quad
+     *
+     * @return Number of values in the static buffer
+     */
+    public int getStaticBufferSize() {
+        return RectangleShapeBuilder.QUAD_VERTICES * staticSizePerVertex;
+    }
+
+    /**
+     * Returns the number of vertices to create the mesh with, for the number of instances.
+     * The mesh builder sizes all attribute buffers using the same vertex count, and the instance buffer holds one
+     * entry for each instance, so the vertex count must be at least the number of instances. Only the first
+     * {@link RectangleShapeBuilder#QUAD_VERTICES} vertices of the static buffer are used when drawing.
+     *
+     * @param instanceCount Number of instances
+     * @return Number of vertices
+     */
+    public int getVertexCount(int instanceCount) {
+        return Math.max(RectangleShapeBuilder.QUAD_VERTICES, instanceCount);
+    }
+
+    /**
+     * Returns the number of values needed for the instance buffer
+     *
+     * @param instanceCount Number of instances
+     * @return Number of values in the instance buffer
+     */
+    public int getInstanceBufferSize(int instanceCount) {
+        return instanceCount * instanceSize;
+    }
+
+    /**
+     * Returns the offset to the first value for an instance
+     *
+     * @param instance
+     * @return Offset to instance data
+     */
+    public int getInstanceOffset(int instance) {
+        return instance * instanceSize;
+    }
+
+    /**
+     * Returns the number of bytes uploaded each frame for instanced sprites, when all instances are updated.
+     *
+     * @param instanceCount
+     * @return Bytes of per sprite data
+     */
+    public int getInstancedBytes(int instanceCount) {
+        return getInstanceBufferSize(instanceCount) * FLOAT_BYTES;
+    }
+
+    /**
+     * Returns the number of bytes uploaded each frame when the same data is stored per vertex, as in
+     * {@link SpriteMesh}
+     *
+     * @param instanceCount
+     * @return Bytes of per sprite data when copied to each vertex
+     */
+    public int getExpandedBytes(int instanceCount) {
+        return getInstancedBytes(instanceCount) * RectangleShapeBuilder.QUAD_VERTICES;
+    }
+
+    /**
+     * Stores the shared quad vertices in destination.
+     * Each vertex is x, y, z and vertex index - vertices are stored clockwise starting with upper left.
+     * Y axis is pointing up, the shader uses the vertex index to select the corner of the texture frame.
+     *
+     * @param rectangle x, y, width and height of the quad, y is upper edge.
+     * @param z Z value for vertices
+     * @param destination Destination for static data, must hold {@link #getStaticBufferSize()} values
+     */
+    public void createQuad(float[] rectangle, float z, float[] destination) {
+        float x1 = rectangle[0];
+        float y1 = rectangle[1];
+        float x2 = x1 + rectangle[2];
+        float y2 = y1 - rectangle[3];
+        int index = 0;
+        index = setVertex(destination, index, x1, y1, z, 0);
+        index = setVertex(destination, index, x2, y1, z, 1);
+        index = setVertex(destination, index, x2, y2, z, 2);
+        setVertex(destination, index, x1, y2, z, 3);
+    }
+
+    private int setVertex(float[] destination, int index, float x, float y, float z, int vertex) {
+        destination[index] = x;
+        destination[index + 1] = y;
+        destination[index + 2] = z;
+        destination[index + 3] = vertex;
+        return index + staticSizePerVertex;
+    }
+
+    /**
+     * Returns the number of values for each vertex in the static quad
+     *
+     * @return
+     */
+    public int getStaticSizePerVertex() {
+        return staticSizePerVertex;
+    }
+
+    /**
+     * Returns the number of values for each instance
+     *
+     * @return
+     */
+    public int getInstanceSize() {
+        return instanceSize;
+    }
+
+}
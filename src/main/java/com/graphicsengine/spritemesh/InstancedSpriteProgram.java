@@ -0,0 +1,33 @@
+package com.graphicsengine.spritemesh;
+
+import com.nucleus.texturing.TiledTexture2D;
+
+/**
+ * Program for instanced sprites, the shared quad is drawn once per instance with translate, rotate, scale and frame
+ * read per instance.
+ * Uses the {@link InstancedSpriteIndexer}, only GLES 3 shaders are available since instancing is not supported
+ * in GLES 2.
+ * The mesh using this program must set the attribute divisor from {@link InstancedSpriteIndexer#getDivisor} and
+ * draw using an instanced draw call, with the number of sprites as instance count.
+ *
+ */
+public class InstancedSpriteProgram extends TiledSpriteProgram {
+
+    protected static final String CATEGORY = "instancedsprite";
+
+    /**
+     * Creates a new instanced sprite program
+     *
+     * @param texture The texture, may be null if shading is not textured
+     * @param shading
+     */
+    public InstancedSpriteProgram(TiledTexture2D texture, Shading shading) {
+        super(null, shading, CATEGORY);
+        if (texture == null && shading == Shading.textured) {
+            throw new IllegalArgumentException("Texture may not be null for shading: " + shading);
+        }
+        this.texture = texture;
+        setIndexer(new InstancedSpriteIndexer());
+    }
+
+}
@@ -0,0 +1,388 @@
+package com.graphicsengine.texturing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.nucleus.SimpleLogger;
+
+/**
+ * Packs a number of RGBA images into one atlas image and creates the UV data for each image, so that sprites using
+ * different images can be rendered with one texture, for instance using a UVTexture2D.
+ * Images are packed with {@link SkylinePacker}, the atlas size is the smallest power of two size where all images
+ * fit, up to max size.
+ * If a cache directory is set the packed atlas is stored on disk, keyed on a hash of the input images, so that the
+ * packing is skipped next time the same images are used.
+ * Packing time and occupancy are logged.
+ *
+ */
+public class AtlasBuilder {
+
+    /**
+     * An image to pack, pixels are stored as RGBA, 4 bytes per pixel, row by row.
+     *
+     */
+    public static class Image {
+
+        public final String name;
+        public final int width;
+        public final int height;
+        public final byte[] pixels;
+
+        /**
+         * Creates a new source image
+         *
+         * @param name
+         * @param width
+         * @param height
+         * @param pixels RGBA pixel data, width * height * 4 bytes
+         * @throws IllegalArgumentException If pixels does not match size
+         */
+        public Image(String name, int width, int height, byte[] pixels) {
+            if (width <= 0 || height <= 0 || pixels == null || pixels.length < width * height * BYTES_PER_PIXEL) {
+                throw new IllegalArgumentException("Invalid image " + name + ", size " + width + ", " + height);
+            }
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+        }
+
+    }
+
+    /**
+     * The result of packing, atlas image and the position of each packed image.
+     *
+     */
+    public static class Atlas {
+
+        private final int width;
+        private final int height;
+        private final byte[] pixels;
+        private final String[] names;
+        /**
+         * x, y, width and height in pixels of each image
+         */
+        private final int[] regions;
+        private final float occupancy;
+
+        protected Atlas(int width, int height, byte[] pixels, String[] names, int[] regions, float occupancy) {
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+            this.names = names;
+            this.regions = regions;
+            this.occupancy = occupancy;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Returns the atlas pixels as RGBA
+         *
+         * @return
+         */
+        public byte[] getPixels() {
+            return pixels;
+        }
+
+        /**
+         * Returns the number of images in the atlas
+         *
+         * @return
+         */
+        public int getFrameCount() {
+            return names.length;
+        }
+
+        /**
+         * Returns the frame of the named image, frames are in the order the images were added.
+         *
+         * @param name
+         * @return The frame index or -1 if not found
+         */
+        public int getFrame(String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the UV data, u, v, width and height normalized to the atlas size, for each frame.
+         *
+         * @return Array with 4 values for each frame
+         */
+        public float[] getUVData() {
+            float[] uv = new float[regions.length];
+            for (int i = 0; i < regions.length; i += 4) {
+                uv[i] = (float) regions[i] / width;
+                uv[i + 1] = (float) regions[i + 1] / height;
+                uv[i + 2] = (float) regions[i + 2] / width;
+                uv[i + 3] = (float) regions[i + 3] / height;
+            }
+            return uv;
+        }
+
+        /**
+         * Returns the occupancy of the atlas, area of images / atlas area
+         *
+         * @return
+         */
+        public float getOccupancy() {
+            return occupancy;
+        }
+
+    }
+
+    public static final int BYTES_PER_PIXEL = 4;
+    /**
+     * Identifier of cache files
+     */
+    private static final int CACHE_MAGIC = 0x41544c53;
+    private static final int CACHE_VERSION = 1;
+
+    private final List<Image> images = new ArrayList<>();
+    private int maxSize = 4096;
+    private int padding = 1;
+    private File cacheDirectory;
+
+    /**
+     * Adds an image to be packed, frames are in the order images are added.
+     *
+     * @param image
+     * @return This builder
+     */
+    public AtlasBuilder add(Image image) {
+        images.add(image);
+        return this;
+    }
+
+    /**
+     * Sets the max width and height of the atlas
+     *
+     * @param maxSize
+     * @return This builder
+     */
+    public AtlasBuilder setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * Sets the number of pixels between images, used to avoid bleeding when texture is filtered.
+     *
+     * @param padding
+     * @return This builder
+     */
+    public AtlasBuilder setPadding(int padding) {
+        this.padding = padding;
+        return this;
+    }
+
+    /**
+     * Sets the directory where packed atlas data is cached, or null to disable cache.
+     *
+     * @param cacheDirectory
+     * @return This builder
+     */
+    public AtlasBuilder setCacheDirectory(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+        return this;
+    }
+
+    /**
+     * Packs the images into an atlas, if the images have been packed before and cache directory is set the atlas is
+     * loaded from cache.
+     *
+     * @return The atlas
+     * @throws IllegalArgumentException If images does not fit in max size
+     */
+    public Atlas create() {
+        long start = System.currentTimeMillis();
+        String key = null;
+        if (cacheDirectory != null) {
+            key = getKey();
+            Atlas atlas = readCache(new File(cacheDirectory, key));
+            if (atlas != null) {
+                SimpleLogger.d(getClass(), "Loaded atlas " + key + " from cache in "
+                        + (System.currentTimeMillis() - start) + " millis");
+                return atlas;
+            }
+        }
+        Atlas atlas = pack();
+        SimpleLogger.d(getClass(), "Packed " + images.size() + " images into " + atlas.getWidth() + " * "
+                + atlas.getHeight() + " atlas in " + (System.currentTimeMillis() - start) + " millis, occupancy "
+                + (int) (atlas.getOccupancy() * 100) + "%");
+        if (key != null) {
+            writeCache(new File(cacheDirectory, key), atlas);
+        }
+        return atlas;
+    }
+
+    /**
+     * Packs the images, images are packed in order of decreasing height.
+     *
+     * @return
+     */
+    protected Atlas pack() {
+        int count = images.size();
+        Integer[] order = new Integer[count];
+        long area = 0;
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            Image image = images.get(i);
+            area += (long) (image.width + padding) * (image.height + padding);
+        }
+        Arrays.sort(order, (a, b) -> images.get(b).height - images.get(a).height);
+        int width = 1;
+        int height = 1;
+        while ((long) width * height < area) {
+            if (width <= height) {
+                width <<= 1;
+            } else {
+                height <<= 1;
+            }
+        }
+        int[] regions = new int[count * 4];
+        while (true) {
+            SkylinePacker packer = new SkylinePacker(width, height);
+            if (pack(packer, order, regions)) {
+                byte[] pixels = new byte[width * height * BYTES_PER_PIXEL];
+                String[] names = new String[count];
+                long used = 0;
+                for (int i = 0; i < count; i++) {
+                    Image image = images.get(i);
+                    names[i] = image.name;
+                    copy(image, pixels, width, regions[i * 4], regions[i * 4 + 1]);
+                    used += (long) image.width * image.height;
+                }
+                return new Atlas(width, height, pixels, names, regions,
+                        (float) ((double) used / ((long) width * height)));
+            }
+            if (width >= maxSize && height >= maxSize) {
+                throw new IllegalArgumentException("Images does not fit in atlas with max size " + maxSize);
+            }
+            if (width <= height && width < maxSize) {
+                width <<= 1;
+            } else {
+                height <<= 1;
+            }
+        }
+    }
+
+    private boolean pack(SkylinePacker packer, Integer[] order, int[] regions) {
+        int[] position = new int[2];
+        for (int index : order) {
+            Image image = images.get(index);
+            if (!packer.pack(image.width + padding, image.height + padding, position)) {
+                return false;
+            }
+            regions[index * 4] = position[0];
+            regions[index * 4 + 1] = position[1];
+            regions[index * 4 + 2] = image.width;
+            regions[index * 4 + 3] = image.height;
+        }
+        return true;
+    }
+
+    private void copy(Image image, byte[] destination, int destinationWidth, int x, int y) {
+        int rowBytes = image.width * BYTES_PER_PIXEL;
+        for (int row = 0; row < image.height; row++) {
+            System.arraycopy(image.pixels, row * rowBytes, destination,
+                    ((y + row) * destinationWidth + x) * BYTES_PER_PIXEL, rowBytes);
+        }
+    }
+
+    /**
+     * Returns the cache key, this is a hash of the images and packing parameters
+     *
+     * @return
+     */
+    protected String getKey() {
+        CRC32 crc = new CRC32();
+        long hash = 1125899906842597L;
+        for (Image image : images) {
+            crc.reset();
+            crc.update(image.pixels, 0, image.width * image.height * BYTES_PER_PIXEL);
+            hash = 31 * hash + image.name.hashCode();
+            hash = 31 * hash + image.width;
+            hash = 31 * hash + image.height;
+            hash = 31 * hash + crc.getValue();
+        }
+        hash = 31 * hash + maxSize;
+        hash = 31 * hash + padding;
+        return "atlas-" + Long.toHexString(hash) + ".bin";
+    }
+
+    private Atlas readCache(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) {
+                return null;
+            }
+            int width = in.readInt();
+            int height = in.readInt();
+            float occupancy = in.readFloat();
+            int count = in.readInt();
+            String[] names = new String[count];
+            int[] regions = new int[count * 4];
+            for (int i = 0; i < count; i++) {
+                names[i] = in.readUTF();
+                for (int r = 0; r < 4; r++) {
+                    regions[i * 4 + r] = in.readInt();
+                }
+            }
+            byte[] pixels = new byte[width * height * BYTES_PER_PIXEL];
+            in.readFully(pixels);
+            return new Atlas(width, height, pixels, names, regions, occupancy);
+        } catch (IOException e) {
+            SimpleLogger.d(getClass(), "Could not read atlas cache " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCache(File file, Atlas atlas) {
+        if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+            SimpleLogger.d(getClass(), "Could not create atlas cache directory " + cacheDirectory);
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(CACHE_VERSION);
+            out.writeInt(atlas.width);
+            out.writeInt(atlas.height);
+            out.writeFloat(atlas.occupancy);
+            out.writeInt(atlas.names.length);
+            for (int i = 0; i < atlas.names.length; i++) {
+                out.writeUTF(atlas.names[i]);
+                for (int r = 0; r < 4; r++) {
+                    out.writeInt(atlas.regions[i * 4 + r]);
+                }
+            }
+            out.write(atlas.pixels);
+        } catch (IOException e) {
+            SimpleLogger.d(getClass(), "Could not write atlas cache " + file + ": " + e.getMessage());
+        }
+    }
+
+}
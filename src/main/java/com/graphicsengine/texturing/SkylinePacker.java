@@ -0,0 +1,181 @@
+package com.graphicsengine.texturing;
+
+import java.util.Arrays;
+
+/**
+ * Packs rectangles into a fixed size area using the skyline bottom-left algorithm.
+ * The skyline is the top edge of the packed rectangles, each rectangle is placed at the lowest position of the
+ * skyline where it fits, leftmost position is used when more than one position has the same height.
+ * Rectangles should be packed in order of decreasing height for best result.
+ *
+ */
+public class SkylinePacker {
+
+    private final int width;
+    private final int height;
+    /**
+     * The skyline segments, x, y and width of each segment
+     */
+    private int[] segmentX;
+    private int[] segmentY;
+    private int[] segmentWidth;
+    private int segmentCount;
+    private long usedArea;
+
+    /**
+     * Creates a new packer for an area of width and height
+     *
+     * @param width
+     * @param height
+     */
+    public SkylinePacker(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid size " + width + ", " + height);
+        }
+        this.width = width;
+        this.height = height;
+        segmentX = new int[16];
+        segmentY = new int[16];
+        segmentWidth = new int[16];
+        segmentWidth[0] = width;
+        segmentCount = 1;
+    }
+
+    /**
+     * Packs a rectangle, the position is stored in result
+     *
+     * @param rectWidth
+     * @param rectHeight
+     * @param result Destination for x and y of the packed rectangle
+     * @return True if the rectangle was packed, false if there is no room
+     */
+    public boolean pack(int rectWidth, int rectHeight, int[] result) {
+        int bestSegment = -1;
+        int bestY = Integer.MAX_VALUE;
+        for (int i = 0; i < segmentCount; i++) {
+            int y = fit(i, rectWidth, rectHeight);
+            if (y >= 0 && y < bestY) {
+                bestY = y;
+                bestSegment = i;
+            }
+        }
+        if (bestSegment < 0) {
+            return false;
+        }
+        result[0] = segmentX[bestSegment];
+        result[1] = bestY;
+        insert(bestSegment, segmentX[bestSegment], bestY + rectHeight, rectWidth);
+        usedArea += (long) rectWidth * rectHeight;
+        return true;
+    }
+
+    /**
+     * Returns the y position where the rectangle fits at the start of the segment
+     *
+     * @return The y position, or -1 if the rectangle does not fit
+     */
+    private int fit(int segment, int rectWidth, int rectHeight) {
+        int x = segmentX[segment];
+        if (x + rectWidth > width) {
+            return -1;
+        }
+        int remaining = rectWidth;
+        int y = 0;
+        int i = segment;
+        while (remaining > 0) {
+            y = Math.max(y, segmentY[i]);
+            if (y + rectHeight > height) {
+                return -1;
+            }
+            remaining -= segmentWidth[i];
+            i++;
+        }
+        return y;
+    }
+
+    /**
+     * Inserts a new segment at index, segments covered by the new segment are shrunk or removed.
+     */
+    private void insert(int index, int x, int y, int segWidth) {
+        ensureCapacity(segmentCount + 1);
+        System.arraycopy(segmentX, index, segmentX, index + 1, segmentCount - index);
+        System.arraycopy(segmentY, index, segmentY, index + 1, segmentCount - index);
+        System.arraycopy(segmentWidth, index, segmentWidth, index + 1, segmentCount - index);
+        segmentX[index] = x;
+        segmentY[index] = y;
+        segmentWidth[index] = segWidth;
+        segmentCount++;
+        int end = x + segWidth;
+        int i = index + 1;
+        while (i < segmentCount && segmentX[i] < end) {
+            int segmentEnd = segmentX[i] + segmentWidth[i];
+            if (segmentEnd <= end) {
+                remove(i);
+            } else {
+                segmentWidth[i] = segmentEnd - end;
+                segmentX[i] = end;
+                break;
+            }
+        }
+        merge();
+    }
+
+    private void remove(int index) {
+        System.arraycopy(segmentX, index + 1, segmentX, index, segmentCount - index - 1);
+        System.arraycopy(segmentY, index + 1, segmentY, index, segmentCount - index - 1);
+        System.arraycopy(segmentWidth, index + 1, segmentWidth, index, segmentCount - index - 1);
+        segmentCount--;
+    }
+
+    /**
+     * Merges neighbouring segments with same height
+     */
+    private void merge() {
+        int i = 0;
+        while (i < segmentCount - 1) {
+            if (segmentY[i] == segmentY[i + 1]) {
+                segmentWidth[i] += segmentWidth[i + 1];
+                remove(i + 1);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (segmentX.length < size) {
+            int length = segmentX.length * 2;
+            segmentX = Arrays.copyOf(segmentX, length);
+            segmentY = Arrays.copyOf(segmentY, length);
+            segmentWidth = Arrays.copyOf(segmentWidth, length);
+        }
+    }
+
+    /**
+     * Returns the occupancy, used area / total area
+     *
+     * @return Occupancy from 0 to 1
+     */
+    public float getOccupancy() {
+        return (float) ((double) usedArea / ((long) width * height));
+    }
+
+    /**
+     * Returns the width of the packing area
+     *
+     * @return
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the packing area
+     *
+     * @return
+     */
+    public int getHeight() {
+        return height;
+    }
+
+}
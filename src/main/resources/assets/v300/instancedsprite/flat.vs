@@ -0,0 +1,31 @@
+#version 300 es
+ /**
+ * Vertex shader for instanced untextured sprite renderer
+ * aVertex is from the shared quad and read for each vertex, xyz is position and w is the vertex index (0 - 3).
+ * Translate, rotate, scale and color are read once per instance (attribute divisor 1), the transform is the same
+ * for the four vertices of an instance.
+ */
+
+precision highp float;
+
+//Put array declaration after name for GLSL compatibility
+uniform mat4 uModelMatrix[3];
+
+in vec4 aVertex; //shared quad vertex position and vertex index
+in vec3 aTranslate; //instance x, y, z
+in vec3 aRotate; //instance rotation
+in vec3 aScale; //instance scale
+in vec4 aColor; //instance color
+
+out vec4 color;
+
+/**
+ * From commonvertex.essl
+ */
+mat4 calculateTransformMatrix(vec3 rotate, vec3 scale, vec3 translate);
+
+void main() {
+    mat4 instance = calculateTransformMatrix(aRotate, aScale, aTranslate) * uModelMatrix[0] * uModelMatrix[1];
+    gl_Position = (vec4(aVertex.xyz, 1) * instance) * uModelMatrix[2];
+    color = aColor;
+}
@@ -0,0 +1,36 @@
+#version 300 es
+ /**
+ * Vertex shader for instanced tiled sprite renderer
+ * aVertex is from the shared quad and read for each vertex, xyz is position and w is the vertex index (0 - 3)
+ * clockwise from upper left.
+ * Translate, rotate, scale and frame are read once per instance (attribute divisor 1), there is no per vertex
+ * texture coordinate - the tile of the frame is selected per instance and the corner by the vertex index.
+ */
+
+precision highp float;
+
+//Put array declaration after name for GLSL compatibility
+uniform mat4 uModelMatrix[3];
+uniform vec3 uTextureData[1]; //tile width, tile height, frames per line
+uniform vec2 uScreenSize[2]; //Width and height of screen
+
+in vec4 aVertex; //shared quad vertex position and vertex index
+in vec3 aTranslate; //instance x, y, z
+in vec3 aRotate; //instance rotation
+in vec3 aScale; //instance scale
+in vec2 aFrameData; //instance frame
+
+out vec2 vTexCoord;
+
+mat4 calculateTransformMatrix(vec3 rotate, vec3 scale, vec3 translate);
+
+void main() {
+    vec4 pos =  vec4(aVertex.xyz, 1) * (calculateTransformMatrix(aRotate, aScale, aTranslate) * uModelMatrix[0] * uModelMatrix[1]);
+    gl_Position = vec4(floor((uScreenSize[0] * vec2(pos) + 0.5)) / uScreenSize[0], pos.z, 1) * uModelMatrix[2];
+    // Tile column and row of the instance frame
+    vec2 tile = vec2(mod(aFrameData.x, uTextureData[0].z), floor(aFrameData.x / uTextureData[0].z));
+    // Corner of the tile, x is 1 for vertex 1 and 2, y is 1 for vertex 2 and 3
+    int index = int(aVertex.w);
+    vec2 corner = vec2(index == 1 || index == 2 ? 1.0 : 0.0, index >= 2 ? 1.0 : 0.0);
+    vTexCoord = (tile + corner) * uTextureData[0].xy;
+}
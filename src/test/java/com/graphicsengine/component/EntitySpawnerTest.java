@@ -0,0 +1,104 @@
+package com.graphicsengine.component;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.graphicsengine.component.ActorComponent.ActorVariables;
+
+public class EntitySpawnerTest {
+
+    /**
+     * Translate, rotate, scale, frame then actor variables
+     */
+    private static final int TRANSLATE = 0;
+    private static final int ROTATE = 3;
+    private static final int SCALE = 6;
+    private static final int FRAME = 9;
+    private static final int ACTOR = 10;
+    private static final int ENTITY_SIZE = ACTOR + ActorVariables.SIZE.offset;
+    private static final float[] BOUNDS = new float[] { -1, 1, 2, 2 };
+
+    private static EntitySpawner createSpawner() {
+        return new EntitySpawner().setArea(100, 50, 10).setRotate(1, 2).setScale(0.5f, 1).setFrames(3, 5)
+                .setAnimation(2, 4);
+    }
+
+    private static float[] spawn(EntitySpawner spawner, int entities, int first, int count, long seed) {
+        float[] data = new float[entities * ENTITY_SIZE];
+        spawner.spawn(data, first, count, ENTITY_SIZE, ACTOR, TRANSLATE, ROTATE, SCALE, FRAME, BOUNDS, seed);
+        return data;
+    }
+
+    @Test
+    public void testValues() {
+        int count = 1000;
+        float[] data = spawn(createSpawner(), count, 0, count, 1);
+        for (int i = 0; i < count; i++) {
+            int index = i * ENTITY_SIZE;
+            int actor = index + ACTOR;
+            Assert.assertTrue(Math.abs(data[index + TRANSLATE]) <= 50);
+            Assert.assertTrue(Math.abs(data[index + TRANSLATE + 1]) <= 25);
+            Assert.assertTrue(data[index + TRANSLATE + 2] >= 0 && data[index + TRANSLATE + 2] < 10);
+            Assert.assertEquals(1, data[index + ROTATE + 2], 0);
+            float scale = data[index + SCALE];
+            Assert.assertTrue(scale >= 0.5f && scale < 1.5f);
+            Assert.assertEquals(scale, data[index + SCALE + 1], 0);
+            float frame = data[index + FRAME];
+            Assert.assertTrue(frame == 3 || frame == 4 || frame == 5);
+            Assert.assertTrue(data[actor + ActorVariables.ROTATESPEED.offset] < 2);
+            for (int b = 0; b < 4; b++) {
+                Assert.assertEquals(BOUNDS[b] * scale, data[actor + ActorVariables.BOUNDINGBOX.offset + b], 0);
+            }
+            // Animation is stored as index plus one
+            Assert.assertEquals(3, data[actor + ActorVariables.ANIMATION.offset], 0);
+            float time = data[actor + ActorVariables.ANIMATIONTIME.offset];
+            Assert.assertTrue(time >= 0 && time < 4);
+        }
+    }
+
+    @Test
+    public void testSeed() {
+        int count = EntitySpawner.CHUNK_SIZE * 3 + 10;
+        float[] data = spawn(createSpawner(), count, 0, count, 1);
+        Assert.assertArrayEquals(data, spawn(createSpawner(), count, 0, count, 1), 0);
+        Assert.assertFalse(Arrays.equals(data, spawn(createSpawner(), count, 0, count, 2)));
+    }
+
+    @Test
+    public void testRange() {
+        float[] data = spawn(createSpawner(), 10, 3, 4, 1);
+        for (int i = 0; i < 10; i++) {
+            float scale = data[i * ENTITY_SIZE + SCALE];
+            if (i < 3 || i >= 7) {
+                Assert.assertEquals(0, scale, 0);
+            } else {
+                Assert.assertTrue(scale >= 0.5f);
+            }
+        }
+    }
+
+    @Test
+    public void testNotAnimated() {
+        float[] data = spawn(new EntitySpawner(), 2, 0, 2, 1);
+        Assert.assertEquals(0, data[ACTOR + ActorVariables.ANIMATION.offset], 0);
+        Assert.assertEquals(0, data[ACTOR + ActorVariables.ANIMATIONTIME.offset], 0);
+        Assert.assertEquals(1, data[SCALE], 0);
+    }
+
+    @Test
+    public void testOptionalRotateAndScale() {
+        float[] data = new float[ENTITY_SIZE];
+        createSpawner().spawn(data, 0, 1, ENTITY_SIZE, ACTOR, TRANSLATE, -1, -1, FRAME, BOUNDS, 1);
+        Assert.assertEquals(0, data[ROTATE + 2], 0);
+        Assert.assertEquals(0, data[SCALE], 0);
+        Assert.assertTrue(data[ACTOR + ActorVariables.BOUNDINGBOX.offset + 2] >= 1);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testInvalidRange() {
+        spawn(createSpawner(), 10, 8, 4, 1);
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.graphicsengine.component;
+
+/**
+ * Measures the update of 500k particles, using the parallel chunk update, and the time to emit them.
+ * Not run as part of the unit tests, run the main method with the test classpath.
+ *
+ */
+public class ParticleBenchmark {
+
+    private static final int COUNT = 500000;
+    private static final int FRAMES = 100;
+    private static final float DELTA = 1f / 60;
+
+    public static void main(String[] args) {
+        ParticleComponent component = ParticleComponentTest.createComponent(COUNT);
+        // Lifetime longer than the benchmark so that all particles are updated each frame
+        component.getEmitter(0).getLifetime()[0] = 100;
+        component.getEmitter(0).getLifetime()[1] = 100;
+        long start = System.nanoTime();
+        component.emit(1);
+        long emitted = System.nanoTime();
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        int live = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            long frameStart = System.nanoTime();
+            live = component.update(DELTA);
+            long time = System.nanoTime() - frameStart;
+            best = Math.min(best, time);
+            total += time;
+        }
+        System.out.println(COUNT + " particles, emit " + (emitted - start) / 1000000f + " ms, update average "
+                + total / FRAMES / 1000000f + " ms, best " + best / 1000000f + " ms, live " + live);
+    }
+
+}
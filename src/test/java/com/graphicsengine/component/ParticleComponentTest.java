@@ -0,0 +1,103 @@
+package com.graphicsengine.component;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.graphicsengine.component.SpriteSorter.SortOrder;
+import com.graphicsengine.spritemesh.InstancedSpriteIndexer;
+
+public class ParticleComponentTest {
+
+    private static final int SPRITE_SIZE = new InstancedSpriteIndexer().getInstanceSize();
+
+    /**
+     * Creates a component with one emitter that emits count particles each second, lifetime is 0.5 to 1.5 seconds.
+     * Sprite data uses the per sprite offsets of the tiled sprite layout.
+     */
+    static ParticleComponent createComponent(int count) {
+        ParticleComponent component = new ParticleComponent();
+        component.count = count;
+        component.seed = 1;
+        ParticleEmitter emitter = new ParticleEmitter();
+        emitter.setRate(count);
+        emitter.getLifetime()[0] = 0.5f;
+        emitter.getLifetime()[1] = 1.5f;
+        component.emitters = new ParticleEmitter[] { emitter };
+        component.createBuffers(new InstancedSpriteIndexer());
+        return component;
+    }
+
+    /**
+     * Live particles shall be copied, in particle order, to the start of the upload buffer - also when the update
+     * is done in parallel chunks.
+     */
+    private void assertCompacted(ParticleComponent component, int live) {
+        float[] sprites = component.spriteData.getData();
+        int previous = -1;
+        for (int i = 0; i < live; i++) {
+            int particle = (int) component.uploadData[i * SPRITE_SIZE];
+            Assert.assertTrue(particle > previous);
+            for (int v = 0; v < SPRITE_SIZE; v++) {
+                Assert.assertEquals(sprites[particle * SPRITE_SIZE + v], component.uploadData[i * SPRITE_SIZE + v],
+                        0);
+            }
+            previous = particle;
+        }
+    }
+
+    private void testCompaction(int count) {
+        ParticleComponent component = createComponent(count);
+        component.emit(1);
+        float[] sprites = component.spriteData.getData();
+        // Velocity is 0, store particle index in translate x to identify particles
+        for (int particle = 0; particle < count; particle++) {
+            sprites[particle * SPRITE_SIZE] = particle;
+        }
+        Assert.assertEquals(count, component.update(0));
+        assertCompacted(component, count);
+        int live = component.update(1);
+        Assert.assertTrue(live > 0 && live < count);
+        assertCompacted(component, live);
+        // Dead particles stay dead
+        Assert.assertEquals(live, component.update(0));
+        assertCompacted(component, live);
+        Assert.assertEquals(0, component.update(1));
+    }
+
+    @Test
+    public void testCompaction() {
+        testCompaction(100);
+    }
+
+    @Test
+    public void testCompactionParallel() {
+        testCompaction(ParticleComponent.CHUNK_SIZE * 2 + 100);
+    }
+
+    @Test
+    public void testEmitReusesOldest() {
+        ParticleComponent component = createComponent(10);
+        component.getEmitter(0).setRate(15);
+        component.emit(1);
+        Assert.assertEquals(10, component.update(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCullNotSupported() {
+        ParticleComponent component = new ParticleComponent();
+        component.count = 10;
+        component.cull = true;
+        component.emitters = new ParticleEmitter[] { new ParticleEmitter() };
+        component.createBuffers(new InstancedSpriteIndexer());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDepthSortNotSupported() {
+        ParticleComponent component = new ParticleComponent();
+        component.count = 10;
+        component.depthSort = SortOrder.ASCENDING;
+        component.emitters = new ParticleEmitter[] { new ParticleEmitter() };
+        component.createBuffers(new InstancedSpriteIndexer());
+    }
+
+}
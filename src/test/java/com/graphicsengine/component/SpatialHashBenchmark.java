@@ -0,0 +1,102 @@
+package com.graphicsengine.component;
+
+import java.util.Random;
+
+import com.graphicsengine.component.SpatialHash.PairListener;
+
+/**
+ * Compares the broad-phase cost of {@link SpatialHash} with testing all pairs, for 10k, 100k and 1M entities.
+ * All pairs is only measured for 10k entities, above that it is estimated from the 10k result.
+ * Not run as part of the unit tests, run the main method with the test classpath.
+ *
+ */
+public class SpatialHashBenchmark {
+
+    private static final int STRIDE = 6;
+    private static final int BOUNDS = 2;
+    private static final int[] COUNTS = new int[] { 10000, 100000, 1000000 };
+    private static final int ITERATIONS = 5;
+
+    private static class Counter implements PairListener {
+        private int pairs;
+
+        @Override
+        public void onPair(int entity1, int entity2) {
+            pairs++;
+        }
+    }
+
+    public static void main(String[] args) {
+        double bruteNanosPerPair = 0;
+        for (int count : COUNTS) {
+            float[] data = create(count);
+            SpatialHash hash = new SpatialHash();
+            Counter counter = new Counter();
+            long rebuild = Long.MAX_VALUE;
+            long find = Long.MAX_VALUE;
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                hash.rebuild(data, count, STRIDE, 0, BOUNDS);
+                long built = System.nanoTime();
+                counter.pairs = 0;
+                hash.findPairs(counter);
+                long end = System.nanoTime();
+                rebuild = Math.min(rebuild, built - start);
+                find = Math.min(find, end - built);
+            }
+            if (bruteNanosPerPair == 0) {
+                long start = System.nanoTime();
+                int pairs = bruteForce(data, count);
+                long end = System.nanoTime();
+                if (pairs != counter.pairs) {
+                    throw new IllegalStateException("Brute force found " + pairs + ", hash " + counter.pairs);
+                }
+                bruteNanosPerPair = (double) (end - start) / ((long) count * (count - 1) / 2);
+            }
+            double brute = bruteNanosPerPair * ((long) count * (count - 1) / 2);
+            System.out.println(count + " entities, " + counter.pairs + " pairs: rebuild " + rebuild / 1000000f
+                    + " ms, findPairs " + find / 1000000f + " ms, all pairs " + (float) (brute / 1000000) + " ms");
+        }
+    }
+
+    /**
+     * Creates entities with constant density, on average one entity per 16 units square
+     */
+    private static float[] create(int count) {
+        Random random = new Random(count);
+        float worldSize = (float) Math.sqrt(count * 16.0);
+        float[] data = new float[count * STRIDE];
+        for (int i = 0; i < count; i++) {
+            int index = i * STRIDE;
+            data[index] = random.nextFloat() * worldSize;
+            data[index + 1] = random.nextFloat() * worldSize;
+            data[index + BOUNDS] = -1;
+            data[index + BOUNDS + 1] = 1;
+            data[index + BOUNDS + 2] = 2;
+            data[index + BOUNDS + 3] = 2;
+        }
+        return data;
+    }
+
+    private static int bruteForce(float[] data, int count) {
+        int pairs = 0;
+        for (int e1 = 0; e1 < count; e1++) {
+            int i1 = e1 * STRIDE;
+            float minX = data[i1] + data[i1 + BOUNDS];
+            float maxY = data[i1 + 1] + data[i1 + BOUNDS + 1];
+            float maxX = minX + data[i1 + BOUNDS + 2];
+            float minY = maxY - data[i1 + BOUNDS + 3];
+            for (int e2 = e1 + 1; e2 < count; e2++) {
+                int i2 = e2 * STRIDE;
+                float x = data[i2] + data[i2 + BOUNDS];
+                float y = data[i2 + 1] + data[i2 + BOUNDS + 1];
+                if (x <= maxX && x + data[i2 + BOUNDS + 2] >= minX && y - data[i2 + BOUNDS + 3] <= maxY
+                        && y >= minY) {
+                    pairs++;
+                }
+            }
+        }
+        return pairs;
+    }
+
+}
@@ -0,0 +1,260 @@
+package com.graphicsengine.component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.graphicsengine.component.SpatialHash.PairListener;
+
+public class SpatialHashTest {
+
+    /**
+     * Translate x, y then bounding box x, y, width, height
+     */
+    private static final int STRIDE = 6;
+    private static final int TRANSLATE = 0;
+    private static final int BOUNDS = 2;
+
+    /**
+     * Creates entity data for boxes with translate at x, y and a bounding box with top left at translate
+     */
+    private static float[] createEntities(float[]... boxes) {
+        float[] data = new float[boxes.length * STRIDE];
+        for (int i = 0; i < boxes.length; i++) {
+            int index = i * STRIDE;
+            data[index + TRANSLATE] = boxes[i][0];
+            data[index + TRANSLATE + 1] = boxes[i][1];
+            data[index + BOUNDS + 2] = boxes[i][2];
+            data[index + BOUNDS + 3] = boxes[i][3];
+        }
+        return data;
+    }
+
+    private static float[] createRandom(int count, float size, float worldSize, long seed) {
+        Random random = new Random(seed);
+        float[] data = new float[count * STRIDE];
+        for (int i = 0; i < count; i++) {
+            int index = i * STRIDE;
+            data[index + TRANSLATE] = random.nextFloat() * worldSize - worldSize / 2;
+            data[index + TRANSLATE + 1] = random.nextFloat() * worldSize - worldSize / 2;
+            data[index + BOUNDS] = -size / 2;
+            data[index + BOUNDS + 1] = size / 2;
+            data[index + BOUNDS + 2] = size * (0.5f + random.nextFloat() * 0.5f);
+            data[index + BOUNDS + 3] = size * (0.5f + random.nextFloat() * 0.5f);
+        }
+        return data;
+    }
+
+    private static boolean overlaps(float[] data, int e1, int e2) {
+        int i1 = e1 * STRIDE;
+        int i2 = e2 * STRIDE;
+        float x1 = data[i1 + TRANSLATE] + data[i1 + BOUNDS];
+        float y1 = data[i1 + TRANSLATE + 1] + data[i1 + BOUNDS + 1];
+        float x2 = data[i2 + TRANSLATE] + data[i2 + BOUNDS];
+        float y2 = data[i2 + TRANSLATE + 1] + data[i2 + BOUNDS + 1];
+        return x1 <= x2 + data[i2 + BOUNDS + 2] && x1 + data[i1 + BOUNDS + 2] >= x2
+                && y1 - data[i1 + BOUNDS + 3] <= y2 && y1 >= y2 - data[i2 + BOUNDS + 3];
+    }
+
+    @Test
+    public void testQuery() {
+        float[] data = createEntities(new float[] { 0, 1, 1, 1 }, new float[] { 5, 1, 1, 1 },
+                new float[] { 0, 0.5f, 1, 1 });
+        SpatialHash hash = new SpatialHash();
+        hash.rebuild(data, 3, STRIDE, TRANSLATE, BOUNDS);
+        Assert.assertEquals(3, hash.getCount());
+        int[] result = new int[3];
+        int found = hash.query(0.1f, 0.1f, 0.2f, 0.2f, result);
+        Arrays.sort(result, 0, found);
+        Assert.assertArrayEquals(new int[] { 0, 2 }, Arrays.copyOf(result, found));
+        Assert.assertEquals(1, hash.query(5.5f, 0.5f, 5.5f, 0.5f, result));
+        Assert.assertEquals(1, result[0]);
+        Assert.assertEquals(0, hash.query(10, 10, 11, 11, result));
+    }
+
+    @Test
+    public void testNeighboursExcludesEntity() {
+        float[] data = createEntities(new float[] { 0, 1, 1, 1 }, new float[] { 0.5f, 1, 1, 1 },
+                new float[] { 3, 1, 1, 1 });
+        SpatialHash hash = new SpatialHash();
+        hash.rebuild(data, 3, STRIDE, TRANSLATE, BOUNDS);
+        int[] result = new int[3];
+        Assert.assertEquals(1, hash.getNeighbours(0, result));
+        Assert.assertEquals(1, result[0]);
+        Assert.assertEquals(0, hash.getNeighbours(2, result));
+    }
+
+    @Test
+    public void testResultIsBounded() {
+        float[] data = createEntities(new float[] { 0, 1, 1, 1 }, new float[] { 0, 1, 1, 1 },
+                new float[] { 0, 1, 1, 1 });
+        SpatialHash hash = new SpatialHash();
+        hash.rebuild(data, 3, STRIDE, TRANSLATE, BOUNDS);
+        Assert.assertEquals(2, hash.query(0, 0, 1, 1, new int[2]));
+    }
+
+    @Test
+    public void testCellSize() {
+        float[] data = createEntities(new float[] { 0, 1, 1, 1 }, new float[] { 0, 4, 4, 2 });
+        SpatialHash hash = new SpatialHash();
+        hash.rebuild(data, 2, STRIDE, TRANSLATE, BOUNDS);
+        Assert.assertEquals(4, hash.getCellSize(), 0);
+        SpatialHash fixed = new SpatialHash(0.5f);
+        fixed.rebuild(data, 2, STRIDE, TRANSLATE, BOUNDS);
+        Assert.assertEquals(0.5f, fixed.getCellSize(), 0);
+    }
+
+    /**
+     * Pairs found by the hash shall be the same as by testing all pairs, including when entities are larger than
+     * a fixed cellsize.
+     */
+    @Test
+    public void testFindPairsMatchesBruteForce() {
+        int count = 500;
+        float[] data = createRandom(count, 4, 100, 1);
+        List<Long> expected = new ArrayList<>();
+        for (int e1 = 0; e1 < count; e1++) {
+            for (int e2 = e1 + 1; e2 < count; e2++) {
+                if (overlaps(data, e1, e2)) {
+                    expected.add(((long) e1 << 32) | e2);
+                }
+            }
+        }
+        Assert.assertTrue(expected.size() > 0);
+        for (SpatialHash hash : new SpatialHash[] { new SpatialHash(), new SpatialHash(1) }) {
+            hash.rebuild(data, count, STRIDE, TRANSLATE, BOUNDS);
+            final List<Long> pairs = new ArrayList<>();
+            int found = hash.findPairs(new PairListener() {
+                @Override
+                public void onPair(int entity1, int entity2) {
+                    Assert.assertTrue(entity1 < entity2);
+                    pairs.add(((long) entity1 << 32) | entity2);
+                }
+            });
+            Assert.assertEquals(pairs.size(), found);
+            pairs.sort(null);
+            Assert.assertEquals(expected, pairs);
+        }
+    }
+
+    @Test
+    public void testRebuildWithFewerEntities() {
+        float[] data = createRandom(100, 4, 20, 2);
+        SpatialHash hash = new SpatialHash();
+        hash.rebuild(data, 100, STRIDE, TRANSLATE, BOUNDS);
+        hash.rebuild(data, 1, STRIDE, TRANSLATE, BOUNDS);
+        Assert.assertEquals(1, hash.getCount());
+        int[] result = new int[100];
+        Assert.assertEquals(1, hash.query(-100, -100, 100, 100, result));
+        Assert.assertEquals(0, result[0]);
+    }
+
+    /**
+     * Returns the sorted result of querying the whole world
+     */
+    private static int[] queryAll(SpatialHash hash, int max) {
+        int[] result = new int[max];
+        int found = hash.query(-1000, -1000, 1000, 1000, result);
+        Arrays.sort(result, 0, found);
+        return Arrays.copyOf(result, found);
+    }
+
+    private static int[] queryPoint(SpatialHash hash, float x, float y) {
+        int[] result = new int[10];
+        int found = hash.query(x, y, x, y, result);
+        Arrays.sort(result, 0, found);
+        return Arrays.copyOf(result, found);
+    }
+
+    @Test
+    public void testUpdateMovedEntity() {
+        float[] data = createEntities(new float[] { 0, 1, 1, 1 }, new float[] { 5, 1, 1, 1 });
+        SpatialHash hash = new SpatialHash();
+        hash.rebuild(data, 2, STRIDE, TRANSLATE, BOUNDS);
+        data[TRANSLATE] = 20;
+        hash.update(data, 2, STRIDE, TRANSLATE, BOUNDS, new int[] { 0 }, 1);
+        Assert.assertEquals(0, queryPoint(hash, 0.5f, 0.5f).length);
+        Assert.assertArrayEquals(new int[] { 0 }, queryPoint(hash, 20.5f, 0.5f));
+        Assert.assertArrayEquals(new int[] { 1 }, queryPoint(hash, 5.5f, 0.5f));
+    }
+
+    @Test
+    public void testUpdateGrownEntity() {
+        float[] data = createEntities(new float[] { 0, 1, 1, 1 }, new float[] { 5, 1, 1, 1 });
+        SpatialHash hash = new SpatialHash();
+        hash.rebuild(data, 2, STRIDE, TRANSLATE, BOUNDS);
+        // Entity 1 grows to cover a number of cells
+        data[STRIDE + BOUNDS + 2] = 10;
+        hash.update(data, 2, STRIDE, TRANSLATE, BOUNDS, new int[] { 1 }, 1);
+        Assert.assertArrayEquals(new int[] { 1 }, queryPoint(hash, 14.5f, 0.5f));
+    }
+
+    @Test
+    public void testUpdateAddAndRemove() {
+        float[] data = createEntities(new float[] { 0, 1, 1, 1 }, new float[] { 5, 1, 1, 1 },
+                new float[] { 10, 1, 1, 1 });
+        SpatialHash hash = new SpatialHash();
+        hash.rebuild(data, 2, STRIDE, TRANSLATE, BOUNDS);
+        hash.update(data, 3, STRIDE, TRANSLATE, BOUNDS, new int[] { 2 }, 1);
+        Assert.assertEquals(3, hash.getCount());
+        Assert.assertArrayEquals(new int[] { 0, 1, 2 }, queryAll(hash, 10));
+        // Remove entity 0 by moving the last entity into its place
+        System.arraycopy(data, 2 * STRIDE, data, 0, STRIDE);
+        hash.update(data, 2, STRIDE, TRANSLATE, BOUNDS, new int[] { 0 }, 1);
+        Assert.assertEquals(2, hash.getCount());
+        Assert.assertArrayEquals(new int[] { 0, 1 }, queryAll(hash, 10));
+        Assert.assertEquals(0, queryPoint(hash, 0.5f, 0.5f).length);
+        Assert.assertArrayEquals(new int[] { 0 }, queryPoint(hash, 10.5f, 0.5f));
+    }
+
+    /**
+     * Random moves, adds and removes using update shall give the same pairs as a rebuild
+     */
+    @Test
+    public void testUpdateMatchesRebuild() {
+        int max = 400;
+        float[] data = createRandom(max, 4, 100, 3);
+        float[] moved = createRandom(max, 4, 100, 4);
+        Random random = new Random(5);
+        SpatialHash updated = new SpatialHash(4);
+        SpatialHash rebuilt = new SpatialHash(4);
+        int count = 200;
+        updated.rebuild(data, count, STRIDE, TRANSLATE, BOUNDS);
+        int[] changed = new int[max];
+        for (int round = 0; round < 20; round++) {
+            int changedCount = 0;
+            int newCount = Math.max(1, Math.min(max, count + random.nextInt(41) - 20));
+            for (int i = count; i < newCount; i++) {
+                changed[changedCount++] = i;
+            }
+            for (int i = 0; i < 20; i++) {
+                int entity = random.nextInt(newCount);
+                System.arraycopy(moved, random.nextInt(max) * STRIDE, data, entity * STRIDE, STRIDE);
+                changed[changedCount++] = entity;
+            }
+            count = newCount;
+            updated.update(data, count, STRIDE, TRANSLATE, BOUNDS, changed, changedCount);
+            rebuilt.rebuild(data, count, STRIDE, TRANSLATE, BOUNDS);
+            Assert.assertEquals(count, updated.getCount());
+            Assert.assertEquals(getPairs(rebuilt), getPairs(updated));
+            Assert.assertArrayEquals(queryAll(rebuilt, max), queryAll(updated, max));
+        }
+    }
+
+    private static List<Long> getPairs(SpatialHash hash) {
+        final List<Long> pairs = new ArrayList<>();
+        hash.findPairs(new PairListener() {
+            @Override
+            public void onPair(int entity1, int entity2) {
+                pairs.add(((long) entity1 << 32) | entity2);
+            }
+        });
+        pairs.sort(null);
+        return pairs;
+    }
+
+}
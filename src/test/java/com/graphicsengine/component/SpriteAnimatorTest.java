@@ -0,0 +1,111 @@
+package com.graphicsengine.component;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.graphicsengine.component.SpriteAnimation.LoopMode;
+
+public class SpriteAnimatorTest {
+
+    /**
+     * Animation index plus one, time and frame for each entity
+     */
+    private static final int STRIDE = 3;
+    private static final int ANIMATION = 0;
+    private static final int TIME = 1;
+    private static final int FRAME = 2;
+
+    private static SpriteAnimator createAnimator() {
+        return new SpriteAnimator(new SpriteAnimation[] {
+                new SpriteAnimation("once", new int[] { 10, 11, 12 }, new float[] { 1 }, LoopMode.ONCE),
+                new SpriteAnimation("loop", new int[] { 10, 11, 12 }, new float[] { 1 }, LoopMode.LOOP),
+                new SpriteAnimation("pingpong", new int[] { 10, 11, 12 }, new float[] { 1 }, LoopMode.PINGPONG),
+                new SpriteAnimation("durations", new int[] { 1, 2, 3 }, new float[] { 0.5f, 1, 1.5f },
+                        LoopMode.LOOP) });
+    }
+
+    /**
+     * Advances one entity, with the animation and time, and returns the frame
+     */
+    private static float advance(SpriteAnimator animator, float[] entity, float delta) {
+        float[] sprite = new float[1];
+        animator.advance(entity, 1, STRIDE, ANIMATION, TIME, FRAME, sprite, 1, 0, delta);
+        // Frame shall be written to entity and sprite
+        Assert.assertEquals(entity[FRAME], sprite[0], 0);
+        return sprite[0];
+    }
+
+    @Test
+    public void testOnce() {
+        SpriteAnimator animator = createAnimator();
+        float[] entity = new float[] { animator.getAnimation("once") + 1, 0, 0 };
+        Assert.assertEquals(10, advance(animator, entity, 0), 0);
+        Assert.assertEquals(11, advance(animator, entity, 1.5f), 0);
+        // Last frame is kept and time stops at the duration
+        Assert.assertEquals(12, advance(animator, entity, 10), 0);
+        Assert.assertEquals(3, entity[TIME], 0);
+        Assert.assertEquals(12, advance(animator, entity, 1), 0);
+    }
+
+    @Test
+    public void testLoop() {
+        SpriteAnimator animator = createAnimator();
+        float[] entity = new float[] { animator.getAnimation("loop") + 1, 0, 0 };
+        Assert.assertEquals(12, advance(animator, entity, 2.5f), 0);
+        Assert.assertEquals(10, advance(animator, entity, 1), 0);
+        Assert.assertEquals(0.5f, entity[TIME], 0.0001f);
+        // Wraps more than one period
+        Assert.assertEquals(11, advance(animator, entity, 7), 0);
+        Assert.assertEquals(1.5f, entity[TIME], 0.0001f);
+    }
+
+    @Test
+    public void testPingPong() {
+        SpriteAnimator animator = createAnimator();
+        float[] entity = new float[] { animator.getAnimation("pingpong") + 1, 0, 0 };
+        Assert.assertEquals(12, advance(animator, entity, 2.5f), 0);
+        // Backwards after the duration
+        Assert.assertEquals(12, advance(animator, entity, 1), 0);
+        Assert.assertEquals(11, advance(animator, entity, 1), 0);
+        Assert.assertEquals(10, advance(animator, entity, 1), 0);
+        // Forward again after one period
+        Assert.assertEquals(10, advance(animator, entity, 1), 0);
+        Assert.assertEquals(0.5f, entity[TIME], 0.0001f);
+        Assert.assertEquals(11, advance(animator, entity, 13), 0);
+    }
+
+    @Test
+    public void testDurations() {
+        SpriteAnimator animator = createAnimator();
+        int animation = animator.getAnimation("durations");
+        Assert.assertEquals(3, animator.getDuration(animation), 0);
+        Assert.assertEquals(1, animator.getFrame(animation, 0.4f), 0);
+        Assert.assertEquals(2, animator.getFrame(animation, 0.5f), 0);
+        Assert.assertEquals(2, animator.getFrame(animation, 1.4f), 0);
+        Assert.assertEquals(3, animator.getFrame(animation, 1.5f), 0);
+        Assert.assertEquals(3, animator.getFrame(animation, 3), 0);
+    }
+
+    @Test
+    public void testNotAnimated() {
+        SpriteAnimator animator = createAnimator();
+        float[] entities = new float[] { 0, 0, 5, animator.getAnimationCount() + 1, 0, 6 };
+        animator.advance(entities, 2, STRIDE, ANIMATION, TIME, FRAME, null, 0, 0, 1);
+        Assert.assertArrayEquals(new float[] { 0, 0, 5, animator.getAnimationCount() + 1, 0, 6 }, entities, 0);
+    }
+
+    @Test
+    public void testLookup() {
+        SpriteAnimator animator = createAnimator();
+        Assert.assertEquals(4, animator.getAnimationCount());
+        Assert.assertEquals(-1, animator.getAnimation("missing"));
+        Assert.assertEquals(LoopMode.PINGPONG, animator.getLoopMode(animator.getAnimation("pingpong")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDurations() {
+        new SpriteAnimator(new SpriteAnimation[] {
+                new SpriteAnimation("invalid", new int[] { 1, 2, 3 }, new float[] { 1, 1 }, LoopMode.LOOP) });
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.graphicsengine.component;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpriteCullerTest {
+
+    private static final int ENTITY_SIZE = 6;
+    private static final int TRANSLATE = 0;
+    private static final int BOUNDS = 2;
+    /**
+     * Left, top, right, bottom
+     */
+    private static final float[] VIEW = new float[] { -1, 1, 1, -1 };
+
+    /**
+     * Creates entities along x, from -count / 2 to count / 2, with a bounding box of 0.5 * 0.5 centered on translate
+     */
+    private float[] createEntities(int count, float step) {
+        float[] data = new float[count * ENTITY_SIZE];
+        for (int i = 0; i < count; i++) {
+            int index = i * ENTITY_SIZE;
+            data[index + TRANSLATE] = (i - count / 2) * step;
+            data[index + TRANSLATE + 1] = 0;
+            data[index + BOUNDS] = -0.25f;
+            data[index + BOUNDS + 1] = 0.25f;
+            data[index + BOUNDS + 2] = 0.5f;
+            data[index + BOUNDS + 3] = 0.5f;
+        }
+        return data;
+    }
+
+    private int[] expected(float[] data, int count, int[] order) {
+        int[] result = new int[count];
+        int visible = 0;
+        for (int i = 0; i < count; i++) {
+            int entity = order != null ? order[i] : i;
+            float x = data[entity * ENTITY_SIZE + TRANSLATE];
+            if (x - 0.25f <= VIEW[2] && x + 0.25f >= VIEW[0]) {
+                result[visible++] = entity;
+            }
+        }
+        return java.util.Arrays.copyOf(result, visible);
+    }
+
+    @Test
+    public void testCull() {
+        float[] data = createEntities(10, 0.5f);
+        SpriteCuller culler = new SpriteCuller(10);
+        int drawCount = culler.cull(data, 10, ENTITY_SIZE, TRANSLATE, BOUNDS, VIEW, null);
+        int[] expected = expected(data, 10, null);
+        Assert.assertEquals(expected.length, drawCount);
+        Assert.assertEquals(10 - drawCount, culler.getCulledCount());
+        Assert.assertArrayEquals(expected, java.util.Arrays.copyOf(culler.getVisible(), drawCount));
+    }
+
+    @Test
+    public void testCullPointOutside() {
+        float[] data = new float[ENTITY_SIZE];
+        data[TRANSLATE] = 2;
+        SpriteCuller culler = new SpriteCuller(1);
+        Assert.assertEquals(0, culler.cull(data, 1, ENTITY_SIZE, TRANSLATE, BOUNDS, VIEW, null));
+        data[TRANSLATE] = 1;
+        Assert.assertEquals(1, culler.cull(data, 1, ENTITY_SIZE, TRANSLATE, BOUNDS, VIEW, null));
+    }
+
+    @Test
+    public void testCullParallelKeepsOrder() {
+        int count = SpriteCuller.PARALLEL_THRESHOLD * 2 + 100;
+        float[] data = createEntities(count, 2f / 1000);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = count - 1 - i;
+        }
+        SpriteCuller culler = new SpriteCuller(count);
+        int drawCount = culler.cull(data, count, ENTITY_SIZE, TRANSLATE, BOUNDS, VIEW, order);
+        int[] expected = expected(data, count, order);
+        Assert.assertEquals(expected.length, drawCount);
+        Assert.assertArrayEquals(expected, java.util.Arrays.copyOf(culler.getVisible(), drawCount));
+        // Cull again with a smaller count, tasks are reused
+        drawCount = culler.cull(data, count - 1000, ENTITY_SIZE, TRANSLATE, BOUNDS, VIEW, order);
+        expected = expected(data, count - 1000, order);
+        Assert.assertArrayEquals(expected, java.util.Arrays.copyOf(culler.getVisible(), drawCount));
+    }
+
+    @Test
+    public void testCompact() {
+        int count = SpriteCuller.PARALLEL_THRESHOLD + 10;
+        int spriteSize = 3;
+        float[] source = new float[count * spriteSize];
+        for (int i = 0; i < source.length; i++) {
+            source[i] = i;
+        }
+        int[] indexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            indexes[i] = (i * 7) % count;
+        }
+        float[] destination = new float[count * spriteSize];
+        new SpriteCuller(count).compact(indexes, count, source, destination, spriteSize);
+        for (int i = 0; i < count; i++) {
+            for (int v = 0; v < spriteSize; v++) {
+                Assert.assertEquals(source[indexes[i] * spriteSize + v], destination[i * spriteSize + v], 0);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.graphicsengine.component;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.graphicsengine.component.SpriteSorter.SortOrder;
+
+public class SpriteSorterTest {
+
+    /**
+     * Depth then frame
+     */
+    private static final int STRIDE = 2;
+
+    private static float[] create(float[] depths, int[] frames) {
+        float[] data = new float[depths.length * STRIDE];
+        for (int i = 0; i < depths.length; i++) {
+            data[i * STRIDE] = depths[i];
+            data[i * STRIDE + 1] = frames[i];
+        }
+        return data;
+    }
+
+    private static void assertSorted(float[] data, int[] order, int count, SortOrder sortOrder) {
+        for (int i = 1; i < count; i++) {
+            float previous = data[order[i - 1] * STRIDE];
+            float depth = data[order[i] * STRIDE];
+            if (previous == depth) {
+                Assert.assertTrue(data[order[i - 1] * STRIDE + 1] <= data[order[i] * STRIDE + 1]);
+            } else if (sortOrder == SortOrder.ASCENDING) {
+                Assert.assertTrue(previous < depth);
+            } else {
+                Assert.assertTrue(previous > depth);
+            }
+        }
+    }
+
+    @Test
+    public void testAscending() {
+        float[] data = create(new float[] { 1, -2, 0.5f, -0.25f, 0 }, new int[] { 0, 0, 0, 0, 0 });
+        SpriteSorter sorter = new SpriteSorter(5, SortOrder.ASCENDING);
+        Assert.assertArrayEquals(new int[] { 1, 3, 4, 2, 0 }, sorter.sort(data, 5, STRIDE, 0, 1));
+        Assert.assertTrue(sorter.isChanged());
+    }
+
+    @Test
+    public void testDescending() {
+        float[] data = create(new float[] { 1, -2, 0.5f, -0.25f, 0 }, new int[] { 0, 0, 0, 0, 0 });
+        SpriteSorter sorter = new SpriteSorter(5, SortOrder.DESCENDING);
+        Assert.assertArrayEquals(new int[] { 0, 2, 4, 3, 1 }, sorter.sort(data, 5, STRIDE, 0, 1));
+    }
+
+    /**
+     * Depths that only differ in the lowest mantissa bits shall be sorted on depth before frame.
+     */
+    @Test
+    public void testNearDepths() {
+        float z = 10;
+        float[] data = create(new float[] { Math.nextUp(Math.nextUp(z)), Math.nextUp(z), z },
+                new int[] { 0, 1, 2 });
+        SpriteSorter sorter = new SpriteSorter(3, SortOrder.ASCENDING);
+        Assert.assertArrayEquals(new int[] { 2, 1, 0 }, sorter.sort(data, 3, STRIDE, 0, 1));
+    }
+
+    @Test
+    public void testFrameTieBreak() {
+        float[] data = create(new float[] { 1, 1, 1, 0 }, new int[] { 4000, 7, 70000, 9 });
+        SpriteSorter sorter = new SpriteSorter(4, SortOrder.DESCENDING);
+        Assert.assertArrayEquals(new int[] { 1, 0, 2, 3 }, sorter.sort(data, 4, STRIDE, 0, 1));
+    }
+
+    @Test
+    public void testSortedIsUnchanged() {
+        float[] data = create(new float[] { 0, 1, 2 }, new int[] { 0, 0, 0 });
+        SpriteSorter sorter = new SpriteSorter(3, SortOrder.ASCENDING);
+        Assert.assertArrayEquals(new int[] { 0, 1, 2 }, sorter.sort(data, 3, STRIDE, 0, 1));
+        Assert.assertFalse(sorter.isChanged());
+    }
+
+    /**
+     * Random data is sorted using radix sort, moving a few sprites afterwards uses insertion sort - both shall give
+     * sorted result.
+     */
+    @Test
+    public void testRadixThenInsertion() {
+        int count = 10000;
+        Random random = new Random(1);
+        float[] depths = new float[count];
+        int[] frames = new int[count];
+        for (int i = 0; i < count; i++) {
+            depths[i] = (random.nextFloat() - 0.5f) * 100;
+            frames[i] = random.nextInt(8);
+        }
+        // Add equal and near equal depths
+        depths[1] = depths[0];
+        depths[2] = Math.nextUp(depths[0]);
+        float[] data = create(depths, frames);
+        for (SortOrder sortOrder : SortOrder.values()) {
+            SpriteSorter sorter = new SpriteSorter(count, sortOrder);
+            assertSorted(data, sorter.sort(data, count, STRIDE, 0, 1), count, sortOrder);
+            for (int i = 0; i < 10; i++) {
+                data[random.nextInt(count) * STRIDE] += random.nextFloat() - 0.5f;
+            }
+            assertSorted(data, sorter.sort(data, count, STRIDE, 0, 1), count, sortOrder);
+            Assert.assertTrue(sorter.isChanged());
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.graphicsengine.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.annotations.SerializedName;
+
+public class SceneSnapshotTest {
+
+    private static final String JSON = "{\"id\":\"root\",\"count\":3,\"scale\":0.5,\"precise\":0.1,"
+            + "\"big\":12345678901,\"visible\":true,\"missing\":null,"
+            + "\"values\":[1,-2.5,1e3,3.4028235E38],"
+            + "\"indexes\":{\"1\":\"one\",\"2\":\"two\"},"
+            + "\"children\":[{\"id\":\"child\",\"count\":-1,\"visible\":false,\"children\":[]},"
+            + "{\"id\":\"child\",\"count\":2,\"unknown\":{\"id\":\"skipped\"}}]}";
+
+    public static class Item {
+        @SerializedName("id")
+        private String id;
+        @SerializedName("count")
+        private int count;
+        @SerializedName("scale")
+        private float scale;
+        @SerializedName("precise")
+        private double precise;
+        @SerializedName("big")
+        private long big;
+        @SerializedName("visible")
+        private boolean visible;
+        @SerializedName("missing")
+        private String missing;
+        @SerializedName("values")
+        private float[] values;
+        @SerializedName("indexes")
+        private HashMap<Integer, String> indexes;
+        @SerializedName("children")
+        private List<Item> children;
+    }
+
+    private final Gson gson = new Gson();
+    private File json;
+    private File snapshot;
+
+    @Before
+    public void createFiles() throws IOException {
+        json = File.createTempFile("scene", ".json");
+        Files.write(json.toPath(), JSON.getBytes(StandardCharsets.UTF_8));
+        snapshot = new File(json.getPath() + ".snapshot");
+    }
+
+    @After
+    public void deleteFiles() {
+        json.delete();
+        snapshot.delete();
+    }
+
+    /**
+     * Reading the snapshot shall give the same result as reading the JSON
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Assert.assertFalse(SceneSnapshot.isCurrent(json, snapshot));
+        SceneSnapshot.write(json, snapshot);
+        Assert.assertTrue(SceneSnapshot.isCurrent(json, snapshot));
+        Assert.assertFalse(new File(snapshot.getPath() + ".tmp").exists());
+        Item expected = SceneSnapshot.readJson(gson, json, Item.class);
+        Item result = SceneSnapshot.read(gson, snapshot, Item.class);
+        Assert.assertEquals(gson.toJsonTree(expected), gson.toJsonTree(result));
+        Assert.assertEquals("two", result.indexes.get(2));
+        Assert.assertEquals(0.1, result.precise, 0);
+        Assert.assertEquals(12345678901L, result.big);
+        Assert.assertEquals(2, result.children.size());
+        Assert.assertEquals("child", result.children.get(1).id);
+    }
+
+    /**
+     * A snapshot that has been truncated shall not be current
+     */
+    @Test
+    public void testTruncated() throws IOException {
+        SceneSnapshot.write(json, snapshot);
+        try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        Assert.assertFalse(SceneSnapshot.isCurrent(json, snapshot));
+    }
+
+    /**
+     * A snapshot with changed data shall not be read
+     */
+    @Test(expected = IOException.class)
+    public void testInvalidCRC() throws IOException {
+        SceneSnapshot.write(json, snapshot);
+        try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+            file.seek(SceneSnapshot.HEADER_SIZE + 1);
+            int value = file.read();
+            file.seek(SceneSnapshot.HEADER_SIZE + 1);
+            file.write(value ^ 1);
+        }
+        Assert.assertTrue(SceneSnapshot.isCurrent(json, snapshot));
+        SceneSnapshot.read(gson, snapshot, Item.class);
+    }
+
+}
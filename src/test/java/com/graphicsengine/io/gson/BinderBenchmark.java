@@ -0,0 +1,117 @@
+package com.graphicsengine.io.gson;
+
+import java.util.HashMap;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Compares reading with {@link FieldBinder}s to reading with reflection only, by setting
+ * {@link BinderTypeAdapterFactory#setEnabled(boolean)}.
+ * Startup is measured as the first read using a new Gson, this includes creating the adapters, warm is the average
+ * of the following reads.
+ * Not run as part of the unit tests, run the main method with the test classpath.
+ *
+ */
+public class BinderBenchmark {
+
+    private static final int[] COUNTS = new int[] { 100, 1000, 10000 };
+    private static final int WARM_READS = 20;
+
+    /**
+     * Fields that are not bound by a binder, as declared by nucleus superclasses
+     */
+    public static class Base {
+        @SerializedName("id")
+        String id;
+        @SerializedName("transform")
+        float[] transform;
+        @SerializedName("properties")
+        HashMap<String, String> properties;
+    }
+
+    public static class Item extends Base {
+
+        public static final FieldBinder<Item> FIELD_BINDER = new FieldBinder<Item>(
+                new String[] { "count", "scale", "visible", "data" },
+                new Class<?>[] { int.class, float.class, boolean.class, float[].class }) {
+            @Override
+            public void setInt(Item target, int field, int value) {
+                target.count = value;
+            }
+
+            @Override
+            public void setFloat(Item target, int field, float value) {
+                target.scale = value;
+            }
+
+            @Override
+            public void setBoolean(Item target, int field, boolean value) {
+                target.visible = value;
+            }
+
+            @Override
+            public void setObject(Item target, int field, Object value) {
+                target.data = (float[]) value;
+            }
+        };
+
+        @SerializedName("count")
+        private int count;
+        @SerializedName("scale")
+        private float scale;
+        @SerializedName("visible")
+        private boolean visible;
+        @SerializedName("data")
+        private float[] data;
+    }
+
+    public static void main(String[] args) {
+        for (int count : COUNTS) {
+            String json = createJson(count);
+            // Run once each to load classes before measuring.
+            read(json, true);
+            read(json, false);
+            long[] bound = read(json, true);
+            long[] reflective = read(json, false);
+            System.out.println(count + " objects: startup bound " + bound[0] / 1000 + " us, reflective "
+                    + reflective[0] / 1000 + " us, warm bound " + bound[1] / 1000 + " us, reflective "
+                    + reflective[1] / 1000 + " us");
+        }
+    }
+
+    /**
+     * Reads the json using a new Gson
+     *
+     * @return Time of first read and average time of warm reads, in nanos
+     */
+    private static long[] read(String json, boolean enabled) {
+        long start = System.nanoTime();
+        BinderTypeAdapterFactory factory = new BinderTypeAdapterFactory().add(Item.class, Item.FIELD_BINDER);
+        factory.setEnabled(enabled);
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(factory).create();
+        Item[] items = gson.fromJson(json, Item[].class);
+        long startup = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < WARM_READS; i++) {
+            items = gson.fromJson(json, Item[].class);
+        }
+        long warm = (System.nanoTime() - start) / WARM_READS;
+        if (items[items.length - 1].count != items.length - 1 || items[0].properties.size() != 1) {
+            throw new IllegalArgumentException("Invalid result");
+        }
+        return new long[] { startup, warm };
+    }
+
+    private static String createJson(int count) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            sb.append(i > 0 ? "," : "").append("{\"id\":\"item").append(i)
+                    .append("\",\"transform\":[1,0,0,0,1,0],\"properties\":{\"key\":\"value\"},\"count\":")
+                    .append(i).append(",\"scale\":1.5,\"visible\":true,\"data\":[0.5,1.5,2.5,3.5]}");
+        }
+        return sb.append("]").toString();
+    }
+
+}
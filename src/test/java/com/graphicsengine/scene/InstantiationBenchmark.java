@@ -0,0 +1,59 @@
+package com.graphicsengine.scene;
+
+import com.nucleus.vecmath.Rectangle;
+
+/**
+ * Measures instantiation time and retained heap of toggles created from a template, as done by
+ * {@link SharedMeshToggle#createInstance(com.nucleus.scene.RootNode)}, with the definition data shared with the
+ * template compared to copying the rectangle and selected frames for each instance.
+ * Not run as part of the unit tests, run the main method with the test classpath.
+ *
+ */
+public class InstantiationBenchmark {
+
+    private static final int COUNT = 100000;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        Rectangle rectangle = new Rectangle(-0.5f, 0.5f, 1, 1);
+        int[] selectedFrames = new int[] { 0, 1 };
+        SharedMeshToggle template = new SharedMeshToggle();
+        SharedMeshQuad.FIELD_BINDER.setObject(template, 1, rectangle);
+        SharedMeshToggle.FIELD_BINDER.setObject(template, 1, selectedFrames);
+        for (int run = 0; run < RUNS; run++) {
+            measure(template, rectangle, selectedFrames, false);
+            measure(template, rectangle, selectedFrames, true);
+        }
+    }
+
+    private static void measure(SharedMeshToggle template, Rectangle rectangle, int[] selectedFrames,
+            boolean copy) {
+        SharedMeshToggle[] instances = new SharedMeshToggle[COUNT];
+        long before = usedHeap();
+        long start = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+            SharedMeshToggle instance = new SharedMeshToggle();
+            instance.set(template);
+            if (copy) {
+                // The copies made before definition data was shared with the template
+                SharedMeshQuad.FIELD_BINDER.setObject(instance, 1, new Rectangle(rectangle));
+                SharedMeshToggle.FIELD_BINDER.setObject(instance, 1, selectedFrames.clone());
+            }
+            instances[i] = instance;
+        }
+        long time = System.nanoTime() - start;
+        long retained = usedHeap() - before;
+        System.out.println(COUNT + " toggles, " + (copy ? "copied" : "shared") + " definition data: "
+                + time / 1000000f + " ms, " + retained / COUNT + " bytes retained per instance ("
+                + instances.length + ")");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
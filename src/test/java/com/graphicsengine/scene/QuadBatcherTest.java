@@ -0,0 +1,132 @@
+package com.graphicsengine.scene;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.graphicsengine.scene.QuadBatcher.BatchKey;
+
+public class QuadBatcherTest {
+
+    private static final float[] IDENTITY = new float[] { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1 };
+    private static final float[] TRANSLATED = new float[] { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 1, 0, 0, 1 };
+
+    private final Object program = new Object();
+    private final Object texture = new Object();
+    private final Object otherTexture = new Object();
+
+    @Test
+    public void testBatchKey() {
+        BatchKey key = new BatchKey(program, texture, null, IDENTITY);
+        Assert.assertEquals(key, new BatchKey(program, texture, null, IDENTITY.clone()));
+        Assert.assertEquals(key.hashCode(), new BatchKey(program, texture, null, IDENTITY.clone()).hashCode());
+        Assert.assertNotEquals(key, new BatchKey(program, otherTexture, null, IDENTITY));
+        Assert.assertNotEquals(key, new BatchKey(new Object(), texture, null, IDENTITY));
+        Assert.assertNotEquals(key, new BatchKey(program, texture, null, TRANSLATED));
+    }
+
+    @Test
+    public void testMatrixIsCopied() {
+        float[] matrix = IDENTITY.clone();
+        BatchKey key = new BatchKey(program, texture, null, matrix);
+        matrix[12] = 1;
+        Assert.assertEquals(key, new BatchKey(program, texture, null, IDENTITY));
+    }
+
+    @Test
+    public void testGroupCompatible() {
+        BatchKey[] keys = new BatchKey[] { new BatchKey(program, texture, null, IDENTITY),
+                new BatchKey(program, otherTexture, null, IDENTITY),
+                new BatchKey(program, texture, null, IDENTITY),
+                new BatchKey(program, texture, null, TRANSLATED) };
+        int[] leaders = QuadBatcher.group(keys, new int[] { 2, 2, 2, 2 }, new int[] { 10, 10, 10, 10 });
+        Assert.assertArrayEquals(new int[] { 0, 1, 0, 3 }, leaders);
+    }
+
+    @Test
+    public void testGroupCapacity() {
+        BatchKey[] keys = new BatchKey[] { new BatchKey(program, texture, null, IDENTITY),
+                new BatchKey(program, texture, null, IDENTITY),
+                new BatchKey(program, texture, null, IDENTITY),
+                new BatchKey(program, texture, null, IDENTITY) };
+        // Leader 0 has room for 1 more node, node 2 starts a new batch that node 3 joins
+        int[] leaders = QuadBatcher.group(keys, new int[] { 4, 4, 4, 4 }, new int[] { 8, 8, 8, 8 });
+        Assert.assertArrayEquals(new int[] { 0, 0, 2, 2 }, leaders);
+    }
+
+    @Test
+    public void testGroupEmpty() {
+        Assert.assertEquals(0, QuadBatcher.group(new BatchKey[0], new int[0], new int[0]).length);
+    }
+
+    /**
+     * Creates quad data where each value is quad * 10 + value index, plus base
+     */
+    private static float[] createQuadData(int count, int size, float base) {
+        float[] data = new float[count * size];
+        for (int quad = 0; quad < count; quad++) {
+            for (int i = 0; i < size; i++) {
+                data[quad * size + i] = base + quad * 10 + i;
+            }
+        }
+        return data;
+    }
+
+    private static float[] getQuad(float[] data, int slot, int size) {
+        float[] quad = new float[size];
+        System.arraycopy(data, slot * size, quad, 0, size);
+        return quad;
+    }
+
+    /**
+     * Merges two compatible sources into a leader that has one used slot and one free slot, the free slot shall be
+     * used first, then new slots. The data of each source quad shall be at the slot returned for it and leader data
+     * shall not be changed.
+     */
+    @Test
+    public void testMergeQuadData() {
+        int size = 4;
+        QuadSlots leaderSlots = new QuadSlots(8);
+        Assert.assertEquals(0, leaderSlots.allocate());
+        Assert.assertEquals(1, leaderSlots.allocate());
+        leaderSlots.free(0);
+        float[] leader = createQuadData(8, size, 0);
+        float[] leaderQuad = getQuad(leader, 1, size);
+        float[] source1 = createQuadData(3, size, 100);
+        float[] source2 = createQuadData(2, size, 200);
+        int[][] sourceSlots = new int[][] { { 2, 0 }, { 1, 0 } };
+        int[] result = new int[4];
+        int[] offsets = QuadBatcher.mergeQuadData(new float[][] { source1, source2 }, sourceSlots,
+                new int[] { 2, 2 }, size, leader, leaderSlots, result);
+        Assert.assertArrayEquals(new int[] { 0, 2 }, offsets);
+        Assert.assertArrayEquals(new int[] { 0, 2, 3, 4 }, result);
+        Assert.assertArrayEquals(getQuad(source1, 2, size), getQuad(leader, 0, size), 0);
+        Assert.assertArrayEquals(getQuad(source1, 0, size), getQuad(leader, 2, size), 0);
+        Assert.assertArrayEquals(getQuad(source2, 1, size), getQuad(leader, 3, size), 0);
+        Assert.assertArrayEquals(getQuad(source2, 0, size), getQuad(leader, 4, size), 0);
+        Assert.assertArrayEquals(leaderQuad, getQuad(leader, 1, size), 0);
+        Assert.assertEquals(5, leaderSlots.getSlotCount());
+        Assert.assertEquals(3, leaderSlots.getAvailable());
+    }
+
+    @Test
+    public void testMergeEmptySource() {
+        QuadSlots leaderSlots = new QuadSlots(4);
+        float[] leader = new float[4 * 2];
+        int[] result = new int[1];
+        int[] offsets = QuadBatcher.mergeQuadData(
+                new float[][] { new float[0], createQuadData(1, 2, 100) }, new int[][] { {}, { 0 } },
+                new int[] { 0, 1 }, 2, leader, leaderSlots, result);
+        Assert.assertArrayEquals(new int[] { 0, 0 }, offsets);
+        Assert.assertArrayEquals(new int[] { 0 }, result);
+        Assert.assertArrayEquals(new float[] { 100, 101 }, getQuad(leader, 0, 2), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeFull() {
+        QuadSlots leaderSlots = new QuadSlots(2);
+        leaderSlots.allocate();
+        QuadBatcher.mergeQuadData(new float[][] { createQuadData(2, 1, 0) }, new int[][] { { 0, 1 } },
+                new int[] { 2 }, 1, new float[2], leaderSlots, new int[2]);
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.graphicsengine.scene;
+
+import java.util.Random;
+
+import com.graphicsengine.component.SpatialHash;
+
+/**
+ * Measures the cost of {@link QuadHitIndex} for increasing number of quads, publishing a few moved quads each frame
+ * compared to rebuilding the spatial hash, and the cost of a hit query.
+ * Not run as part of the unit tests, run the main method with the test classpath.
+ *
+ */
+public class QuadHitIndexBenchmark {
+
+    private static final int[] COUNTS = new int[] { 100, 1000, 10000, 100000 };
+    private static final int MOVED_PER_FRAME = 10;
+    private static final int FRAMES = 1000;
+    private static final int QUERIES = 100000;
+
+    public static void main(String[] args) {
+        for (int count : COUNTS) {
+            Random random = new Random(count);
+            float worldSize = (float) Math.sqrt(count * 16.0);
+            QuadHitIndex<Integer> index = new QuadHitIndex<>(count);
+            float[] data = new float[count * 7];
+            for (int i = 0; i < count; i++) {
+                index.add(i);
+                setRandom(index, data, i, random, worldSize);
+            }
+            index.publish();
+            SpatialHash hash = new SpatialHash();
+            long publish = 0;
+            long rebuild = 0;
+            for (int frame = 0; frame < FRAMES; frame++) {
+                for (int i = 0; i < MOVED_PER_FRAME; i++) {
+                    setRandom(index, data, random.nextInt(count), random, worldSize);
+                }
+                long start = System.nanoTime();
+                index.publish();
+                long published = System.nanoTime();
+                hash.rebuild(data, count, 7, 0, 2);
+                long end = System.nanoTime();
+                publish += published - start;
+                rebuild += end - published;
+            }
+            int hits = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                if (index.getAt(random.nextFloat() * worldSize, random.nextFloat() * worldSize) != null) {
+                    hits++;
+                }
+            }
+            long query = System.nanoTime() - start;
+            System.out.println(count + " quads, " + MOVED_PER_FRAME + " moved per frame: publish "
+                    + (publish / FRAMES) / 1000f + " us, full rebuild " + (rebuild / FRAMES) / 1000f
+                    + " us, getAt " + (float) query / QUERIES + " ns (" + hits + " hits)");
+        }
+    }
+
+    private static void setRandom(QuadHitIndex<Integer> index, float[] data, int quad, Random random,
+            float worldSize) {
+        float x = random.nextFloat() * worldSize;
+        float y = random.nextFloat() * worldSize;
+        index.setBounds(quad, x, y, -1, 1, 2, 2, 0);
+        int i = quad * 7;
+        data[i] = x;
+        data[i + 1] = y;
+        data[i + 2] = -1;
+        data[i + 3] = 1;
+        data[i + 4] = 2;
+        data[i + 5] = 2;
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.graphicsengine.scene;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QuadHitIndexTest {
+
+    /**
+     * Adds a quad of size 1 with top left at x, y
+     */
+    private static int add(QuadHitIndex<String> index, String quad, float x, float y, float z) {
+        int i = index.add(quad);
+        index.setBounds(i, x, y, 0, 0, 1, 1, z);
+        return i;
+    }
+
+    @Test
+    public void testEmpty() {
+        QuadHitIndex<String> index = new QuadHitIndex<>(4);
+        Assert.assertNull(index.getAt(0, 0));
+        index.publish();
+        Assert.assertNull(index.getAt(0, 0));
+    }
+
+    @Test
+    public void testHit() {
+        QuadHitIndex<String> index = new QuadHitIndex<>(4);
+        add(index, "a", 0, 1, 0);
+        add(index, "b", 5, 1, 0);
+        index.publish();
+        Assert.assertEquals("a", index.getAt(0.5f, 0.5f));
+        Assert.assertEquals("b", index.getAt(5.5f, 0.5f));
+        Assert.assertNull(index.getAt(3, 0.5f));
+    }
+
+    @Test
+    public void testHighestZ() {
+        QuadHitIndex<String> index = new QuadHitIndex<>(4);
+        add(index, "a", 0, 1, 1);
+        add(index, "b", 0.5f, 1, 2);
+        add(index, "c", 0.25f, 1, 0);
+        index.publish();
+        Assert.assertEquals("b", index.getAt(0.75f, 0.5f));
+        Assert.assertEquals("a", index.getAt(0.1f, 0.5f));
+    }
+
+    /**
+     * Changes are not visible until published
+     */
+    @Test
+    public void testPublish() {
+        QuadHitIndex<String> index = new QuadHitIndex<>(4);
+        int a = add(index, "a", 0, 1, 0);
+        Assert.assertNull(index.getAt(0.5f, 0.5f));
+        index.publish();
+        index.setBounds(a, 10, 1, 0, 0, 1, 1, 0);
+        Assert.assertEquals("a", index.getAt(0.5f, 0.5f));
+        Assert.assertNull(index.getAt(10.5f, 0.5f));
+        index.publish();
+        Assert.assertNull(index.getAt(0.5f, 0.5f));
+        Assert.assertEquals("a", index.getAt(10.5f, 0.5f));
+    }
+
+    /**
+     * Removed quad shall not be hit, the last quad is moved to the removed index and shall still be hit
+     */
+    @Test
+    public void testRemove() {
+        QuadHitIndex<String> index = new QuadHitIndex<>(4);
+        int a = add(index, "a", 0, 1, 0);
+        add(index, "b", 5, 1, 0);
+        add(index, "c", 10, 1, 0);
+        index.publish();
+        index.remove(a);
+        Assert.assertEquals(2, index.getCount());
+        index.publish();
+        Assert.assertNull(index.getAt(0.5f, 0.5f));
+        Assert.assertEquals("b", index.getAt(5.5f, 0.5f));
+        Assert.assertEquals("c", index.getAt(10.5f, 0.5f));
+        // c is now at index 0
+        index.setBounds(a, 20, 1, 0, 0, 1, 1, 0);
+        index.remove(1);
+        index.publish();
+        Assert.assertNull(index.getAt(5.5f, 0.5f));
+        Assert.assertNull(index.getAt(10.5f, 0.5f));
+        Assert.assertEquals("c", index.getAt(20.5f, 0.5f));
+        index.remove(0);
+        index.publish();
+        Assert.assertNull(index.getAt(20.5f, 0.5f));
+    }
+
+    /**
+     * Index is reused after remove, the new quad shall not get stale bounds from the removed quad
+     */
+    @Test
+    public void testAddAfterRemove() {
+        QuadHitIndex<String> index = new QuadHitIndex<>(2);
+        add(index, "a", 0, 1, 0);
+        index.publish();
+        index.remove(0);
+        index.add("b");
+        index.publish();
+        Assert.assertNull(index.getAt(0.5f, 0.5f));
+    }
+
+    /**
+     * Quads that grow much larger than the first quads shall still be hit
+     */
+    @Test
+    public void testGrownBounds() {
+        QuadHitIndex<String> index = new QuadHitIndex<>(4);
+        add(index, "a", 0, 1, 0);
+        index.publish();
+        int b = index.add("b");
+        index.setBounds(b, 100, 100, 0, 0, 50, 50, 0);
+        index.publish();
+        Assert.assertEquals("b", index.getAt(149, 51));
+        Assert.assertEquals("a", index.getAt(0.5f, 0.5f));
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.graphicsengine.scene;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QuadSlotsTest {
+
+    @Test
+    public void testAllocate() {
+        QuadSlots slots = new QuadSlots(3);
+        Assert.assertEquals(3, slots.getAvailable());
+        Assert.assertEquals(0, slots.allocate());
+        Assert.assertEquals(1, slots.allocate());
+        Assert.assertEquals(2, slots.allocate());
+        Assert.assertEquals(3, slots.getSlotCount());
+        Assert.assertEquals(0, slots.getAvailable());
+    }
+
+    @Test
+    public void testFull() {
+        QuadSlots slots = new QuadSlots(1);
+        slots.allocate();
+        Assert.assertEquals(-1, slots.allocate());
+        Assert.assertEquals(1, slots.getSlotCount());
+    }
+
+    /**
+     * Freed slots shall be reused, last freed first, before new slots are used
+     */
+    @Test
+    public void testReuse() {
+        QuadSlots slots = new QuadSlots(4);
+        for (int i = 0; i < 3; i++) {
+            slots.allocate();
+        }
+        slots.free(0);
+        slots.free(2);
+        Assert.assertEquals(2, slots.getFreeCount());
+        Assert.assertEquals(3, slots.getAvailable());
+        Assert.assertEquals(2, slots.allocate());
+        Assert.assertEquals(0, slots.allocate());
+        Assert.assertEquals(3, slots.allocate());
+        Assert.assertEquals(0, slots.getFreeCount());
+        Assert.assertEquals(4, slots.getSlotCount());
+        Assert.assertEquals(-1, slots.allocate());
+    }
+
+    /**
+     * Slots shall not grow past capacity when quads are added and removed repeatedly
+     */
+    @Test
+    public void testAddRemoveCycle() {
+        QuadSlots slots = new QuadSlots(2);
+        int first = slots.allocate();
+        for (int i = 0; i < 100; i++) {
+            int slot = slots.allocate();
+            Assert.assertEquals(1, slot);
+            slots.free(slot);
+        }
+        Assert.assertEquals(0, first);
+        Assert.assertEquals(2, slots.getSlotCount());
+        Assert.assertEquals(1, slots.getAvailable());
+    }
+
+    @Test
+    public void testRemap() {
+        QuadSlots slots = new QuadSlots(4);
+        for (int i = 0; i < 4; i++) {
+            slots.allocate();
+        }
+        slots.free(1);
+        slots.free(3);
+        // Reverse order of slots
+        slots.remap(new int[] { 3, 2, 1, 0 });
+        Assert.assertEquals(0, slots.allocate());
+        Assert.assertEquals(2, slots.allocate());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFreeNotAllocated() {
+        QuadSlots slots = new QuadSlots(4);
+        slots.allocate();
+        slots.free(1);
+    }
+
+}
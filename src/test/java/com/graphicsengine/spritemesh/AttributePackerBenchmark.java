@@ -0,0 +1,70 @@
+package com.graphicsengine.spritemesh;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+/**
+ * Compares the upload size and cost of the float sprite attributes with the same data packed using
+ * {@link AttributePacker}.
+ * Float layout is translate, rotate, scale, albedo and frame - 13 floats or 52 bytes per vertex.
+ * Packed layout is translate as 3 floats, rotate and scale as 3 halffloats padded to 8 bytes, albedo as RGBA8 and
+ * frame plus flags as 2 shorts - 36 bytes per vertex.
+ * Not run as part of the unit tests, run the main method with the test classpath.
+ *
+ */
+public class AttributePackerBenchmark {
+
+    private static final int SPRITES = 100000;
+    private static final int VERTICES = SPRITES * 4;
+    private static final int FLOATS_PER_VERTEX = 13;
+    private static final int PACKED_BYTES_PER_VERTEX = 36;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) {
+        float[] source = new float[VERTICES * FLOATS_PER_VERTEX];
+        Random random = new Random(1);
+        for (int i = 0; i < source.length; i++) {
+            source[i] = random.nextFloat();
+        }
+        ByteBuffer floatBytes = ByteBuffer.allocateDirect(source.length * 4).order(ByteOrder.nativeOrder());
+        FloatBuffer floats = floatBytes.asFloatBuffer();
+        ByteBuffer packed = ByteBuffer.allocateDirect(VERTICES * PACKED_BYTES_PER_VERTEX)
+                .order(ByteOrder.nativeOrder());
+        long floatTime = Long.MAX_VALUE;
+        long packedTime = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            floats.position(0);
+            floats.put(source);
+            long copied = System.nanoTime();
+            pack(source, packed);
+            long end = System.nanoTime();
+            floatTime = Math.min(floatTime, copied - start);
+            packedTime = Math.min(packedTime, end - copied);
+        }
+        System.out.println(SPRITES + " sprites, float " + floatBytes.capacity() / 1024 + " KB in "
+                + floatTime / 1000000f + " ms, packed " + packed.capacity() / 1024 + " KB in "
+                + packedTime / 1000000f + " ms");
+    }
+
+    private static void pack(float[] source, ByteBuffer destination) {
+        int position = 0;
+        int index = 0;
+        for (int i = 0; i < VERTICES; i++) {
+            destination.putFloat(position, source[index]);
+            destination.putFloat(position + 4, source[index + 1]);
+            destination.putFloat(position + 8, source[index + 2]);
+            destination.putInt(position + 12, AttributePacker.packHalf2(source[index + 3], source[index + 4]));
+            destination.putInt(position + 16, AttributePacker.toHalf(source[index + 5]));
+            destination.putInt(position + 20, AttributePacker.packHalf2(source[index + 6], source[index + 7]));
+            destination.putInt(position + 24, AttributePacker.toHalf(source[index + 8]));
+            destination.putInt(position + 28, AttributePacker.packRGBA8(source, index + 9));
+            destination.putInt(position + 32, AttributePacker.packShort2((int) (source[index + 12] * 64), 0));
+            position += PACKED_BYTES_PER_VERTEX;
+            index += FLOATS_PER_VERTEX;
+        }
+    }
+
+}
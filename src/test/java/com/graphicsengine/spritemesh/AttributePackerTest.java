@@ -0,0 +1,102 @@
+package com.graphicsengine.spritemesh;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AttributePackerTest {
+
+    @Test
+    public void testToHalf() {
+        Assert.assertEquals(0x3c00, AttributePacker.toHalf(1));
+        Assert.assertEquals(0xc000, AttributePacker.toHalf(-2));
+        Assert.assertEquals(0x3555, AttributePacker.toHalf(1f / 3));
+        Assert.assertEquals(0x7bff, AttributePacker.toHalf(AttributePacker.MAX_HALF));
+        Assert.assertEquals(0, AttributePacker.toHalf(0));
+        Assert.assertEquals(0x8000, AttributePacker.toHalf(-0f));
+    }
+
+    @Test
+    public void testDenormals() {
+        float smallest = (float) Math.pow(2, -24);
+        Assert.assertEquals(0x0001, AttributePacker.toHalf(smallest));
+        Assert.assertEquals(0x03ff, AttributePacker.toHalf(1023 * smallest));
+        Assert.assertEquals(0x0400, AttributePacker.toHalf(1024 * smallest));
+        Assert.assertEquals(smallest, AttributePacker.fromHalf(0x0001), 0);
+        Assert.assertEquals(-1023 * smallest, AttributePacker.fromHalf(0x83ff), 0);
+        // Half of smallest is a tie, rounds to even zero - anything above rounds up
+        Assert.assertEquals(0, AttributePacker.toHalf(smallest / 2));
+        Assert.assertEquals(1, AttributePacker.toHalf(Math.nextUp(smallest / 2)));
+        Assert.assertEquals(0x8000, AttributePacker.toHalf(-smallest / 4));
+        Assert.assertEquals(0, AttributePacker.toHalf(Float.MIN_VALUE));
+    }
+
+    @Test
+    public void testInfinityAndNaN() {
+        Assert.assertEquals(0x7c00, AttributePacker.toHalf(Float.POSITIVE_INFINITY));
+        Assert.assertEquals(0xfc00, AttributePacker.toHalf(Float.NEGATIVE_INFINITY));
+        Assert.assertEquals(0x7c00, AttributePacker.toHalf(100000));
+        Assert.assertEquals(0xfc00, AttributePacker.toHalf(-100000));
+        // Halfway between max half and 65536 rounds to even, which is infinity
+        Assert.assertEquals(0x7c00, AttributePacker.toHalf(65520));
+        Assert.assertEquals(0x7bff, AttributePacker.toHalf(Math.nextDown(65520f)));
+        Assert.assertTrue(Float.isNaN(AttributePacker.fromHalf(AttributePacker.toHalf(Float.NaN))));
+        Assert.assertEquals(Float.POSITIVE_INFINITY, AttributePacker.fromHalf(0x7c00), 0);
+        Assert.assertEquals(Float.NEGATIVE_INFINITY, AttributePacker.fromHalf(0xfc00), 0);
+    }
+
+    @Test
+    public void testRoundToNearestEven() {
+        float ulp = (float) Math.pow(2, -10);
+        // Ties go to even mantissa
+        Assert.assertEquals(0x3c00, AttributePacker.toHalf(1 + ulp / 2));
+        Assert.assertEquals(0x3c02, AttributePacker.toHalf(1 + ulp * 1.5f));
+        // Not a tie
+        Assert.assertEquals(0x3c01, AttributePacker.toHalf(Math.nextUp(1 + ulp / 2)));
+        Assert.assertEquals(0x3c00, AttributePacker.toHalf(Math.nextDown(1 + ulp / 2)));
+        // Rounding carries into exponent
+        Assert.assertEquals(0x4000, AttributePacker.toHalf(Math.nextDown(2f)));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (int half = 0; half < 0x7c00; half++) {
+            Assert.assertEquals(half, AttributePacker.toHalf(AttributePacker.fromHalf(half)));
+            Assert.assertEquals(half | 0x8000, AttributePacker.toHalf(AttributePacker.fromHalf(half | 0x8000)));
+        }
+    }
+
+    @Test
+    public void testPackHalf2() {
+        int packed = AttributePacker.packHalf2(1, -2);
+        Assert.assertEquals(0x3c00, packed & 0xffff);
+        Assert.assertEquals(0xc000, packed >>> 16);
+    }
+
+    @Test
+    public void testRGBA8() {
+        float[] color = new float[] { 0, 1, 0.5f, 1f / 255 };
+        int rgba = AttributePacker.packRGBA8(color, 0);
+        Assert.assertEquals(0x0180ff00, rgba);
+        float[] result = new float[5];
+        AttributePacker.unpackRGBA8(rgba, result, 1);
+        Assert.assertArrayEquals(new float[] { 0, 0, 1, 128f / 255, 1f / 255 }, result, 0);
+        // Clamped
+        Assert.assertEquals(0xff0000ff, AttributePacker.packRGBA8(new float[] { 2, -1, Float.NaN, 1.5f }, 0));
+        // Every byte value survives a round trip
+        for (int i = 0; i < 256; i++) {
+            color[0] = i / 255f;
+            Assert.assertEquals(i, AttributePacker.packRGBA8(color, 0) & 0xff);
+        }
+    }
+
+    @Test
+    public void testPackShort2() {
+        Assert.assertEquals(0xffff0001, AttributePacker.packShort2(1, 0xffff));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPackShort2Range() {
+        AttributePacker.packShort2(0x10000, 0);
+    }
+
+}
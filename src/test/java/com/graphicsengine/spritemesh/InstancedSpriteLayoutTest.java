@@ -0,0 +1,61 @@
+package com.graphicsengine.spritemesh;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nucleus.geometry.AttributeUpdater.BufferIndex;
+import com.nucleus.geometry.shape.RectangleShapeBuilder;
+
+public class InstancedSpriteLayoutTest {
+
+    @Test
+    public void testIndexer() {
+        InstancedSpriteIndexer indexer = new InstancedSpriteIndexer();
+        Assert.assertEquals(InstancedSpriteIndexer.SIZEPERVERTEX[BufferIndex.ATTRIBUTES.index],
+                indexer.getInstanceSize());
+        Assert.assertEquals(InstancedSpriteIndexer.SIZEPERVERTEX[BufferIndex.ATTRIBUTES_STATIC.index],
+                indexer.getStaticSizePerVertex());
+        Assert.assertEquals(1, indexer.getDivisor(BufferIndex.ATTRIBUTES));
+        Assert.assertEquals(0, indexer.getDivisor(BufferIndex.ATTRIBUTES_STATIC));
+    }
+
+    @Test
+    public void testBufferSizes() {
+        InstancedSpriteIndexer indexer = new InstancedSpriteIndexer();
+        InstancedSpriteLayout layout = new InstancedSpriteLayout(indexer);
+        int instanceSize = indexer.getInstanceSize();
+        Assert.assertEquals(RectangleShapeBuilder.QUAD_VERTICES * indexer.getStaticSizePerVertex(),
+                layout.getStaticBufferSize());
+        Assert.assertEquals(1000 * instanceSize, layout.getInstanceBufferSize(1000));
+        Assert.assertEquals(10 * instanceSize, layout.getInstanceOffset(10));
+        Assert.assertEquals(layout.getInstancedBytes(1000) * RectangleShapeBuilder.QUAD_VERTICES,
+                layout.getExpandedBytes(1000));
+    }
+
+    @Test
+    public void testVertexCount() {
+        InstancedSpriteIndexer indexer = new InstancedSpriteIndexer();
+        InstancedSpriteLayout layout = new InstancedSpriteLayout(indexer);
+        Assert.assertEquals(RectangleShapeBuilder.QUAD_VERTICES, layout.getVertexCount(1));
+        // Instance buffer is sized by vertex count, must hold all instances
+        for (int count : new int[] { 4, 5, 100, 10000 }) {
+            int vertices = layout.getVertexCount(count);
+            Assert.assertTrue(vertices * indexer.getInstanceSize() >= layout.getInstanceBufferSize(count));
+            Assert.assertTrue(vertices * indexer.getStaticSizePerVertex() >= layout.getStaticBufferSize());
+        }
+    }
+
+    @Test
+    public void testCreateQuad() {
+        InstancedSpriteLayout layout = new InstancedSpriteLayout(4, 13);
+        float[] quad = new float[layout.getStaticBufferSize()];
+        layout.createQuad(new float[] { -1, 1, 2, 2 }, 0.5f, quad);
+        float[] expected = new float[] {
+                -1, 1, 0.5f, 0,
+                1, 1, 0.5f, 1,
+                1, -1, 0.5f, 2,
+                -1, -1, 0.5f, 3 };
+        Assert.assertArrayEquals(expected, quad, 0);
+    }
+
+}